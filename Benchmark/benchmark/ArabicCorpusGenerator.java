@@ -0,0 +1,102 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic Arabic text for benchmarks. Words are drawn from a
+ * fixed vocabulary with a Zipf distribution, some with harakat, clitics or
+ * trailing punctuation, so the same seed always yields the same corpus.
+ */
+public class ArabicCorpusGenerator {
+
+	private static final String[] STEMS = { "كتب", "قرأ", "علم", "درس", "فهم", "عمل", "جلس", "خرج", "دخل", "سمع",
+			"نظر", "ذهب", "رجع", "سأل", "حمل", "فتح", "غلق", "حكم", "شرب", "أكل", "بحث", "كشف", "نشر", "حفظ" };
+	private static final String[] WORDS = { "في", "من", "على", "إلى", "عن", "أن", "الذي", "التي", "هذا", "هذه", "كان",
+			"قال", "كل", "بين", "بعد", "قبل", "حتى", "مع", "عند", "الله", "الكتاب", "العلم", "المدرسة", "الطالب",
+			"المعلم", "اللغة", "العربية", "الجملة", "الكلمة", "الفعل", "الاسم", "الحرف", "القرآن", "الحديث", "النبي",
+			"الأرض", "السماء", "الناس", "اليوم", "البيت", "المدينة", "الطريق", "الماء", "الشمس", "القمر", "الليل",
+			"النهار", "الحياة", "الإنسان", "الوقت" };
+	private static final String[] PREFIXES = { "و", "ف", "ب", "ل", "وال", "بال" };
+	private static final String[] SUFFIXES = { "ه", "ها", "هم", "ون", "ات", "ين", "نا" };
+	private static final char[] HARAKAT = { 'َ', 'ُ', 'ِ', 'ْ', 'ّ' };
+	private static final String[] PUNCTUATION = { "،", ".", "؟", "!" };
+
+	private final Random random;
+	private final List<String> vocabulary = new ArrayList<>();
+	private final double[] cumulative;
+
+	public ArabicCorpusGenerator(long seed) {
+		this(seed, 1.07);
+	}
+
+	/** @param exponent Zipf exponent; about 1 for natural language */
+	public ArabicCorpusGenerator(long seed, double exponent) {
+		this.random = new Random(seed);
+		for (String word : WORDS) {
+			vocabulary.add(word);
+		}
+		for (String stem : STEMS) {
+			vocabulary.add(stem);
+			vocabulary.add("ي" + stem);
+			vocabulary.add("م" + stem.charAt(0) + stem.substring(1) + "ة");
+			for (String suffix : SUFFIXES) {
+				vocabulary.add(stem + suffix);
+			}
+		}
+		cumulative = new double[vocabulary.size()];
+		double total = 0;
+		for (int rank = 0; rank < cumulative.length; rank++) {
+			total += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = total;
+		}
+		for (int rank = 0; rank < cumulative.length; rank++) {
+			cumulative[rank] /= total;
+		}
+	}
+
+	public int vocabularySize() {
+		return vocabulary.size();
+	}
+
+	public String word() {
+		int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+		String word = vocabulary.get(rank < 0 ? Math.min(-rank - 1, cumulative.length - 1) : rank);
+		int decoration = random.nextInt(20);
+		if (decoration == 0) {
+			word = PREFIXES[random.nextInt(PREFIXES.length)] + word;
+		} else if (decoration == 1) {
+			StringBuilder voweled = new StringBuilder(word.length() * 2);
+			for (int i = 0; i < word.length(); i++) {
+				voweled.append(word.charAt(i)).append(HARAKAT[random.nextInt(HARAKAT.length)]);
+			}
+			word = voweled.toString();
+		}
+		return word;
+	}
+
+	/** A document of the given number of words, with punctuation and line breaks. */
+	public String document(int words) {
+		StringBuilder text = new StringBuilder(words * 7);
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				text.append(i % 15 == 0 ? '\n' : ' ');
+			}
+			text.append(word());
+			if (random.nextInt(12) == 0) {
+				text.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+			}
+		}
+		return text.toString();
+	}
+
+	public List<String> corpus(int documents, int wordsPerDocument) {
+		List<String> corpus = new ArrayList<>(documents);
+		for (int i = 0; i < documents; i++) {
+			corpus.add(document(wordsPerDocument));
+		}
+		return corpus;
+	}
+}
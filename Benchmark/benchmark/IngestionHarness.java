@@ -0,0 +1,168 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bll.EditorBO;
+import bll.FacadeBO;
+import bll.IFacadeBO;
+import dal.AbstractDAOEditorFactory;
+import dal.EmbeddedEditorDAO;
+import dal.FacadeDAO;
+import dal.IEditorDBDAO;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import util.StageTimer;
+
+/**
+ * Headless end-to-end ingestion run. Creates synthetic Arabic files through
+ * {@link IFacadeBO#createFile}, edits random pages with
+ * {@link IFacadeBO#updateFile} and searches with
+ * {@link IFacadeBO#searchKeyword}, then reports throughput, latency
+ * percentiles and where the write time went.
+ *
+ * <pre>
+ * gradle jmhJar
+ * java -cp build/libs/RealEditor-jmh.jar benchmark.IngestionHarness [--backend=memory|config] [--files=200]
+ *     [--min-words=50] [--max-words=5000] [--updates=100] [--searches=50] [--seed=1]
+ * </pre>
+ *
+ * The memory backend uses the in-process store; config uses the DAO chosen by
+ * {@code db.type} in config.properties, normally the local MariaDB.
+ */
+public class IngestionHarness {
+
+	private final Map<String, AtomicLong> stages = new TreeMap<>();
+
+	public static void main(String[] args) {
+		Map<String, String> options = new TreeMap<>();
+		for (String arg : args) {
+			if (arg.startsWith("--") && arg.contains("=")) {
+				options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+			}
+		}
+		String backend = options.getOrDefault("backend", "memory");
+		int files = Integer.parseInt(options.getOrDefault("files", "200"));
+		int minWords = Integer.parseInt(options.getOrDefault("min-words", "50"));
+		int maxWords = Integer.parseInt(options.getOrDefault("max-words", "5000"));
+		int updates = Integer.parseInt(options.getOrDefault("updates", "100"));
+		int searches = Integer.parseInt(options.getOrDefault("searches", "50"));
+		long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+
+		IEditorDBDAO dao = backend.equals("memory") ? new EmbeddedEditorDAO()
+				: AbstractDAOEditorFactory.getInstance().createEditorDAO();
+		IFacadeBO facade = new FacadeBO(new EditorBO(new FacadeDAO(dao)));
+		new IngestionHarness().run(facade, new ArabicCorpusGenerator(seed), new Random(seed), files, minWords,
+				maxWords, updates, searches);
+		System.exit(0);
+	}
+
+	public void run(IFacadeBO facade, ArabicCorpusGenerator generator, Random random, int files, int minWords,
+			int maxWords, int updates, int searches) {
+		StageTimer.Sink previous = StageTimer.setSink(this::record);
+		try {
+			System.out.println(String.format(Locale.ROOT, "%d files of %d-%d words, vocabulary %d", files, minWords,
+					maxWords, generator.vocabularySize()));
+
+			long[] latencies = new long[files];
+			long characters = 0;
+			long started = System.nanoTime();
+			for (int i = 0; i < files; i++) {
+				// log-uniform sizes: many small files, a few large ones
+				int words = (int) Math.round(minWords * Math.pow((double) maxWords / minWords, random.nextDouble()));
+				String content = generator.document(words);
+				characters += content.length();
+				long begin = System.nanoTime();
+				if (!facade.createFile("bench-" + i + ".txt", content)) {
+					System.out.println("create failed for file " + i);
+				}
+				latencies[i] = System.nanoTime() - begin;
+			}
+			report("createFile", latencies, System.nanoTime() - started);
+			System.out.println(String.format(Locale.ROOT, "  %.1f KB/s of text", characters / 1024.0
+					/ ((System.nanoTime() - started) / 1e9)));
+			reportStages();
+
+			List<FileSummary> existing = facade.listFiles(FileSortOrder.DATE_CREATED, false, null, files);
+			if (!existing.isEmpty() && updates > 0) {
+				latencies = new long[updates];
+				started = System.nanoTime();
+				for (int i = 0; i < updates; i++) {
+					FileSummary file = existing.get(random.nextInt(existing.size()));
+					String page = generator.document(15);
+					long begin = System.nanoTime();
+					facade.updateFile(file.getFileId(), file.getFileName(), 1, page);
+					latencies[i] = System.nanoTime() - begin;
+				}
+				report("updateFile", latencies, System.nanoTime() - started);
+				reportStages();
+			}
+
+			if (searches > 0) {
+				latencies = new long[searches];
+				started = System.nanoTime();
+				for (int i = 0; i < searches; i++) {
+					String keyword = generator.word();
+					while (keyword.length() < 3) {
+						keyword = generator.word();
+					}
+					long begin = System.nanoTime();
+					facade.searchKeyword(keyword);
+					latencies[i] = System.nanoTime() - begin;
+				}
+				report("searchKeyword", latencies, System.nanoTime() - started);
+			}
+		} finally {
+			StageTimer.setSink(previous);
+		}
+	}
+
+	private void record(String stage, long nanos) {
+		AtomicLong total;
+		synchronized (stages) {
+			total = stages.computeIfAbsent(stage, name -> new AtomicLong());
+		}
+		total.addAndGet(nanos);
+	}
+
+	private static void report(String operation, long[] latencies, long elapsed) {
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		System.out.println(String.format(Locale.ROOT,
+				"%-14s %6d ops %9.2f ops/s  p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  max %8.2f ms", operation,
+				sorted.length, sorted.length / (elapsed / 1e9), percentile(sorted, 50), percentile(sorted, 90),
+				percentile(sorted, 99), sorted[sorted.length - 1] / 1e6));
+	}
+
+	private static double percentile(long[] sorted, int percent) {
+		int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+	}
+
+	/** Prints the share of write time spent in each stage since the last call. */
+	private void reportStages() {
+		List<Map.Entry<String, AtomicLong>> entries;
+		synchronized (stages) {
+			entries = new ArrayList<>(stages.entrySet());
+		}
+		long total = 0;
+		for (Map.Entry<String, AtomicLong> entry : entries) {
+			total += entry.getValue().get();
+		}
+		entries.sort((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()));
+		for (Map.Entry<String, AtomicLong> entry : entries) {
+			long nanos = entry.getValue().getAndSet(0);
+			if (nanos == 0) {
+				continue;
+			}
+			System.out.println(String.format(Locale.ROOT, "  %-10s %10.1f ms %6.1f%%", entry.getKey(), nanos / 1e6,
+					total == 0 ? 0 : 100.0 * nanos / total));
+		}
+	}
+}
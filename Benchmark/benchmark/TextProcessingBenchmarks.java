@@ -0,0 +1,181 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dal.HashCalculator;
+import dal.Lemmatization;
+import dal.PKLCalculator;
+import dal.PMICalculator;
+import dal.POSTagger;
+import dal.PaginationDAO;
+import dal.PreProcessText;
+import dal.RootExtraction;
+import dal.Stemmation;
+import dal.TFIDFCalculator;
+import dal.Transliteration;
+import dal.WordSegmentation;
+
+/**
+ * JMH benchmarks for the text-processing hot paths over synthetic Arabic
+ * documents of {@link #size} words. Run them with Gradle, which forks a JVM per
+ * benchmark and reports allocation per operation through {@code -prof gc}:
+ *
+ * <pre>
+ * gradle jmh
+ * gradle jmh -PjmhIncludes=Transliteration
+ * gradle jmhJar && java -jar build/libs/*-jmh.jar -p size=1000 -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextProcessingBenchmarks {
+
+	private static final long SEED = 20240101L;
+	private static final int CORPUS_DOCUMENTS = 50;
+
+	@Param({ "100", "1000", "10000" })
+	public int size;
+
+	private String document;
+	private TFIDFCalculator tfidf;
+	private List<Callable<Object>> analyses;
+	private ExecutorService analysis;
+
+	@Setup
+	public void setUp() {
+		ArabicCorpusGenerator generator = new ArabicCorpusGenerator(SEED + size);
+		document = generator.document(size);
+		tfidf = new TFIDFCalculator();
+		for (String text : generator.corpus(CORPUS_DOCUMENTS, size)) {
+			tfidf.addDocumentToCorpus(text);
+		}
+		String text = document;
+		analyses = Arrays.asList(() -> POSTagger.extractPOS(text), () -> Lemmatization.lemmatizeWords(text),
+				() -> RootExtraction.extractRoots(text), () -> Stemmation.stemWords(text),
+				() -> WordSegmentation.extractSegments(text));
+		analysis = Executors.newFixedThreadPool(analyses.size(), runnable -> {
+			Thread thread = new Thread(runnable, "benchmark-analysis");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@TearDown
+	public void tearDown() {
+		analysis.shutdownNow();
+	}
+
+	@Benchmark
+	public Object preprocessText() {
+		return PreProcessText.preprocessText(document);
+	}
+
+	@Benchmark
+	public Object normalize() {
+		return PreProcessText.normalize(document);
+	}
+
+	@Benchmark
+	public Object transliterate() {
+		return Transliteration.transliterate(document);
+	}
+
+	@Benchmark
+	public Object paginate() {
+		return PaginationDAO.paginate(document);
+	}
+
+	@Benchmark
+	public Object calculateHash() throws Exception {
+		return HashCalculator.calculateHash(document);
+	}
+
+	@Benchmark
+	public Object addDocumentToCorpus() {
+		TFIDFCalculator calculator = new TFIDFCalculator();
+		calculator.addDocumentToCorpus(document);
+		return calculator;
+	}
+
+	@Benchmark
+	public double calculateDocumentTfIdf() {
+		return tfidf.calculateDocumentTfIdf(document);
+	}
+
+	@Benchmark
+	public Object calculatePMIForAllBigrams() {
+		return new PMICalculator(document).calculatePMIForAllBigrams();
+	}
+
+	@Benchmark
+	public Object calculatePKLForAllWords() {
+		return new PKLCalculator(document).calculatePKLForAllWords();
+	}
+
+	// the AlKhalil wrappers are slow; larger sizes take a while per operation
+
+	@Benchmark
+	public Object extractPOS() {
+		return POSTagger.extractPOS(document);
+	}
+
+	@Benchmark
+	public Object lemmatizeWords() {
+		return Lemmatization.lemmatizeWords(document);
+	}
+
+	@Benchmark
+	public Object extractRoots() {
+		return RootExtraction.extractRoots(document);
+	}
+
+	@Benchmark
+	public Object stemWords() {
+		return Stemmation.stemWords(document);
+	}
+
+	@Benchmark
+	public Object extractSegments() {
+		return WordSegmentation.extractSegments(document);
+	}
+
+	/** The five analyzers one after another. */
+	@Benchmark
+	public void analyzersSequential(Blackhole blackhole) throws Exception {
+		for (Callable<Object> call : analyses) {
+			blackhole.consume(call.call());
+		}
+	}
+
+	/** The five analyzers at once, as the editor's analysis threads request them. */
+	@Benchmark
+	public void analyzersParallel(Blackhole blackhole) throws Exception {
+		for (Future<Object> result : analysis.invokeAll(analyses)) {
+			blackhole.consume(result.get());
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.AnalysisKey;
+import dal.HashCalculator;
+
+class AnalysisKeyTest {
+
+    @Test
+    @DisplayName("Short words should only be trimmed")
+    void testShortWordIsTrimmed() {
+        assertEquals("كتاب", AnalysisKey.key("  كتاب "));
+        assertNull(AnalysisKey.key(null));
+    }
+
+    @Test
+    @DisplayName("Long words should be cut to the column length without splitting a character")
+    void testLongWordIsBounded() {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < AnalysisKey.MAX_LENGTH; i++) {
+            word.append("𝐀");
+        }
+        word.append("tail");
+        String key = AnalysisKey.key(word.toString());
+        assertEquals(AnalysisKey.MAX_LENGTH, key.codePointCount(0, key.length()));
+        assertFalse(Character.isHighSurrogate(key.charAt(key.length() - 1)));
+    }
+
+    @Test
+    @DisplayName("Hash should cover the whole word so truncated words stay distinct")
+    void testHashCoversWholeWord() throws Exception {
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < AnalysisKey.MAX_LENGTH; i++) {
+            prefix.append('ب');
+        }
+        String first = prefix + "ا";
+        String second = prefix + "ت";
+        assertEquals(AnalysisKey.key(first), AnalysisKey.key(second));
+        assertNotEquals(AnalysisKey.hash(first), AnalysisKey.hash(second));
+        assertEquals(HashCalculator.calculateHash("قلم"), AnalysisKey.hash(" قلم "));
+    }
+}
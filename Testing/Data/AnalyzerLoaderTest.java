@@ -0,0 +1,27 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.AnalyzerLoader;
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+
+class AnalyzerLoaderTest {
+
+    @Test
+    @DisplayName("Every caller should share a single analyzer load")
+    void testSingleLoad() {
+        CompletableFuture<AlKhalil2Analyzer> first = AnalyzerLoader.warmUp();
+        assertSame(first, AnalyzerLoader.warmUp());
+        assertSame(first, AnalyzerLoader.ready());
+
+        AlKhalil2Analyzer analyzer = AnalyzerLoader.get();
+        assertNotNull(analyzer);
+        assertTrue(AnalyzerLoader.ready().isDone());
+        assertSame(analyzer, AnalyzerLoader.get());
+    }
+}
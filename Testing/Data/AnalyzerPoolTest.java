@@ -0,0 +1,32 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.AnalyzerPool;
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+
+class AnalyzerPoolTest {
+
+    @Test
+    @DisplayName("Borrowed analyzers should be confined to one caller and reused after release")
+    void testBorrowAndRelease() {
+        AlKhalil2Analyzer first = AnalyzerPool.borrow();
+        assertNotNull(first);
+        assertTrue(AnalyzerPool.size() >= 1);
+        if (AnalyzerPool.size() > 1) {
+            AlKhalil2Analyzer second = AnalyzerPool.borrow();
+            assertNotNull(second);
+            assertNotSame(first, second);
+            AnalyzerPool.release(second);
+        }
+        AnalyzerPool.release(first);
+
+        AlKhalil2Analyzer again = AnalyzerPool.borrow();
+        assertNotNull(again);
+        AnalyzerPool.release(again);
+        AnalyzerPool.release(null);
+    }
+}
@@ -0,0 +1,49 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.ArabicNormalizer;
+import dal.PreProcessText;
+
+class ArabicNormalizerTest {
+
+    @Test
+    @DisplayName("Harakat and tatweel should be removed")
+    void testRemovesHarakatAndTatweel() {
+        ArabicNormalizer normalizer = new ArabicNormalizer();
+
+        assertEquals("بسم الله الرحمن", normalizer.normalize("بِسْمِ اللَّهِ الرَّحْمَـٰنِ").toString());
+    }
+
+    @Test
+    @DisplayName("Letter variants should only be folded when requested")
+    void testLetterNormalizationIsOptional() {
+        String text = "أحمد إلى مدرسة آمنة";
+
+        assertEquals(text, new ArabicNormalizer().normalize(text).toString());
+        assertEquals("احمد الي مدرسه امنه", new ArabicNormalizer(true, false).normalize(text).toString());
+    }
+
+    @Test
+    @DisplayName("Preprocessing should keep only Arabic letters and whitespace")
+    void testPreprocessTextDropsNonArabic() {
+        assertEquals("كتاب  قلم", PreProcessText.preprocessText("كِتَابٌ abc قَلَمٌ!"));
+        assertEquals(" ", PreProcessText.preprocessText("### $$$"));
+    }
+
+    @Test
+    @DisplayName("Normalizer should reuse its buffer across calls")
+    void testBufferIsReused() {
+        ArabicNormalizer normalizer = new ArabicNormalizer();
+        char[] buffer = normalizer.normalize("مَرْحَبًا").buffer();
+
+        CharSequence view = normalizer.normalize("كَتَبَ");
+        assertSame(buffer, normalizer.buffer());
+        assertEquals(3, view.length());
+        assertEquals('ت', view.charAt(1));
+        assertEquals("تب", view.subSequence(1, 3).toString());
+    }
+}
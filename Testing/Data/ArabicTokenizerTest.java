@@ -0,0 +1,64 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import util.ArabicTokenizer;
+
+
+class ArabicTokenizerTest {
+
+    @Test
+    @DisplayName("Whitespace mode should match split on whitespace")
+    void testWhitespaceModeMatchesSplit() {
+        String text = "  مرحبا بك\tفي  برنامج\nتحرير، النصوص  ";
+        List<String> tokens = ArabicTokenizer.tokenize(text, false);
+
+        assertEquals(Arrays.asList(text.trim().split("\\s+")), tokens);
+        assertEquals(6, ArabicTokenizer.countTokens(text, false));
+    }
+
+    @Test
+    @DisplayName("Arabic mode should drop Latin words and punctuation")
+    void testArabicModeFiltersNonArabic() {
+        List<String> tokens = ArabicTokenizer.tokenize("hello مرحبا، world بك! 123 ١٢٣");
+
+        assertEquals(Arrays.asList("مرحبا", "بك", "١٢٣"), tokens);
+    }
+
+    @Test
+    @DisplayName("Arabic mode should keep harakat inside the word")
+    void testArabicModeKeepsHarakat() {
+        List<String> tokens = ArabicTokenizer.tokenize("بِسْمِ اللَّهِ");
+
+        assertEquals(Arrays.asList("بِسْمِ", "اللَّهِ"), tokens);
+    }
+
+    @Test
+    @DisplayName("Spans should point into the source char array")
+    void testSpansOverCharArray() {
+        char[] buffer = "xx كتاب قلم xx".toCharArray();
+        ArabicTokenizer tokenizer = ArabicTokenizer.arabic().reset(buffer, 2, buffer.length - 4);
+
+        assertTrue(tokenizer.next());
+        assertEquals(3, tokenizer.offset());
+        assertEquals(4, tokenizer.length());
+        assertTrue(tokenizer.tokenEquals("كتاب", false));
+        assertTrue(tokenizer.next());
+        assertEquals("قلم", tokenizer.token());
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    @DisplayName("Empty and blank text should produce no tokens")
+    void testEmptyText() {
+        assertEquals(0, ArabicTokenizer.countTokens("", true));
+        assertEquals(0, ArabicTokenizer.countTokens("   \n ", false));
+        assertTrue(ArabicTokenizer.tokenize("abc ###").isEmpty());
+    }
+}
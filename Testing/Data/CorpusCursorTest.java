@@ -0,0 +1,89 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.CorpusCursor;
+
+class CorpusCursorTest {
+
+    private static final Object[][] ROWS = { { 1, 1, "كتاب " }, { 1, 2, "جديد" }, { 2, 1, "قلم" }, { 5, 1, "بيت" } };
+
+    private int fetchSize;
+    private boolean closed;
+
+    @Test
+    @DisplayName("Pages should be joined into one element per file in order")
+    void testStreamsFilesInOrder() throws Exception {
+        try (CorpusCursor cursor = new CorpusCursor(connection(), 16, (fileId, pageNumber, stored) -> stored)) {
+            List<String> files = cursor.stream().collect(Collectors.toList());
+
+            assertEquals(Arrays.asList("كتاب جديد", "قلم", "بيت"), files);
+            assertEquals(5, cursor.fileId());
+        }
+        assertEquals(16, fetchSize);
+        assertTrue(closed);
+    }
+
+    @Test
+    @DisplayName("Visitor should receive file ids and decoded content")
+    void testVisitorDecodesPages() throws Exception {
+        List<String> visited = new ArrayList<>();
+        new CorpusCursor(connection(), 16, (fileId, pageNumber, stored) -> stored.trim() + pageNumber)
+                .forEachFile((fileId, content) -> visited.add(fileId + ":" + content));
+
+        assertEquals(Arrays.asList("1:كتاب1جديد2", "2:قلم1", "5:بيت1"), visited);
+        assertTrue(closed);
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> method.getName().equals("prepareStatement") ? statement() : null);
+    }
+
+    private PreparedStatement statement() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "setFetchSize":
+                        fetchSize = (Integer) args[0];
+                        return null;
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "executeQuery":
+                        return resultSet();
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private ResultSet resultSet() {
+        int[] row = { -1 };
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "next":
+                        return ++row[0] < ROWS.length;
+                    case "getInt":
+                        return ROWS[row[0]]["fileId".equals(args[0]) ? 0 : 1];
+                    case "getString":
+                        return ROWS[row[0]][2];
+                    default:
+                        return null;
+                    }
+                });
+    }
+}
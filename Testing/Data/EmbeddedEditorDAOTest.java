@@ -0,0 +1,128 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.EmbeddedEditorDAO;
+import dto.Documents;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.SearchResult;
+
+class EmbeddedEditorDAOTest {
+
+    @Test
+    @DisplayName("Files should be created, updated and deleted in memory")
+    void testCreateUpdateDelete() {
+        EmbeddedEditorDAO dao = new EmbeddedEditorDAO();
+
+        assertTrue(dao.createFileInDB("first", "كتاب جديد"));
+        List<Documents> documents = dao.getFilesFromDB();
+        assertEquals(1, documents.size());
+        assertEquals("كتاب جديد", documents.get(0).getPages().get(0).getPageContent());
+
+        int fileId = documents.get(0).getId();
+        assertTrue(dao.updateFileInDB(fileId, "renamed", 1, "قلم احمر"));
+        assertFalse(dao.updateFileInDB(fileId, "renamed", 99, "قلم"));
+        assertEquals("renamed", dao.getFilesFromDB().get(0).getName());
+
+        List<SearchResult> results = dao.searchRankedInDB("قلم", 0, 10);
+        assertEquals(1, results.size());
+        assertTrue(dao.searchRankedInDB("كتاب", 0, 10).isEmpty());
+
+        assertTrue(dao.deleteFileInDB(fileId));
+        assertFalse(dao.deleteFileInDB(fileId));
+        assertTrue(dao.getFilesFromDB().isEmpty());
+    }
+
+    @Test
+    @DisplayName("File listing should page by name after the last row in both directions")
+    void testKeysetListing() {
+        EmbeddedEditorDAO dao = new EmbeddedEditorDAO();
+        for (String name : new String[] { "delta", "alpha", "charlie", "bravo", "echo" }) {
+            assertTrue(dao.createFileInDB(name, "كتاب " + name));
+        }
+        assertEquals(5, dao.countFilesInDB());
+
+        List<FileSummary> first = dao.listFilesInDB(FileSortOrder.NAME, false, null, 2);
+        assertEquals("alpha", first.get(0).getFileName());
+        assertEquals("bravo", first.get(1).getFileName());
+        List<FileSummary> second = dao.listFilesInDB(FileSortOrder.NAME, false, first.get(1), 2);
+        assertEquals("charlie", second.get(0).getFileName());
+        assertEquals("delta", second.get(1).getFileName());
+        List<FileSummary> last = dao.listFilesInDB(FileSortOrder.NAME, false, second.get(1), 2);
+        assertEquals(1, last.size());
+        assertEquals("echo", last.get(0).getFileName());
+
+        List<FileSummary> descending = dao.listFilesInDB(FileSortOrder.NAME, true, last.get(0), 10);
+        assertEquals(4, descending.size());
+        assertEquals("delta", descending.get(0).getFileName());
+    }
+
+    @Test
+    @DisplayName("Journal should restore the store and drop a torn tail")
+    void testJournalReplay() throws IOException {
+        File journal = File.createTempFile("realeditor", ".journal");
+        journal.delete();
+        try {
+            EmbeddedEditorDAO dao = new EmbeddedEditorDAO(journal);
+            assertTrue(dao.createFileInDB("first", "كتاب جديد"));
+            assertTrue(dao.createFileInDB("second", "قلم احمر"));
+            int pageId = dao.getFilesFromDB().get(0).getPages().get(0).getPageId();
+            String transliteration = dao.transliterateInDB(pageId, "كتاب جديد");
+            assertTrue(dao.deleteFileInDB(dao.getFilesFromDB().get(1).getId()));
+
+            try (FileOutputStream out = new FileOutputStream(journal, true)) {
+                out.write(new byte[] { 1, 0, 0, 0 });
+            }
+
+            EmbeddedEditorDAO reopened = new EmbeddedEditorDAO(journal);
+            List<Documents> documents = reopened.getFilesFromDB();
+            assertEquals(1, documents.size());
+            assertEquals("first", documents.get(0).getName());
+            assertEquals(transliteration, reopened.transliterateInDB(pageId, "كتاب جديد"));
+            assertTrue(reopened.createFileInDB("third", "بيت"));
+            assertTrue(reopened.getFilesFromDB().get(1).getId() > documents.get(0).getId());
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    @DisplayName("Ids of deleted files should not be reused after the journal is compacted")
+    void testCompactionKeepsNextIds() throws IOException {
+        File journal = File.createTempFile("realeditor", ".journal");
+        journal.delete();
+        try {
+            EmbeddedEditorDAO dao = new EmbeddedEditorDAO(journal);
+            assertTrue(dao.createFileInDB("first", "كتاب جديد"));
+            assertTrue(dao.createFileInDB("second", "قلم احمر"));
+            Documents deleted = dao.getFilesFromDB().get(1);
+            assertTrue(dao.deleteFileInDB(deleted.getId()));
+            // enough dead records to compact on the next open
+            int pageId = dao.getFilesFromDB().get(0).getPages().get(0).getPageId();
+            for (int i = 0; i < 110; i++) {
+                assertNotNull(dao.transliterateInDB(pageId, i % 2 == 0 ? "كتاب" : "جديد"));
+            }
+
+            long length = journal.length();
+            new EmbeddedEditorDAO(journal);
+            assertTrue(journal.length() < length);
+
+            EmbeddedEditorDAO compacted = new EmbeddedEditorDAO(journal);
+            assertTrue(compacted.createFileInDB("third", "بيت"));
+            Documents third = compacted.getFilesFromDB().get(1);
+            assertTrue(third.getId() > deleted.getId());
+            assertTrue(third.getPages().get(0).getPageId() > deleted.getPages().get(0).getPageId());
+        } finally {
+            journal.delete();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import util.FlightEvents;
+
+
+class FlightEventsTest {
+
+    @Test
+    @DisplayName("Events should be safe to emit while no recording is running")
+    void testEmitWithoutRecording() {
+        assertFalse(FlightEvents.PAGE_ANALYSIS.isEnabled());
+        FlightEvents.PAGE_ANALYSIS.begin().set("fileId", 1).set("pageNumber", 2).set("tokens", 3)
+                .set("characters", 4).commit();
+        assertThrows(IllegalArgumentException.class, () -> FlightEvents.AUTOSAVE.begin().set("rows", 1));
+    }
+
+    @Test
+    @DisplayName("Events should be enabled and committed while a recording is running")
+    void testEmitWhileRecording() throws Exception {
+        Class<?> recordingClass;
+        try {
+            recordingClass = Class.forName("jdk.jfr.Recording");
+        } catch (ClassNotFoundException e) {
+            return; // runtime without Flight Recorder
+        }
+        Object recording = recordingClass.getConstructor().newInstance();
+        recordingClass.getMethod("enable", String.class).invoke(recording, "realeditor.BatchFlush");
+        recordingClass.getMethod("start").invoke(recording);
+        try {
+            assertTrue(FlightEvents.BATCH_FLUSH.isEnabled());
+            FlightEvents.BATCH_FLUSH.begin().set("table", "pos").set("rows", 10).set("bytes", 512).commit();
+            // ended first, with fields set after the timed work
+            FlightEvents.BATCH_FLUSH.begin().end().set("table", "pos").set("rows", 10).commit();
+        } finally {
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("close").invoke(recording);
+        }
+        assertFalse(FlightEvents.BATCH_FLUSH.isEnabled());
+    }
+}
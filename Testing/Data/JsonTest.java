@@ -0,0 +1,67 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dto.Json;
+
+class JsonTest {
+
+    @Test
+    @DisplayName("Written values should parse back to the same maps, lists and scalars")
+    void testRoundTrip() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "كتب \"الطالب\"\n\tالدرس\\");
+        value.put("count", 3);
+        value.put("score", 0.25);
+        value.put("ready", true);
+        value.put("missing", null);
+        value.put("words", Arrays.asList("ذهب", "قرأ"));
+
+        Object parsed = Json.parse(Json.write(value));
+        Map<?, ?> map = (Map<?, ?>) parsed;
+        assertEquals(value.get("text"), map.get("text"));
+        assertEquals(3L, map.get("count"));
+        assertEquals(0.25, map.get("score"));
+        assertEquals(Boolean.TRUE, map.get("ready"));
+        assertTrue(map.containsKey("missing"));
+        assertNull(map.get("missing"));
+        assertEquals(value.get("words"), map.get("words"));
+        assertEquals(Arrays.asList("text", "count", "score", "ready", "missing", "words"),
+                Arrays.asList(map.keySet().toArray()));
+    }
+
+    @Test
+    @DisplayName("Escapes, exponents and NaN should follow the JSON rules")
+    void testEscapesAndNumbers() {
+        assertEquals("\u0001A", Json.parse("\"\\u0001\\u0041\""));
+        assertEquals("\"\\u0001\"", Json.write("\u0001"));
+        assertEquals(-1.5e3, Json.parse(" -1.5E3 "));
+        assertEquals("[null,null]", Json.write(Arrays.asList(Double.NaN, Double.POSITIVE_INFINITY)));
+        assertEquals(Arrays.asList(), Json.parse("[ ]"));
+        assertEquals(new LinkedHashMap<>(), Json.parse("{}"));
+        assertEquals(Arrays.asList(1L, Arrays.asList(2L)), (List<?>) Json.parse("[1,[2]]"));
+    }
+
+    @Test
+    @DisplayName("Malformed documents should be rejected")
+    void testMalformed() {
+        for (String text : new String[] { "", "{", "[1,]", "{\"a\" 1}", "\"open", "tru", "1 2", "{1:2}", "-" }) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(text), text);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Json.write(new Object()));
+
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            deep.append('[');
+        }
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(deep.toString()));
+    }
+}
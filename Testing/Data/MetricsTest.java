@@ -0,0 +1,49 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import util.Metrics;
+import util.StageTimer;
+
+class MetricsTest {
+
+    @Test
+    @DisplayName("Histogram percentiles should be within a bucket of the true value")
+    void testHistogramPercentiles() {
+        Metrics.Histogram histogram = Metrics.histogram("test.histogram");
+        histogram.reset();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.update(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(500, histogram.get50thPercentile(), 500 * 0.125);
+        assertEquals(990, histogram.get99thPercentile(), 990 * 0.125);
+        assertTrue(histogram.get99thPercentile() <= histogram.getMax());
+    }
+
+    @Test
+    @DisplayName("Metrics should be published as MBeans and fed by stage timings")
+    void testJmxAndStages() throws Exception {
+        Metrics.Counter counter = Metrics.counter("test.counter");
+        counter.reset();
+        counter.add(3);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(3L, server.getAttribute(new ObjectName("realeditor:type=Counter,name=test.counter"), "Count"));
+
+        long started = StageTimer.start();
+        StageTimer.lap("test", started);
+        assertEquals(1, Metrics.timer("dao.stage.test").getCount());
+        assertTrue(Metrics.snapshot().contains("dao.stage.test count=1"));
+    }
+}
@@ -0,0 +1,120 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.PageStore;
+
+class PageStoreTest {
+
+    @Test
+    @DisplayName("Latest version of a page should be read back")
+    void testWriteAndOverwrite() throws IOException {
+        File directory = Files.createTempDirectory("pages").toFile();
+        try (PageStore store = new PageStore(directory)) {
+            store.write(1, 1, "كتاب جديد");
+            store.write(1, 2, "قلم");
+            store.write(1, 1, "كتاب قديم");
+
+            assertEquals("كتاب قديم", store.read(1, 1));
+            assertEquals("كتاب قديمقلم", store.readFile(1));
+            assertTrue(store.readBytes(1, 2).isReadOnly());
+            assertNull(store.read(2, 1));
+
+            store.deletePage(1, 2);
+            assertNull(store.read(1, 2));
+            assertEquals("كتاب قديم", store.readFile(1));
+
+            store.deleteFile(1);
+            assertNull(store.read(1, 1));
+            assertNull(store.readFile(1));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Pages should read back while their segment grows and after it is sealed")
+    void testReadsAcrossGrowingAndSealedSegments() throws IOException {
+        File directory = Files.createTempDirectory("pages").toFile();
+        try (PageStore store = new PageStore(directory, 256)) {
+            for (int page = 1; page <= 20; page++) {
+                store.write(1, page, "صفحة " + page);
+                store.sync();
+                assertEquals("صفحة 1", store.read(1, 1));
+                assertEquals("صفحة " + page, store.read(1, page));
+            }
+            assertTrue(store.readBytes(1, 20).isReadOnly());
+        }
+        try (PageStore store = new PageStore(directory, 256)) {
+            assertEquals("صفحة 20", store.read(1, 20));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Reopening should recover pages and drop a torn tail")
+    void testRecovery() throws IOException {
+        File directory = Files.createTempDirectory("pages").toFile();
+        try {
+            try (PageStore store = new PageStore(directory)) {
+                store.write(1, 1, "بيت");
+                store.write(2, 1, "شجرة");
+                store.deleteFile(2);
+            }
+            File segment = directory.listFiles()[0];
+            try (FileOutputStream out = new FileOutputStream(segment, true)) {
+                out.write(new byte[] { 0, 0, 0, 3, 0, 0, 0, 1, 0, 0, 0, 9, 1, 2 });
+            }
+            try (PageStore store = new PageStore(directory)) {
+                assertEquals("بيت", store.read(1, 1));
+                assertNull(store.read(2, 1));
+                assertNull(store.read(3, 1));
+                store.write(3, 1, "باب");
+                assertEquals("باب", store.read(3, 1));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction should keep only live pages and survive a restart")
+    void testCompaction() throws IOException {
+        File directory = Files.createTempDirectory("pages").toFile();
+        try {
+            try (PageStore store = new PageStore(directory, 64)) {
+                for (int version = 0; version < 20; version++) {
+                    store.write(1, 1, "نسخة " + version);
+                    store.write(2, 1, "صفحة " + version);
+                }
+                store.deleteFile(2);
+                store.compact();
+                assertEquals("نسخة 19", store.read(1, 1));
+                assertNull(store.read(2, 1));
+                assertEquals(1, directory.listFiles().length);
+            }
+            try (PageStore store = new PageStore(directory)) {
+                assertEquals("نسخة 19", store.read(1, 1));
+                assertNull(store.read(2, 1));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void delete(File directory) {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,104 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.SlowOperationLog;
+import util.StageTimer;
+
+class SlowOperationLogTest {
+
+    private static final String LOGGER = SlowOperationLog.class.getName();
+
+    private final List<String> logged = new ArrayList<>();
+    private LoggerConfig production;
+
+    // entries go to a list instead of the appenders in log4j2.xml, which write logs/slow-operations.log
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        Configuration config = context.getConfiguration();
+        production = config.getLoggers().get(LOGGER);
+        AbstractAppender appender = new AbstractAppender("SlowOperationLogTest", null, null, true,
+                Property.EMPTY_ARRAY) {
+            @Override
+            public void append(LogEvent event) {
+                logged.add(event.getMessage().getFormattedMessage());
+            }
+        };
+        appender.start();
+        LoggerConfig captured = new LoggerConfig(LOGGER, Level.WARN, false);
+        captured.addAppender(appender, null, null);
+        config.removeLogger(LOGGER);
+        config.addLogger(LOGGER, captured);
+        context.updateLoggers();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SlowOperationLog.configure(new Properties());
+        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        Configuration config = context.getConfiguration();
+        config.removeLogger(LOGGER);
+        if (production != null) {
+            config.addLogger(LOGGER, production);
+        }
+        context.updateLoggers();
+    }
+
+    @Test
+    @DisplayName("Per-operation thresholds should override the default")
+    void testThresholds() {
+        Properties prop = new Properties();
+        prop.setProperty("slowlog.threshold", "250");
+        prop.setProperty("slowlog.threshold.analyzer.pos", "20");
+        SlowOperationLog.configure(prop);
+        assertEquals(250, SlowOperationLog.thresholdMillis("createFileInDB"));
+        assertEquals(20, SlowOperationLog.thresholdMillis("analyzer.pos"));
+
+        SlowOperationLog.configure(new Properties());
+        assertEquals(1000, SlowOperationLog.thresholdMillis("createFileInDB"));
+    }
+
+    @Test
+    @DisplayName("Only operations above their threshold should be logged")
+    void testSlowOperations() {
+        Properties prop = new Properties();
+        prop.setProperty("slowlog.threshold", "0");
+        prop.setProperty("slowlog.threshold.analyzer.stem", "60000");
+        SlowOperationLog.configure(prop);
+
+        SlowOperationLog.Operation outer = SlowOperationLog.begin("updateFileInDB").size("chars", 42);
+        long stage = StageTimer.start();
+        StageTimer.lap("pos", stage);
+        assertFalse(SlowOperationLog.begin("analyzer.stem").size("tokens", 7).end());
+        SlowOperationLog.size("tokens", 7);
+        assertTrue(outer.end());
+
+        // the thread is left without an open operation
+        SlowOperationLog.size("ignored", 1);
+        assertTrue(SlowOperationLog.begin("deleteFileInDB").end());
+
+        assertEquals(2, logged.size());
+        assertTrue(logged.get(0).startsWith("updateFileInDB took "));
+        assertTrue(logged.get(0).contains("(chars=42, tokens=7)"));
+        assertTrue(logged.get(0).contains(" stages: pos="));
+        assertTrue(logged.get(1).startsWith("deleteFileInDB took "));
+    }
+}
@@ -0,0 +1,99 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.StatementCache;
+
+class StatementCacheTest {
+
+    private final AtomicInteger prepared = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    @DisplayName("Statements should be reused per SQL and evicted beyond capacity")
+    void testReuseAndEviction() throws Exception {
+        StatementCache cache = new StatementCache(connection(), 2);
+
+        PreparedStatement first = cache.prepare("SELECT 1");
+        assertSame(first, cache.prepare("SELECT 1"));
+        assertNotSame(first, cache.prepare("SELECT 1", PreparedStatement.RETURN_GENERATED_KEYS));
+        cache.prepare("SELECT 2");
+
+        assertEquals(3, prepared.get());
+        assertEquals(2, cache.cachedStatements());
+        assertEquals(1, closed.get());
+
+        cache.close();
+        assertEquals(3, closed.get());
+    }
+
+    @Test
+    @DisplayName("Result sets left open should be reported as leaks")
+    void testLeakDetection() throws Exception {
+        for (boolean traced : new boolean[] { false, true }) {
+            StatementCache cache = new StatementCache(connection(), 4, traced);
+            PreparedStatement stmt = cache.prepare("SELECT 1");
+
+            try (ResultSet rs = cache.executeQuery(stmt)) {
+                assertFalse(rs.isClosed());
+                assertEquals(1, cache.openResultSets());
+            }
+            assertEquals(0, cache.openResultSets());
+
+            cache.executeQuery(stmt);
+            assertEquals(1, cache.reportLeaks());
+        }
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        prepared.incrementAndGet();
+                        return statement();
+                    }
+                    return null;
+                });
+    }
+
+    private PreparedStatement statement() {
+        boolean[] isClosed = new boolean[1];
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "close":
+                        isClosed[0] = true;
+                        closed.incrementAndGet();
+                        return null;
+                    case "isClosed":
+                        return isClosed[0];
+                    case "executeQuery":
+                        return resultSet();
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    private ResultSet resultSet() {
+        boolean[] isClosed = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        isClosed[0] = true;
+                    } else if (method.getName().equals("isClosed")) {
+                        return isClosed[0];
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,53 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.TextCodec;
+
+class TextCodecTest {
+
+    private static final String TEXT = "قال الرجل في الكتاب إن العلم نور وإن الجهل ظلام، وقال إن الذي يطلب العلم "
+            + "يجد في الكتاب ما لا يجده في غيره من الكتب التي كانت في هذا الزمان.";
+
+    @Test
+    @DisplayName("Deflate should round trip and shrink Arabic text")
+    void testRoundTrip() {
+        StringBuilder corpus = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            corpus.append(TEXT).append(' ');
+        }
+        String text = corpus.toString();
+        String encoded = TextCodec.encode(text, TextCodec.DEFLATE);
+
+        assertTrue(TextCodec.isEncoded(encoded));
+        assertTrue(encoded.length() < text.getBytes(StandardCharsets.UTF_8).length / 4);
+        assertEquals(text, TextCodec.decode(encoded));
+    }
+
+    @Test
+    @DisplayName("Plain rows and short text should pass through unchanged")
+    void testPlainTextPassesThrough() {
+        assertEquals(TEXT, TextCodec.decode(TEXT));
+        assertEquals(TEXT, TextCodec.encode(TEXT, TextCodec.NONE));
+        assertEquals("كتاب", TextCodec.encode("كتاب", TextCodec.DEFLATE));
+        assertNull(TextCodec.decode(null));
+    }
+
+    @Test
+    @DisplayName("Plain text starting with the codec marker should round trip")
+    void testLeadingMarkerRoundTrips() {
+        String marked = "\u0001Dكتاب";
+        String encodedNone = TextCodec.encode(marked, TextCodec.NONE);
+        String encodedShort = TextCodec.encode(marked, TextCodec.DEFLATE);
+
+        assertNotEquals(marked, encodedNone);
+        assertEquals(marked, TextCodec.decode(encodedNone));
+        assertEquals(marked, TextCodec.decode(encodedShort));
+        assertEquals("\u0001", TextCodec.decode(TextCodec.encode("\u0001", TextCodec.NONE)));
+    }
+}
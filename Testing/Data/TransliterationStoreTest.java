@@ -0,0 +1,161 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.EditorDBDAO;
+import dal.EmbeddedEditorDAO;
+import dal.HashCalculator;
+import dal.Transliteration;
+import dto.Pages;
+
+class TransliterationStoreTest {
+
+    private static final String TEXT = "كتب الطالب الدرس";
+
+    // the transliteratedpages row the fake connection returns, null for none
+    private String storedText;
+    private String storedHash;
+    private int selects;
+    private int upserts;
+    private String upsertedHash;
+
+    @Test
+    @DisplayName("Stored transliterations with a matching source hash should be read once, then served from the cache")
+    void testDatabaseHitThenCacheHit() throws Exception {
+        storedText = "from the database";
+        storedHash = HashCalculator.calculateHash(TEXT);
+        EditorDBDAO dao = new EditorDBDAO(connection());
+
+        assertEquals("from the database", dao.transliterateInDB(1, TEXT));
+        assertEquals(1, selects);
+        assertEquals(0, upserts);
+
+        assertEquals("from the database", dao.transliterateInDB(1, TEXT));
+        assertEquals(1, selects);
+        assertEquals(0, upserts);
+    }
+
+    @Test
+    @DisplayName("A stored transliteration of older text should be replaced")
+    void testStaleHashIsTransliteratedAgain() throws Exception {
+        storedText = "older page";
+        storedHash = HashCalculator.calculateHash("older page");
+        EditorDBDAO dao = new EditorDBDAO(connection());
+
+        assertEquals(Transliteration.transliterate(TEXT), dao.transliterateInDB(1, TEXT));
+        assertEquals(1, selects);
+        assertEquals(1, upserts);
+        assertEquals(HashCalculator.calculateHash(TEXT), upsertedHash);
+
+        dao.transliterateInDB(1, TEXT);
+        assertEquals(1, selects);
+    }
+
+    @Test
+    @DisplayName("Pages already queued or transliterated should not be queued again")
+    void testBackgroundRequestsAreNotRepeated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        EmbeddedEditorDAO dao = new EmbeddedEditorDAO() {
+            @Override
+            public String transliterateInDB(int pageId, String arabicText) {
+                calls.incrementAndGet();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.transliterateInDB(pageId, arabicText);
+            }
+        };
+        assertTrue(dao.createFileInDB("lesson", TEXT));
+        List<Pages> pages = dao.getFileFromDB(dao.getFilesFromDB().get(0).getId()).getPages();
+
+        dao.transliteratePagesInBackground(pages);
+        dao.transliteratePagesInBackground(pages);
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (calls.get() < pages.size() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(pages.size(), calls.get());
+
+        // transliterated by now, so nothing is queued
+        dao.transliteratePagesInBackground(pages);
+        Thread.sleep(100);
+        assertEquals(pages.size(), calls.get());
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> method.getName().equals("prepareStatement") ? statement((String) args[0])
+                        : basics(proxy, method.getName(), args));
+    }
+
+    private PreparedStatement statement(String sql) {
+        String[] hash = new String[1];
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "setString":
+                        if ((Integer) args[0] == 3) {
+                            hash[0] = (String) args[1];
+                        }
+                        return null;
+                    case "executeQuery":
+                        selects++;
+                        return resultSet();
+                    case "executeUpdate":
+                        assertTrue(sql.startsWith("INSERT INTO transliteratedpages"));
+                        upserts++;
+                        upsertedHash = hash[0];
+                        return 1;
+                    default:
+                        return basics(proxy, method.getName(), args);
+                    }
+                });
+    }
+
+    private ResultSet resultSet() {
+        boolean[] read = { storedHash == null };
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "next":
+                        boolean next = !read[0];
+                        read[0] = true;
+                        return next;
+                    case "getString":
+                        return args[0].equals("sourceHash") ? storedHash : storedText;
+                    default:
+                        return basics(proxy, method.getName(), args);
+                    }
+                });
+    }
+
+    private static Object basics(Object proxy, String method, Object[] args) {
+        switch (method) {
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        case "equals":
+            return proxy == args[0];
+        case "isClosed":
+            return false;
+        default:
+            return null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import dal.Transliteration;
+
+class TransliterationTest {
+
+    @Test
+    @DisplayName("Each word should be capitalized and separated by one space")
+    void testCapitalizesWords() {
+        assertEquals("Ktab Thlm", Transliteration.transliterate("  كتاب   ثلم "));
+        assertEquals("Kataba", Transliteration.transliterate("كَتَبَ"));
+    }
+
+    @Test
+    @DisplayName("Unmapped characters should be skipped")
+    void testSkipsUnmappedCharacters() {
+        assertEquals("Slam", Transliteration.transliterate("abc سلام ، 123"));
+        assertEquals("", Transliteration.transliterate(""));
+    }
+
+    @Test
+    @DisplayName("Streaming in chunks should match transliterating the whole text")
+    void testStreamingMatchesWholeText() throws Exception {
+        String text = "بسم الله الرحمن الرحيم";
+        StringWriter out = new StringWriter();
+        try (Writer writer = Transliteration.writer(out)) {
+            writer.write(text, 0, 5);
+            writer.write(text, 5, text.length() - 5);
+        }
+        assertEquals(Transliteration.transliterate(text), out.toString());
+
+        StringBuilder fromReader = new StringBuilder();
+        Transliteration.transliterate(new StringReader(text), fromReader);
+        assertEquals(Transliteration.transliterate(text), fromReader.toString());
+    }
+}
@@ -0,0 +1,187 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import bll.EditorBO;
+import bll.FacadeBO;
+import bll.IFacadeBO;
+import bll.RemoteEditorBO;
+import dal.EmbeddedEditorDAO;
+import dal.FacadeDAO;
+import dto.Json;
+import dto.SearchResult;
+import pl.AnalysisServer;
+import util.Metrics;
+
+public class AnalysisServerTest {
+
+    private IFacadeBO facade;
+    private AnalysisServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        facade = new FacadeBO(new EditorBO(new FacadeDAO(new EmbeddedEditorDAO())));
+        server = new AnalysisServer(facade, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 4);
+        server.start();
+        baseUrl = "http://localhost:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private Object[] request(String method, String path, String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                response.write(buffer, 0, read);
+            }
+        }
+        return new Object[] { status, new String(response.toByteArray(), StandardCharsets.UTF_8) };
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testEndpointsMatchLocalCalls() throws Exception {
+        String text = "ذهب الولد إلى المدرسة";
+        Object[] lemmas = request("POST", "/analysis/lemmas", Json.write(Collections.singletonMap("text", text)));
+        assertEquals(200, lemmas[0]);
+        assertEquals(facade.lemmatizeWords(text), Json.parse((String) lemmas[1]));
+
+        Object[] created = request("POST", "/files", "{\"name\":\"lesson\",\"content\":\"كتب الطالب الدرس\"}");
+        assertEquals(200, created[0]);
+        assertEquals(Boolean.TRUE, ((Map<?, ?>) Json.parse((String) created[1])).get("created"));
+        assertEquals(1, facade.countFiles());
+
+        Object[] files = request("GET", "/search/files?q=" + URLEncoder.encode("الطالب", "UTF-8"), null);
+        assertEquals(facade.searchKeyword("الطالب"), Json.parse((String) files[1]));
+        assertEquals(1, ((List<?>) Json.parse((String) files[1])).size());
+
+        Object[] status = request("GET", "/status", null);
+        Map<?, ?> state = (Map<?, ?>) Json.parse((String) status[1]);
+        assertEquals(2L, state.get("workers"));
+        assertEquals(4L, state.get("queueCapacity"));
+        assertTrue(((String) request("GET", "/metrics", null)[1]).contains("http.requests"));
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testRemoteBusinessObjectDelegatesToServer() {
+        long requests = Metrics.counter("http.requests").getCount();
+        RemoteEditorBO remote = new RemoteEditorBO(facade, baseUrl + "/");
+        String text = "كتب الطالب الدرس";
+
+        assertEquals(facade.extractRoots(text), remote.extractRoots(text));
+        assertEquals(facade.extractPOS(text), remote.extractPOS(text));
+        assertEquals(facade.performPMI(text).keySet(), remote.performPMI(text).keySet());
+        assertTrue(remote.createFile("lesson", text));
+        List<SearchResult> results = remote.searchKeywordRanked("الطالب", 0, 10);
+        assertEquals(1, results.size());
+        assertEquals("lesson", results.get(0).getFileName());
+        assertTrue(Metrics.counter("http.requests").getCount() >= requests + 5);
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testRemoteSaveDropsLocalCachedCopy() throws Exception {
+        // the server saves through its own business object on the same database
+        FacadeDAO dao = new FacadeDAO(new EmbeddedEditorDAO());
+        IFacadeBO local = new FacadeBO(new EditorBO(dao));
+        AnalysisServer shared = new AnalysisServer(new FacadeBO(new EditorBO(dao)),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 4);
+        shared.start();
+        try {
+            assertTrue(local.createFile("lesson", "كتب الطالب الدرس"));
+            int id = local.getAllFiles().get(0).getId();
+            assertEquals("كتب الطالب الدرس", local.getFile(id).getPages().get(0).getPageContent());
+
+            RemoteEditorBO remote = new RemoteEditorBO(local, "http://localhost:" + shared.getPort());
+            assertTrue(remote.updateFile(id, "lesson", 1, "ذهب الولد إلى المدرسة"));
+            assertEquals("ذهب الولد إلى المدرسة", local.getFile(id).getPages().get(0).getPageContent());
+        } finally {
+            shared.stop(0);
+        }
+    }
+
+    // -------------------- Negative Test --------------------
+    @Test
+    void testBadRequestsAndFallback() throws Exception {
+        assertEquals(404, request("GET", "/nowhere", null)[0]);
+        assertEquals(404, request("POST", "/analysis/unknown", "{\"text\":\"x\"}")[0]);
+        assertEquals(400, request("POST", "/analysis/roots", "{\"text\":")[0]);
+        assertEquals(400, request("POST", "/analysis/roots", "[]")[0]);
+        assertEquals(400, request("GET", "/search", null)[0]);
+        assertEquals(400, request("PUT", "/files/x/pages/1", "{\"name\":\"a\",\"content\":\"b\"}")[0]);
+        assertEquals(400, request("POST", "/analysis/roots", new String(new char[100000]).replace('\0', '['))[0]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.getOutputStream().write(("POST /analysis/roots HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+                    + (AnalysisServer.MAX_BODY_BYTES + 1) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String status = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII)).readLine();
+            assertEquals("HTTP/1.1 413", status.substring(0, 12));
+        }
+
+        int port = server.getPort();
+        server.stop(0);
+        long fallbacks = Metrics.counter("remote.fallbacks").getCount();
+        RemoteEditorBO remote = new RemoteEditorBO(facade, "http://localhost:" + port);
+        String text = "قرأ المعلم الكتاب";
+        assertEquals(facade.stemWords(text), remote.stemWords(text));
+        assertEquals(fallbacks + 1, Metrics.counter("remote.fallbacks").getCount());
+        assertTrue(remote.createFile("unsent", text));
+        assertEquals(1, facade.countFiles());
+    }
+
+    // -------------------- Negative Test --------------------
+    @Test
+    void testSaveIsNotRepeatedAfterServerError() throws Exception {
+        HttpServer failing = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        failing.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        failing.start();
+        try {
+            RemoteEditorBO remote = new RemoteEditorBO(facade, "http://localhost:" + failing.getAddress().getPort());
+            assertFalse(remote.createFile("lesson", "كتب الطالب الدرس"));
+            assertEquals(0, facade.countFiles());
+        } finally {
+            failing.stop(0);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dal.BM25Ranker;
+
+public class BM25RankerTest {
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testHigherTermFrequencyRanksFirst() {
+        BM25Ranker ranker = new BM25Ranker(10, 100);
+        ranker.addTerm(new int[] { 1, 2, 3 }, new int[] { 1, 5, 2 }, new int[] { 100, 100, 100 }, 3);
+
+        List<BM25Ranker.ScoredFile> top = ranker.top(0, 2);
+
+        assertEquals(2, top.size());
+        assertEquals(2, top.get(0).getFileId());
+        assertEquals(3, top.get(1).getFileId());
+        assertTrue(top.get(0).getScore() > top.get(1).getScore());
+    }
+
+    // -------------------- Boundary Test --------------------
+    @Test
+    void testPaginationSkipsEarlierResults() {
+        BM25Ranker ranker = new BM25Ranker(5, 10);
+        ranker.addTerm(new int[] { 1, 2, 3, 4 }, new int[] { 4, 3, 2, 1 }, new int[] { 10, 10, 10, 10 }, 4);
+
+        assertEquals(3, ranker.top(2, 2).get(0).getFileId());
+        assertEquals(1, ranker.top(3, 5).size());
+        assertTrue(ranker.top(4, 5).isEmpty());
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testCountTermsNormalizesText() {
+        Map<String, Integer> terms = BM25Ranker.countTerms("كِتَابٌ كتاب، abc قلم");
+
+        assertEquals(Integer.valueOf(2), terms.get("كتاب"));
+        assertEquals(Integer.valueOf(1), terms.get("قلم"));
+        assertEquals(2, terms.size());
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testSnippetCentresOnMatch() {
+        String page = "واحد اثنان ثلاثة أربعة كِتَابٌ خمسة ستة سبعة";
+
+        assertEquals("...ثلاثة أربعة كِتَابٌ خمسة ستة...",
+                BM25Ranker.snippet(page, Collections.singleton("كتاب"), 2));
+    }
+}
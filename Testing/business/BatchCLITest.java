@@ -0,0 +1,81 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import bll.EditorBO;
+import bll.FacadeBO;
+import bll.IFacadeBO;
+import dal.EmbeddedEditorDAO;
+import dal.FacadeDAO;
+import pl.BatchCLI;
+
+public class BatchCLITest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private BatchCLI cli(IFacadeBO facade) {
+        return new BatchCLI(facade, new PrintStream(output, true));
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testImportThenExportDirectory() throws Exception {
+        IFacadeBO facade = new FacadeBO(new EditorBO(new FacadeDAO(new EmbeddedEditorDAO())));
+        File input = Files.createTempDirectory("batch-in").toFile();
+        File nested = new File(input, "nested");
+        assertTrue(nested.mkdir());
+        String[] texts = { "ذهب الولد إلى المدرسة", "كتب الطالب الدرس", "قرأ المعلم الكتاب" };
+        for (int i = 0; i < texts.length; i++) {
+            Files.write(new File(i == 2 ? nested : input, "doc" + i + ".txt").toPath(),
+                    texts[i].getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(new File(input, "notes.pdf").toPath(), new byte[] { 1 });
+
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "import", input.getPath(), "--parallel=2",
+                "--batch=1" }));
+        assertEquals(2, facade.countFiles());
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "import", nested.getPath() }));
+        assertEquals(3, facade.countFiles());
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "reanalyze", "--parallel=3" }));
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "reindex" }));
+
+        File exported = Files.createTempDirectory("batch-out").toFile();
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "export", exported.getPath(), "--batch=2" }));
+        assertEquals(4, exported.list().length);
+        assertEquals(4, Files.readAllLines(new File(exported, "index.tsv").toPath()).size());
+        assertTrue(output.toString().contains("3 of 3 files done"));
+    }
+
+    @Test
+    void testRecursiveImportKeepsFilesWithTheSameName() throws Exception {
+        IFacadeBO facade = new FacadeBO(new EditorBO(new FacadeDAO(new EmbeddedEditorDAO())));
+        File input = Files.createTempDirectory("batch-in").toFile();
+        File nested = new File(input, "nested");
+        assertTrue(nested.mkdir());
+        Files.write(new File(input, "same.txt").toPath(), "كتب الطالب الدرس".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(nested, "same.txt").toPath(), "قرأ المعلم الكتاب".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "import", input.getPath(), "--recursive",
+                "--batch=10" }));
+        assertEquals(2, facade.countFiles());
+    }
+
+    // -------------------- Negative Test --------------------
+    @Test
+    void testBadArgumentsReturnUsage() {
+        IFacadeBO facade = new FacadeBO(new EditorBO(new FacadeDAO(new EmbeddedEditorDAO())));
+        assertEquals(BatchCLI.USAGE, cli(facade).run(new String[0]));
+        assertEquals(BatchCLI.USAGE, cli(facade).run(new String[] { "import" }));
+        assertEquals(BatchCLI.USAGE, cli(facade).run(new String[] { "reanalyze", "--parallel=0" }));
+        assertEquals(BatchCLI.USAGE, cli(facade).run(new String[] { "import", "/no/such/dir" }));
+        assertEquals(BatchCLI.OK, cli(facade).run(new String[] { "reanalyze" }));
+    }
+}
@@ -0,0 +1,121 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bll.ChangePoller;
+import bll.EditorBO;
+import bll.FacadeBO;
+import bll.IFacadeBO;
+import dal.EmbeddedEditorDAO;
+import dal.FacadeDAO;
+import dto.FileChange;
+
+public class ChangePollerTest {
+
+    /** A change log whose visible entries the test controls. */
+    private static class ScriptedLog extends FacadeBO {
+        final List<FileChange> visible = new ArrayList<>();
+
+        ScriptedLog() {
+            super(null);
+        }
+
+        void show(long... sequences) {
+            for (long sequence : sequences) {
+                visible.add(new FileChange(sequence, (int) sequence, 0, FileChange.Type.CREATED));
+            }
+            visible.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+        }
+
+        @Override
+        public List<FileChange> listChanges(long afterSequence, int limit) {
+            List<FileChange> result = new ArrayList<>();
+            for (FileChange change : visible) {
+                if (change.getSequence() > afterSequence && result.size() < limit) {
+                    result.add(change);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long lastChange() {
+            return 0;
+        }
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testPollDeliversEachChangeOnce() {
+        IFacadeBO facade = new FacadeBO(new EditorBO(new FacadeDAO(new EmbeddedEditorDAO())));
+        assertTrue(facade.createFile("before", "كتب الطالب الدرس"));
+
+        ChangePoller poller = new ChangePoller(facade);
+        List<FileChange> received = new ArrayList<>();
+        poller.addListener(received::addAll);
+        assertEquals(0, poller.poll());
+
+        assertTrue(facade.createFile("first", "ذهب الولد إلى المدرسة"));
+        assertTrue(facade.createFile("second", "قرأ المعلم الكتاب"));
+        int first = facade.listChanges(poller.getLastSequence(), 1).get(0).getFileId();
+        assertTrue(facade.updateFile(first, "first", 1, "ذهب الولد"));
+        assertTrue(facade.deleteFile(first));
+
+        assertEquals(4, poller.poll());
+        assertEquals(FileChange.Type.CREATED, received.get(0).getType());
+        assertEquals(FileChange.Type.CREATED, received.get(1).getType());
+        assertEquals(FileChange.Type.UPDATED, received.get(2).getType());
+        assertEquals(1, received.get(2).getPageNumber());
+        assertEquals(FileChange.Type.DELETED, received.get(3).getType());
+        assertEquals(first, received.get(3).getFileId());
+        assertEquals(0, poller.poll());
+        assertEquals(facade.lastChange(), poller.getLastSequence());
+        poller.close();
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testLateCommitsAreNotSkipped() {
+        ScriptedLog log = new ScriptedLog();
+        ChangePoller poller = new ChangePoller(log);
+        List<Long> received = new ArrayList<>();
+        poller.addListener(changes -> changes.forEach(change -> received.add(change.getSequence())));
+
+        log.show(1, 3);
+        assertEquals(2, poller.poll());
+        assertEquals(1, poller.getLastSequence());
+        log.show(2);
+        assertEquals(1, poller.poll());
+        assertEquals(3, poller.getLastSequence());
+        assertEquals(Arrays.asList(1L, 3L, 2L), received);
+    }
+
+    // -------------------- Negative Test --------------------
+    @Test
+    void testRolledBackSequenceIsEventuallySkipped() throws InterruptedException {
+        ScriptedLog log = new ScriptedLog();
+        ChangePoller poller = new ChangePoller(log, 200);
+        List<Long> received = new ArrayList<>();
+        poller.addListener(changes -> changes.forEach(change -> received.add(change.getSequence())));
+        poller.addListener(changes -> {
+            throw new IllegalStateException("listener failures must not stop the poller");
+        });
+
+        log.show(1, 3);
+        // polling often does not give up on the gap any sooner
+        for (int i = 0; i < 20; i++) {
+            poller.poll();
+        }
+        assertEquals(1, poller.getLastSequence());
+        Thread.sleep(250);
+        poller.poll();
+        assertEquals(3, poller.getLastSequence());
+        assertEquals(Arrays.asList(1L, 3L), received);
+    }
+}
@@ -0,0 +1,107 @@
+package business;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import bll.ChangePoller;
+import bll.DocumentCache;
+import bll.EditorBO;
+import dal.EmbeddedEditorDAO;
+import dal.FacadeDAO;
+import dal.IFacadeDAO;
+import dto.Documents;
+import dto.Pages;
+
+public class DocumentCacheTest {
+
+    private static Documents document(int id, String lastModified, String content) {
+        return new Documents(id, "f" + id, "hash", lastModified, "2024-01-01 00:00:00",
+                Arrays.asList(new Pages(id, id, 1, content)));
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testEvictsLeastRecentlyUsedBySize() {
+        DocumentCache cache = new DocumentCache(30);
+        cache.put(document(1, "t1", "0123456789"));
+        cache.put(document(2, "t1", "0123456789"));
+        assertNotNull(cache.get(1));
+        cache.put(document(3, "t1", "0123456789"));
+
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertEquals(2, cache.size());
+        assertEquals(24, cache.getChars());
+        assertEquals(0.75, cache.getHitRate(), 1e-9);
+
+        cache.put(document(4, "t1", "a much longer page than the whole cache can hold"));
+        assertNull(cache.get(4));
+        assertEquals(2, cache.size());
+    }
+
+    // -------------------- Negative Test --------------------
+    @Test
+    void testStaleAndInvalidatedEntriesAreDropped() {
+        DocumentCache cache = new DocumentCache(1000);
+        cache.put(document(1, "2024-01-01 10:00:00", "old"));
+        assertNotNull(cache.get(1, "2024-01-01 10:00:00"));
+        assertNull(cache.get(1, "2024-01-01 10:00:05"));
+        assertNull(cache.get(1));
+
+        cache.put(document(2, "t", "text"));
+        cache.invalidate(2);
+        assertNull(cache.get(2));
+        assertEquals(0, cache.getChars());
+
+        // loaded before a write invalidated it, so possibly the old version
+        long invalidations = cache.getInvalidations();
+        cache.invalidate(3);
+        assertFalse(cache.put(document(3, "t", "old text"), invalidations));
+        assertNull(cache.get(3));
+        assertTrue(cache.put(document(3, "t", "new text"), cache.getInvalidations()));
+        assertNotNull(cache.get(3));
+    }
+
+    // -------------------- Positive Test --------------------
+    @Test
+    void testBusinessLayerServesRepeatReadsFromCache() {
+        IFacadeDAO dao = new FacadeDAO(new EmbeddedEditorDAO());
+        EditorBO bo = new EditorBO(dao, new DocumentCache(1 << 20));
+        // writes within one second share a lastModified, the change log tells them apart
+        ChangePoller changes = new ChangePoller(bo);
+        changes.addListener(changed -> changed.forEach(change -> bo.invalidate(change.getFileId())));
+        assertTrue(bo.createFile("first", "كتب الطالب الدرس"));
+        assertTrue(bo.createFile("second", "ذهب الولد إلى المدرسة"));
+
+        List<Documents> all = bo.getAllFiles();
+        assertEquals(2, all.size());
+        int id = all.get(0).getId();
+        assertSame(all.get(0), bo.getFile(id));
+        assertSame(all.get(1), bo.getAllFiles().get(1));
+        assertTrue(bo.getDocumentCache().getHitRate() > 0);
+
+        assertTrue(bo.updateFile(id, "first", 1, "قرأ المعلم الكتاب"));
+        assertEquals("قرأ المعلم الكتاب", bo.getFile(id).getPages().get(0).getPageContent());
+
+        // another client writing to the same database
+        EditorBO other = new EditorBO(dao, new DocumentCache(1 << 20));
+        assertTrue(other.updateFile(id, "renamed", 1, "كتب الطالب"));
+        changes.poll();
+        assertEquals("renamed", bo.getFile(id).getName());
+        assertTrue(other.deleteFile(id));
+        assertEquals(1, bo.getAllFiles().size());
+        assertNull(bo.getFile(id));
+
+        // without the change log, a hit is still checked against the files table
+        EditorBO unpolled = new EditorBO(dao, new DocumentCache(1 << 20));
+        int second = all.get(1).getId();
+        assertNotNull(unpolled.getFile(second));
+        assertTrue(other.deleteFile(second));
+        assertNull(unpolled.getFile(second));
+    }
+}
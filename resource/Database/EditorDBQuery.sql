@@ -7,7 +7,13 @@ CREATE TABLE `files` (
 	`fileHash` VARCHAR(255) NOT NULL COLLATE 'utf8mb4_general_ci',
 	`dateCreated` TIMESTAMP NOT NULL DEFAULT current_timestamp(),
 	`lastModified` TIMESTAMP NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
-	PRIMARY KEY (`fileid`) USING BTREE
+	`tokenCount` INT(11) NOT NULL DEFAULT '0',
+	`tfidfScore` DOUBLE NOT NULL DEFAULT '0',
+	PRIMARY KEY (`fileid`) USING BTREE,
+	INDEX `files_name` (`fileName`, `fileid`) USING BTREE,
+	INDEX `files_modified` (`lastModified`, `fileid`) USING BTREE,
+	INDEX `files_created` (`dateCreated`, `fileid`) USING BTREE,
+	INDEX `files_tfidf` (`tfidfScore`, `fileid`) USING BTREE
 )
 COLLATE='utf8mb4_general_ci'
 ENGINE=InnoDB
@@ -30,6 +36,7 @@ CREATE TABLE `transliteratedpages` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
 	`transliteratedText` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`sourceHash` VARCHAR(32) NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
 	UNIQUE INDEX `page_id` (`pageId`) USING BTREE,
 	CONSTRAINT `transliteratedpages_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
@@ -42,11 +49,13 @@ AUTO_INCREMENT=32
 CREATE TABLE `lemmatization` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`lemma` LONGTEXT NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `lemmatization_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `lemmatization_page` (`pageId`, `word`) USING BTREE,
+	INDEX `lemmatization_word` (`wordHash`, `pageId`) USING BTREE,
+	INDEX `lemmatization_lemma` (`lemma`(191), `pageId`) USING BTREE,
 	CONSTRAINT `lemmatization_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -57,11 +66,12 @@ AUTO_INCREMENT=14573
 CREATE TABLE `pos` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`pos` LONGTEXT NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `pos_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `pos_page` (`pageId`, `word`) USING BTREE,
+	INDEX `pos_word` (`wordHash`, `pageId`) USING BTREE,
 	CONSTRAINT `pos_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -72,11 +82,13 @@ AUTO_INCREMENT=613
 CREATE TABLE `rootextraction` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`root` LONGTEXT NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `rootExtraction_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `rootextraction_page` (`pageId`, `word`) USING BTREE,
+	INDEX `rootextraction_word` (`wordHash`, `pageId`) USING BTREE,
+	INDEX `rootextraction_root` (`root`(191), `pageId`) USING BTREE,
 	CONSTRAINT `rootExtraction_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -87,11 +99,13 @@ AUTO_INCREMENT=14506
 CREATE TABLE `stemmation` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`stem` LONGTEXT NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `stemmation_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `stemmation_page` (`pageId`, `word`) USING BTREE,
+	INDEX `stemmation_word` (`wordHash`, `pageId`) USING BTREE,
+	INDEX `stemmation_stem` (`stem`(191), `pageId`) USING BTREE,
 	CONSTRAINT `stemmation_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -102,11 +116,12 @@ AUTO_INCREMENT=14460
 CREATE TABLE `wordsegementation` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`segment` LONGTEXT NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `wordSegementation_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `wordsegementation_page` (`pageId`, `word`) USING BTREE,
+	INDEX `wordsegementation_word` (`wordHash`, `pageId`) USING BTREE,
 	CONSTRAINT `wordSegementation_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -117,11 +132,12 @@ AUTO_INCREMENT=14475
 CREATE TABLE `pkl` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`pklScore` DOUBLE NOT NULL DEFAULT '0',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `pkl_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `pkl_page` (`pageId`, `word`, `pklScore`) USING BTREE,
+	INDEX `pkl_word` (`wordHash`, `pageId`, `pklScore`) USING BTREE,
 	CONSTRAINT `pkl_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -131,11 +147,12 @@ AUTO_INCREMENT=14394
 CREATE TABLE `pmi` (
 	`id` INT(11) NOT NULL AUTO_INCREMENT,
 	`pageId` INT(11) NOT NULL,
-	`word` LONGTEXT NOT NULL COLLATE 'utf8mb4_general_ci',
+	`word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	`wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
 	`pmiScore` DOUBLE NOT NULL DEFAULT '0',
 	PRIMARY KEY (`id`) USING BTREE,
-	UNIQUE INDEX `page_id` (`id`, `pageId`) USING BTREE,
-	INDEX `pmi_ibfk_1` (`pageId`) USING BTREE,
+	INDEX `pmi_page` (`pageId`, `word`, `pmiScore`) USING BTREE,
+	INDEX `pmi_word` (`wordHash`, `pageId`, `pmiScore`) USING BTREE,
 	CONSTRAINT `pmi_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE
 )
 COLLATE='utf8mb4_general_ci'
@@ -154,3 +171,28 @@ COLLATE='utf8mb4_general_ci'
 ENGINE=InnoDB
 AUTO_INCREMENT=14517
 ;
+CREATE TABLE `pageterms` (
+	`term` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_bin',
+	`fileId` INT(11) NOT NULL,
+	`pageId` INT(11) NOT NULL,
+	`frequency` INT(11) NOT NULL DEFAULT '0',
+	PRIMARY KEY (`term`, `pageId`) USING BTREE,
+	INDEX `pageterms_file` (`fileId`, `term`) USING BTREE,
+	INDEX `pageterms_page` (`pageId`) USING BTREE,
+	CONSTRAINT `pageterms_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE,
+	CONSTRAINT `pageterms_ibfk_2` FOREIGN KEY (`fileId`) REFERENCES `files` (`fileid`) ON UPDATE RESTRICT ON DELETE CASCADE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
+CREATE TABLE `changelog` (
+	`sequence` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`fileId` INT(11) NOT NULL,
+	`pageNumber` INT(11) NOT NULL DEFAULT '0',
+	`changeType` VARCHAR(8) NOT NULL COLLATE 'ascii_bin',
+	`changedAt` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP(),
+	PRIMARY KEY (`sequence`) USING BTREE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
@@ -0,0 +1,7 @@
+-- Transliterations are computed lazily and reused while the page content hash
+-- still matches. Rows written before this column existed have a NULL hash and
+-- are recomputed on first request.
+Use realeditor
+
+ALTER TABLE `transliteratedpages`
+	ADD COLUMN `sourceHash` VARCHAR(32) NULL DEFAULT NULL COLLATE 'utf8mb4_general_ci' AFTER `transliteratedText`;
@@ -0,0 +1,23 @@
+-- Term frequencies and document lengths for BM25-ranked search. Files that
+-- existed before this migration are not indexed until "Driver reindex" is run;
+-- until then the plain keyword search still finds them, and ranked search
+-- leaves them out of the average document length.
+Use realeditor
+
+ALTER TABLE `files`
+	ADD COLUMN `tokenCount` INT(11) NOT NULL DEFAULT '0' AFTER `lastModified`;
+
+CREATE TABLE `pageterms` (
+	`term` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_bin',
+	`fileId` INT(11) NOT NULL,
+	`pageId` INT(11) NOT NULL,
+	`frequency` INT(11) NOT NULL DEFAULT '0',
+	PRIMARY KEY (`term`, `pageId`) USING BTREE,
+	INDEX `pageterms_file` (`fileId`, `term`) USING BTREE,
+	INDEX `pageterms_page` (`pageId`) USING BTREE,
+	CONSTRAINT `pageterms_ibfk_1` FOREIGN KEY (`pageId`) REFERENCES `pages` (`pageId`) ON UPDATE RESTRICT ON DELETE CASCADE,
+	CONSTRAINT `pageterms_ibfk_2` FOREIGN KEY (`fileId`) REFERENCES `files` (`fileid`) ON UPDATE RESTRICT ON DELETE CASCADE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
@@ -0,0 +1,14 @@
+-- Sort keys for the paged file list. Each index ends in the primary key so a
+-- page continues exactly after the last row shown, and tfidfScore is copied
+-- onto files so sorting by score needs no join.
+Use realeditor
+
+ALTER TABLE `files`
+	ADD COLUMN `tfidfScore` DOUBLE NOT NULL DEFAULT '0' AFTER `tokenCount`,
+	ADD INDEX `files_name` (`fileName`, `fileid`) USING BTREE,
+	ADD INDEX `files_modified` (`lastModified`, `fileid`) USING BTREE,
+	ADD INDEX `files_created` (`dateCreated`, `fileid`) USING BTREE,
+	ADD INDEX `files_tfidf` (`tfidfScore`, `fileid`) USING BTREE;
+
+UPDATE `files` f JOIN `tfidf` t ON t.`fileId` = f.`fileid`
+	SET f.`tfidfScore` = t.`tfidfScore`, f.`lastModified` = f.`lastModified`;
@@ -0,0 +1,94 @@
+-- Bounded, indexable keys for the analysis tables. Words are trimmed and cut
+-- to 191 characters next to an MD5 of the whole word, so lookups by word seek
+-- on wordHash. Roots, lemmas and stems are pipe-joined lists like pos and
+-- segment, so they stay LONGTEXT and are indexed on a 191 character prefix;
+-- every table gets a covering (pageId, ...) index for per-page reads and
+-- deletes, which replaces the foreign key index and the redundant (id, pageId).
+Use realeditor
+
+ALTER TABLE `lemmatization`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `lemmatization` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `lemmatization`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `lemmatization_page` (`pageId`, `word`) USING BTREE,
+	ADD INDEX `lemmatization_word` (`wordHash`, `pageId`) USING BTREE,
+	ADD INDEX `lemmatization_lemma` (`lemma`(191), `pageId`) USING BTREE;
+ALTER TABLE `lemmatization`
+	DROP INDEX `lemmatization_ibfk_1`;
+
+ALTER TABLE `pos`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `pos` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `pos`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `pos_page` (`pageId`, `word`) USING BTREE,
+	ADD INDEX `pos_word` (`wordHash`, `pageId`) USING BTREE;
+ALTER TABLE `pos`
+	DROP INDEX `pos_ibfk_1`;
+
+ALTER TABLE `rootextraction`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `rootextraction` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `rootextraction`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `rootextraction_page` (`pageId`, `word`) USING BTREE,
+	ADD INDEX `rootextraction_word` (`wordHash`, `pageId`) USING BTREE,
+	ADD INDEX `rootextraction_root` (`root`(191), `pageId`) USING BTREE;
+ALTER TABLE `rootextraction`
+	DROP INDEX `rootExtraction_ibfk_1`;
+
+ALTER TABLE `stemmation`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `stemmation` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `stemmation`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `stemmation_page` (`pageId`, `word`) USING BTREE,
+	ADD INDEX `stemmation_word` (`wordHash`, `pageId`) USING BTREE,
+	ADD INDEX `stemmation_stem` (`stem`(191), `pageId`) USING BTREE;
+ALTER TABLE `stemmation`
+	DROP INDEX `stemmation_ibfk_1`;
+
+ALTER TABLE `wordsegementation`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `wordsegementation` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `wordsegementation`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `wordsegementation_page` (`pageId`, `word`) USING BTREE,
+	ADD INDEX `wordsegementation_word` (`wordHash`, `pageId`) USING BTREE;
+ALTER TABLE `wordsegementation`
+	DROP INDEX `wordSegementation_ibfk_1`;
+
+ALTER TABLE `pkl`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `pkl` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `pkl`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `pkl_page` (`pageId`, `word`, `pklScore`) USING BTREE,
+	ADD INDEX `pkl_word` (`wordHash`, `pageId`, `pklScore`) USING BTREE;
+ALTER TABLE `pkl`
+	DROP INDEX `pkl_ibfk_1`;
+
+ALTER TABLE `pmi`
+	ADD COLUMN `wordHash` CHAR(32) NULL DEFAULT NULL COLLATE 'ascii_bin' AFTER `word`;
+UPDATE `pmi` SET `wordHash` = UPPER(MD5(TRIM(`word`))), `word` = LEFT(TRIM(`word`), 191);
+ALTER TABLE `pmi`
+	MODIFY COLUMN `word` VARCHAR(191) NOT NULL COLLATE 'utf8mb4_general_ci',
+	MODIFY COLUMN `wordHash` CHAR(32) NOT NULL COLLATE 'ascii_bin',
+	DROP INDEX `page_id`,
+	ADD INDEX `pmi_page` (`pageId`, `word`, `pmiScore`) USING BTREE,
+	ADD INDEX `pmi_word` (`wordHash`, `pageId`, `pmiScore`) USING BTREE;
+ALTER TABLE `pmi`
+	DROP INDEX `pmi_ibfk_1`;
@@ -0,0 +1,18 @@
+-- Every create, page update and delete appends a row here in the same
+-- transaction, so clients sharing the database can poll for the rows after the
+-- last sequence they saw and drop what they cached for those files. There is
+-- no foreign key: the entry for a deleted file outlives the file. Old rows can
+-- be pruned by sequence once every client has read past them.
+Use realeditor
+
+CREATE TABLE `changelog` (
+	`sequence` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`fileId` INT(11) NOT NULL,
+	`pageNumber` INT(11) NOT NULL DEFAULT '0',
+	`changeType` VARCHAR(8) NOT NULL COLLATE 'ascii_bin',
+	`changedAt` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP(),
+	PRIMARY KEY (`sequence`) USING BTREE
+)
+COLLATE='utf8mb4_general_ci'
+ENGINE=InnoDB
+;
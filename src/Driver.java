@@ -1,11 +1,20 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import bll.ChangePoller;
 import bll.EditorBO;
 import bll.FacadeBO;
 import bll.IFacadeBO;
+import bll.RemoteEditorBO;
 import dal.AbstractDAOEditorFactory;
+import dal.AnalyzerLoader;
 import dal.FacadeDAO;
 import dal.IEditorDBDAO;
 import dal.IFacadeDAO;
+import pl.BatchCLI;
 import pl.EditorPO;
+import util.Metrics;
 
 public class Driver {
 
@@ -13,10 +22,44 @@ public class Driver {
     }
 
     public static void main(String[] args) {
+    	if (args.length > 0) {
+    		// batch jobs run without a display
+    		System.setProperty("java.awt.headless", "true");
+    	}
 
+    	Metrics.startReporting();
+    	// the dictionaries load while the DAO and the window are built
+    	AnalyzerLoader.warmUp();
     	IEditorDBDAO editorDAO = AbstractDAOEditorFactory.getInstance().createEditorDAO();
         IFacadeDAO facadeDAO = new FacadeDAO(editorDAO);
-        IFacadeBO editorBO = new FacadeBO(new EditorBO(facadeDAO));
-        new EditorPO(editorBO);
+        IFacadeBO localBO = new FacadeBO(new EditorBO(facadeDAO));
+        IFacadeBO editorBO = localBO;
+        Properties config = config();
+        // one cursor on the change log for the process: drops cached copies of files other
+        // clients of the same database change and, with a window, refreshes its file list
+        ChangePoller changes = new ChangePoller(localBO);
+        changes.addListener(changed -> changed.forEach(change -> localBO.invalidate(change.getFileId())));
+        changes.start(Long.parseLong(config.getProperty("changes.poll.interval", "2000").trim()));
+        String server = config.getProperty("analysis.server", "").trim();
+        if (!server.isEmpty() && args.length == 0) {
+        	// analysis and search go to the shared server, the rest stays local
+        	editorBO = new RemoteEditorBO(editorBO, server);
+        }
+        if (args.length > 0) {
+        	System.exit(new BatchCLI(editorBO, System.out).run(args));
+        }
+        EditorPO editor = new EditorPO(editorBO);
+        changes.addListener(editor::filesChanged);
+    }
+
+    /** config.properties, or no properties if it cannot be read. */
+    private static Properties config() {
+    	Properties prop = new Properties();
+    	try (FileInputStream input = new FileInputStream("config.properties")) {
+    		prop.load(input);
+    	} catch (IOException e) {
+    		// run with the defaults
+    	}
+    	return prop;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package bll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dto.FileChange;
+import util.Metrics;
+
+/**
+ * Reads the change log for entries written since the last poll, by this client
+ * or any other sharing the database, and hands them to listeners so they can
+ * drop what they cached for those files. Starts from the newest entry at
+ * construction, since nothing is cached before then.
+ *
+ * Sequence numbers are taken when a row is inserted but become visible when its
+ * transaction commits, so a later number can show up first. The poller only
+ * moves past a number once everything below it has been seen, and gives up on a
+ * missing number once it has been missing for the gap timeout, 30 seconds by
+ * default, when its transaction must have rolled back. The timeout is measured
+ * in time rather than polls, so polling more often does not shorten it.
+ */
+public class ChangePoller implements AutoCloseable {
+	private static final Logger logger = LogManager.getLogger(ChangePoller.class);
+	private static final Metrics.Timer POLL_TIMER = Metrics.timer("changes.poll");
+	private static final Metrics.Counter RECEIVED = Metrics.counter("changes.received");
+
+	private static final long DEFAULT_GAP_TIMEOUT_MILLIS = 30_000;
+	private static final int BATCH = 500;
+
+	public interface Listener {
+		void changed(List<FileChange> changes);
+	}
+
+	private final IEditorBO businessObj;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+	// every sequence up to here has been handed out
+	private long after;
+	// sequences above after that were handed out while an earlier one is missing
+	private final TreeSet<Long> seen = new TreeSet<>();
+	private final long gapTimeoutNanos;
+	// when the missing sequence after the current one was first noticed, or -1
+	private long gapSince = -1;
+	private ScheduledExecutorService scheduler;
+
+	public ChangePoller(IEditorBO businessObj) {
+		this(businessObj, DEFAULT_GAP_TIMEOUT_MILLIS);
+	}
+
+	public ChangePoller(IEditorBO businessObj, long gapTimeoutMillis) {
+		this.businessObj = businessObj;
+		this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+		this.after = businessObj.lastChange();
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	/** Polls every {@code intervalMillis} on a background thread until {@link #close()}. */
+	public synchronized void start(long intervalMillis) {
+		if (scheduler != null) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "change-poller");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				poll();
+			} catch (RuntimeException e) {
+				logger.error("Change poll failed: {}", e.toString());
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/** Fetches the entries not yet handed out and passes them to the listeners; returns how many there were. */
+	public synchronized int poll() {
+		long started = System.nanoTime();
+		List<FileChange> fresh = new ArrayList<>();
+		long cursor = after;
+		List<FileChange> batch;
+		do {
+			batch = businessObj.listChanges(cursor, BATCH);
+			for (FileChange change : batch) {
+				if (seen.add(change.getSequence())) {
+					fresh.add(change);
+				}
+				cursor = change.getSequence();
+			}
+		} while (batch.size() == BATCH);
+		advance(System.nanoTime());
+		POLL_TIMER.stop(started);
+
+		if (!fresh.isEmpty()) {
+			RECEIVED.add(fresh.size());
+			for (Listener listener : listeners) {
+				try {
+					listener.changed(fresh);
+				} catch (RuntimeException e) {
+					logger.error("Change listener failed: {}", e.toString());
+				}
+			}
+		}
+		return fresh.size();
+	}
+
+	/** The sequence up to which every entry has been handed out. */
+	public synchronized long getLastSequence() {
+		return after;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	private void advance(long now) {
+		while (true) {
+			long before = after;
+			while (!seen.isEmpty() && seen.first() == after + 1) {
+				after = seen.pollFirst();
+			}
+			if (seen.isEmpty()) {
+				gapSince = -1;
+				return;
+			}
+			if (after != before || gapSince < 0) {
+				// a new gap, start timing it
+				gapSince = now;
+			}
+			if (now - gapSince < gapTimeoutNanos) {
+				return;
+			}
+			// the missing sequence was rolled back or pruned, stop waiting for it
+			after = seen.first() - 1;
+			gapSince = -1;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package bll;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import dto.Documents;
+import dto.Pages;
+import util.Metrics;
+
+/**
+ * Least recently used documents with their pages, bounded by the characters of
+ * page text held rather than by the number of documents, so a few long books
+ * cannot crowd out memory. A lookup can pass the lastModified the caller just
+ * read from the files table; an entry that does not match it is dropped.
+ * Cached documents are shared between callers and must not be modified.
+ *
+ * A document loaded while a write was invalidating it may be the version from
+ * before the write. Loaders take {@link #getInvalidations()} before reading and
+ * pass it to {@link #put(Documents, long)}, which drops the document if anything
+ * was invalidated since.
+ *
+ * Hits, misses, stale entries and evictions are counted under
+ * {@code cache.documents.*} in {@link Metrics}, and per cache by
+ * {@link #getHitRate()}.
+ */
+public class DocumentCache {
+	private static final Metrics.Counter HITS = Metrics.counter("cache.documents.hits");
+	private static final Metrics.Counter MISSES = Metrics.counter("cache.documents.misses");
+	private static final Metrics.Counter STALE = Metrics.counter("cache.documents.stale");
+	private static final Metrics.Counter EVICTIONS = Metrics.counter("cache.documents.evictions");
+
+	private static final long DEFAULT_MAX_CHARS = 8L * 1024 * 1024;
+
+	private final long maxChars;
+	private final Map<Integer, Documents> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long chars;
+	private long invalidations;
+	private long hits;
+	private long misses;
+
+	public DocumentCache(long maxChars) {
+		this.maxChars = maxChars;
+	}
+
+	/** A cache of {@code cache.documents.maxChars} characters from config.properties, 8M by default. */
+	public static DocumentCache configured() {
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			Properties prop = new Properties();
+			prop.load(input);
+			String value = prop.getProperty("cache.documents.maxChars");
+			if (value != null && !value.trim().isEmpty()) {
+				return new DocumentCache(Long.parseLong(value.trim()));
+			}
+		} catch (IOException | NumberFormatException e) {
+			// no config file or no valid size, use the default
+		}
+		return new DocumentCache(DEFAULT_MAX_CHARS);
+	}
+
+	public synchronized Documents get(int fileId) {
+		Documents document = entries.get(fileId);
+		count(document != null);
+		return document;
+	}
+
+	/** The cached document, unless it was modified at another time than {@code lastModified}. */
+	public synchronized Documents get(int fileId, String lastModified) {
+		Documents document = entries.get(fileId);
+		if (document != null && lastModified != null && !lastModified.equals(document.getLastModified())) {
+			STALE.inc();
+			remove(fileId);
+			document = null;
+		}
+		count(document != null);
+		return document;
+	}
+
+	/**
+	 * Caches a document loaded after {@link #getInvalidations()} returned
+	 * {@code invalidationsBefore}, unless something was invalidated in between;
+	 * returns whether it was cached.
+	 */
+	public synchronized boolean put(Documents document, long invalidationsBefore) {
+		if (invalidations != invalidationsBefore) {
+			return false;
+		}
+		put(document);
+		return entries.containsKey(document.getId());
+	}
+
+	public synchronized void put(Documents document) {
+		long weight = weight(document);
+		remove(document.getId());
+		if (weight > maxChars) {
+			return;
+		}
+		entries.put(document.getId(), document);
+		chars += weight;
+		while (chars > maxChars) {
+			Map.Entry<Integer, Documents> eldest = entries.entrySet().iterator().next();
+			remove(eldest.getKey());
+			EVICTIONS.inc();
+		}
+	}
+
+	public synchronized void invalidate(int fileId) {
+		invalidations++;
+		remove(fileId);
+	}
+
+	public synchronized void clear() {
+		invalidations++;
+		entries.clear();
+		chars = 0;
+	}
+
+	/** How many invalidations there have been, to pass to {@link #put(Documents, long)}. */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/** Characters of page text currently held. */
+	public synchronized long getChars() {
+		return chars;
+	}
+
+	public synchronized double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(Locale.ROOT, "%d documents, %d of %d chars, hit rate %.2f", entries.size(), chars, maxChars,
+				getHitRate());
+	}
+
+	private void count(boolean hit) {
+		if (hit) {
+			hits++;
+			HITS.inc();
+		} else {
+			misses++;
+			MISSES.inc();
+		}
+	}
+
+	private void remove(int fileId) {
+		Documents removed = entries.remove(fileId);
+		if (removed != null) {
+			chars -= weight(removed);
+		}
+	}
+
+	private static long weight(Documents document) {
+		long weight = document.getName() == null ? 0 : document.getName().length();
+		for (Pages page : document.getPages()) {
+			weight += page.getPageContent() == null ? 0 : page.getPageContent().length();
+		}
+		return weight;
+	}
+}
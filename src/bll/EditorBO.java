@@ -3,47 +3,90 @@ package bll;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import dal.IFacadeDAO;
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
 import dto.Pages;
+import dto.SearchResult;
 import pl.EditorPO;
+import util.Metrics;
 
 public class EditorBO implements IEditorBO {
 	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 
+	private static final Metrics.Timer CREATE_TIMER = Metrics.timer("bo.createFile");
+	private static final Metrics.Timer UPDATE_TIMER = Metrics.timer("bo.updateFile");
+	private static final Metrics.Timer IMPORT_TIMER = Metrics.timer("bo.importTextFiles");
+	private static final Metrics.Timer SEARCH_TIMER = Metrics.timer("bo.searchKeyword");
+	private static final Metrics.Timer RANKED_SEARCH_TIMER = Metrics.timer("bo.searchKeywordRanked");
+	private static final Metrics.Counter FAILURES = Metrics.counter("bo.failedWrites");
+	private static final int SUMMARY_PAGE = 1000;
 	private IFacadeDAO db;
+	private final DocumentCache documents;
 
 	public EditorBO(IFacadeDAO db) {
+		this(db, DocumentCache.configured());
+	}
+
+	/**
+	 * Files other clients of the same database change are dropped from the cache
+	 * through {@link #invalidate(int)}, which a {@link ChangePoller} calls. Until
+	 * it does, a file rewritten within the second its cached copy was modified
+	 * in, when lastModified cannot tell the two apart, is served from the cache.
+	 */
+	public EditorBO(IFacadeDAO db, DocumentCache documents) {
 		this.db = db;
+		this.documents = documents;
 	}
 
 	@Override
 	public boolean createFile(String nameOfFile, String content) {
+		long started = System.nanoTime();
 		try {
-			return db.createFileInDB(nameOfFile, content);
+			return countFailure(db.createFileInDB(nameOfFile, content));
 		} catch (Exception e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
-			return false;
+			return countFailure(false);
+		} finally {
+			CREATE_TIMER.stop(started);
 		}
 	}
 
 	@Override
 	public boolean updateFile(int id, String fileName, int pageNumber, String content) {
+		long started = System.nanoTime();
 		try {
-			return db.updateFileInDB(id, fileName, pageNumber, content);
+			return countFailure(db.updateFileInDB(id, fileName, pageNumber, content));
 		} catch (Exception e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
-			return false;
+			return countFailure(false);
+		} finally {
+			documents.invalidate(id);
+			UPDATE_TIMER.stop(started);
+		}
+	}
+
+	private static boolean countFailure(boolean succeeded) {
+		if (!succeeded) {
+			FAILURES.inc();
 		}
+		return succeeded;
 	}
 
 	@Override
@@ -54,42 +97,80 @@ public class EditorBO implements IEditorBO {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
+		} finally {
+			documents.invalidate(id);
 		}
 	}
 
 	@Override
 	public boolean importTextFiles(File file, String fileName) {
-		StringBuilder fileContent = new StringBuilder();
-		String fileExtension = getFileExtension(fileName);
-		BufferedReader reader;
 		try {
-			reader = new BufferedReader(new FileReader(file));
-			String line;
-
-			while ((line = reader.readLine()) != null) {
-				fileContent.append(line).append("\n");
+			String fileContent = readTextFile(file, fileName);
+			if (fileContent != null) {
+				return db.createFileInDB(fileName, fileContent);
 			}
-			reader.close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return false;
+	}
 
-			if (fileExtension.equalsIgnoreCase("txt") || fileExtension.equalsIgnoreCase("md5")) {
-				return db.createFileInDB(fileName, fileContent.toString());
+	@Override
+	public int importTextFiles(List<File> files) {
+		// a list rather than a map, since files from different folders can share a name
+		List<Map.Entry<String, String>> contents = new ArrayList<>();
+		for (File file : files) {
+			try {
+				String fileContent = readTextFile(file, file.getName());
+				if (fileContent != null) {
+					contents.add(new AbstractMap.SimpleImmutableEntry<>(file.getName(), fileContent));
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
 			}
+		}
+		long started = System.nanoTime();
+		try {
+			return contents.isEmpty() ? 0 : db.bulkCreateFilesInDB(contents);
 		} catch (Exception e) {
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
+			return 0;
+		} finally {
+			IMPORT_TIMER.stop(started);
 		}
-		return false;
 	}
 
+	private String readTextFile(File file, String fileName) throws IOException {
+		String fileExtension = getFileExtension(fileName);
+		if (!fileExtension.equalsIgnoreCase("txt") && !fileExtension.equalsIgnoreCase("md5")) {
+			return null;
+		}
+		StringBuilder fileContent = new StringBuilder();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				fileContent.append(line).append("\n");
+			}
+		}
+		return fileContent.toString();
+	}
+
+	/** The file, from the cache while its lastModified still matches the files table. */
 	@Override
 	public Documents getFile(int id) {
-		List<Documents> docs = getAllFiles();
-		for (int i = 0; i < docs.size(); i++) {
-			if (id == docs.get(i).getId()) {
-				return docs.get(i);
-			}
+		String lastModified = db.lastModifiedInDB(id);
+		if (lastModified == null) {
+			documents.invalidate(id);
+			return null;
+		}
+		Documents document = documents.get(id, lastModified);
+		if (document == null) {
+			document = loadFile(id);
 		}
-		return null;
+		return document;
 	}
 
 	@Override
@@ -98,9 +179,93 @@ public class EditorBO implements IEditorBO {
 		return (lastIndexOfDot == -1) ? "" : fileName.substring(lastIndexOfDot + 1);
 	}
 
+	/**
+	 * Every file, reusing cached documents whose lastModified still matches the
+	 * files table. The rest are loaded one by one, or all at once when most of
+	 * the corpus is missing from the cache.
+	 */
 	@Override
 	public List<Documents> getAllFiles() {
-		return db.getFilesFromDB();
+		List<FileSummary> summaries = new ArrayList<>();
+		List<FileSummary> page;
+		FileSummary after = null;
+		do {
+			page = db.listFilesInDB(FileSortOrder.DATE_CREATED, false, after, SUMMARY_PAGE);
+			if (page == null) {
+				break;
+			}
+			summaries.addAll(page);
+			after = page.isEmpty() ? null : page.get(page.size() - 1);
+		} while (page.size() == SUMMARY_PAGE);
+		summaries.sort(Comparator.comparingInt(FileSummary::getFileId));
+
+		Map<Integer, Documents> files = new LinkedHashMap<>();
+		int missing = 0;
+		for (FileSummary summary : summaries) {
+			Documents document = documents.get(summary.getFileId(), summary.getLastModified());
+			files.put(summary.getFileId(), document);
+			if (document == null) {
+				missing++;
+			}
+		}
+		if (missing > summaries.size() / 2) {
+			// mostly cold: one pass over the files table beats a query per file
+			long invalidations = documents.getInvalidations();
+			for (Documents document : db.getFilesFromDB()) {
+				if (files.containsKey(document.getId()) && files.get(document.getId()) == null) {
+					documents.put(document, invalidations);
+					files.put(document.getId(), document);
+				}
+			}
+		}
+		List<Documents> result = new ArrayList<>();
+		for (Map.Entry<Integer, Documents> file : files.entrySet()) {
+			Documents document = file.getValue() != null ? file.getValue() : loadFile(file.getKey());
+			if (document != null) {
+				result.add(document);
+			}
+		}
+		return result;
+	}
+
+	private Documents loadFile(int id) {
+		long invalidations = documents.getInvalidations();
+		Documents document = db.getFileFromDB(id);
+		if (document != null) {
+			// not if a write invalidated it while it loaded, it may be the old version
+			documents.put(document, invalidations);
+		}
+		return document;
+	}
+
+	@Override
+	public void invalidate(int id) {
+		documents.invalidate(id);
+	}
+
+	/** The cache behind {@link #getFile(int)} and {@link #getAllFiles()}, for its hit rate. */
+	public DocumentCache getDocumentCache() {
+		return documents;
+	}
+
+	@Override
+	public List<FileSummary> listFiles(FileSortOrder sort, boolean descending, FileSummary after, int limit) {
+		return db.listFilesInDB(sort, descending, after, limit);
+	}
+
+	@Override
+	public int countFiles() {
+		return db.countFilesInDB();
+	}
+
+	@Override
+	public List<FileChange> listChanges(long afterSequence, int limit) {
+		return db.listChangesInDB(afterSequence, limit);
+	}
+
+	@Override
+	public long lastChange() {
+		return db.lastChangeInDB();
 	}
 
 	@Override
@@ -108,10 +273,37 @@ public class EditorBO implements IEditorBO {
 		return db.transliterateInDB(pageId, arabicText);
 	}
 
+	@Override
+	public void transliteratePages(List<Pages> pages) {
+		db.transliteratePagesInBackground(pages);
+	}
+
 	@Override
 	public List<String> searchKeyword(String keyword) {
+		long started = System.nanoTime();
+		try {
+			return SearchWord.searchKeyword(keyword, getAllFiles());
+		} finally {
+			SEARCH_TIMER.stop(started);
+		}
+	}
 
-		return SearchWord.searchKeyword(keyword, getAllFiles());
+	@Override
+	public List<SearchResult> searchKeywordRanked(String keyword, int offset, int limit) {
+		if (keyword.length() < 3) {
+			throw new IllegalArgumentException("Could not Search, Please Enter at least 3 letter to search");
+		}
+		long started = System.nanoTime();
+		try {
+			return db.searchRankedInDB(keyword, offset, limit);
+		} finally {
+			RANKED_SEARCH_TIMER.stop(started);
+		}
+	}
+
+	@Override
+	public int reindexSearch() {
+		return db.reindexSearchInDB();
 	}
 
 	@Override
@@ -160,4 +352,9 @@ public class EditorBO implements IEditorBO {
 		return db.segmentWords(text);
 	}
 
+	@Override
+	public CompletableFuture<?> warmUpAnalyzer() {
+		return db.warmUpAnalyzer();
+	}
+
 }
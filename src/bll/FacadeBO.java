@@ -3,8 +3,14 @@ package bll;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+import dto.SearchResult;
 
 public class FacadeBO implements IFacadeBO {
 
@@ -38,18 +44,48 @@ public class FacadeBO implements IFacadeBO {
 		return bo.importTextFiles(file, fileName);
 	}
 
+	@Override
+	public int importTextFiles(List<File> files) {
+		return bo.importTextFiles(files);
+	}
+
 	@Override
 	public Documents getFile(int id) {
 		// TODO Auto-generated method stub
 		return bo.getFile(id);
 	}
 
+	@Override
+	public void invalidate(int id) {
+		bo.invalidate(id);
+	}
+
 	@Override
 	public List<Documents> getAllFiles() {
 		// TODO Auto-generated method stub
 		return bo.getAllFiles();
 	}
 
+	@Override
+	public List<FileSummary> listFiles(FileSortOrder sort, boolean descending, FileSummary after, int limit) {
+		return bo.listFiles(sort, descending, after, limit);
+	}
+
+	@Override
+	public int countFiles() {
+		return bo.countFiles();
+	}
+
+	@Override
+	public List<FileChange> listChanges(long afterSequence, int limit) {
+		return bo.listChanges(afterSequence, limit);
+	}
+
+	@Override
+	public long lastChange() {
+		return bo.lastChange();
+	}
+
 	@Override
 	public String getFileExtension(String fileName) {
 		// TODO Auto-generated method stub
@@ -61,11 +97,26 @@ public class FacadeBO implements IFacadeBO {
 		return bo.transliterate(pageId, arabicText);
 	}
 
+	@Override
+	public void transliteratePages(List<Pages> pages) {
+		bo.transliteratePages(pages);
+	}
+
 	@Override
 	public List<String> searchKeyword(String keyword) {
 		return bo.searchKeyword(keyword);
 	}
 
+	@Override
+	public List<SearchResult> searchKeywordRanked(String keyword, int offset, int limit) {
+		return bo.searchKeywordRanked(keyword, offset, limit);
+	}
+
+	@Override
+	public int reindexSearch() {
+		return bo.reindexSearch();
+	}
+
 	@Override
 	public Map<String, String> lemmatizeWords(String text) {
 		// TODO Auto-generated method stub
@@ -114,4 +165,9 @@ public class FacadeBO implements IFacadeBO {
 		return bo.segmentWords(text);
 	}
 
+	@Override
+	public CompletableFuture<?> warmUpAnalyzer() {
+		return bo.warmUpAnalyzer();
+	}
+
 }
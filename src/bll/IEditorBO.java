@@ -3,8 +3,14 @@ package bll;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+import dto.SearchResult;
 
 public interface IEditorBO {
 	boolean createFile(String nameOfFile, String content);
@@ -15,16 +21,36 @@ public interface IEditorBO {
 
 	boolean importTextFiles(File file, String fileName);
 
+	int importTextFiles(List<File> files);
+
 	Documents getFile(int id);
 
+	/** Drops what is cached for the file, after it was changed somewhere else. */
+	void invalidate(int id);
+
 	List<Documents> getAllFiles();
 
+	/** A page of files after {@code after}, or null if they could not be read. */
+	List<FileSummary> listFiles(FileSortOrder sort, boolean descending, FileSummary after, int limit);
+
+	int countFiles();
+
+	List<FileChange> listChanges(long afterSequence, int limit);
+
+	long lastChange();
+
 	String getFileExtension(String fileName);
 
 	String transliterate(int pageId, String arabicText);
 
+	void transliteratePages(List<Pages> pages);
+
 	List<String> searchKeyword(String keyword);
 
+	List<SearchResult> searchKeywordRanked(String keyword, int offset, int limit);
+
+	int reindexSearch();
+
 	Map<String, String> lemmatizeWords(String text);
 
 	Map<String, List<String>> extractPOS(String text);
@@ -41,4 +67,7 @@ public interface IEditorBO {
 
 	Map<String, String> segmentWords(String text);
 
+	/** Starts loading the Arabic analyzer if it is not loading yet; completes once it is ready. */
+	CompletableFuture<?> warmUpAnalyzer();
+
 }
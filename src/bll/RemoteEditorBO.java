@@ -0,0 +1,387 @@
+package bll;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Json;
+import dto.Pages;
+import dto.SearchResult;
+import util.Metrics;
+
+/**
+ * Sends analysis, search and saves to an analysis server (see
+ * {@code pl.AnalysisServer}) and does everything else with the local business
+ * object, which should use the same database as the server. If the server
+ * cannot be reached or answers with an error, analysis and search are done
+ * locally instead. Saves are only repeated locally when the request never
+ * reached the server or was turned away unrun with 503; once a save may have
+ * run remotely, a failure is reported instead so it cannot be saved twice.
+ */
+public class RemoteEditorBO implements IFacadeBO {
+	private static final Logger logger = LogManager.getLogger(RemoteEditorBO.class);
+	private static final Metrics.Counter FALLBACKS = Metrics.counter("remote.fallbacks");
+
+	private static final int CONNECT_TIMEOUT = 2000;
+	private static final int READ_TIMEOUT = 60000;
+
+	private final IEditorBO local;
+	private final String baseUrl;
+
+	public RemoteEditorBO(IEditorBO local, String baseUrl) {
+		this.local = local;
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+	}
+
+	@Override
+	public boolean createFile(String nameOfFile, String content) {
+		try {
+			return (Boolean) ((Map<?, ?>) call("POST", "/files", body("name", nameOfFile, "content", content)))
+					.get("created");
+		} catch (NotSentException e) {
+			fallback("createFile", e);
+			return local.createFile(nameOfFile, content);
+		} catch (IOException | RuntimeException e) {
+			failed("createFile", e);
+			return false;
+		}
+	}
+
+	@Override
+	public boolean updateFile(int id, String fileName, int pageNumber, String content) {
+		try {
+			boolean updated = (Boolean) ((Map<?, ?>) call("PUT", "/files/" + id + "/pages/" + pageNumber,
+					body("name", fileName, "content", content))).get("updated");
+			if (updated) {
+				// saved through the server's business object, so the local cache still has the old copy
+				local.invalidate(id);
+			}
+			return updated;
+		} catch (NotSentException e) {
+			fallback("updateFile", e);
+			return local.updateFile(id, fileName, pageNumber, content);
+		} catch (IOException | RuntimeException e) {
+			failed("updateFile", e);
+			return false;
+		}
+	}
+
+	@Override
+	public boolean deleteFile(int id) {
+		return local.deleteFile(id);
+	}
+
+	@Override
+	public boolean importTextFiles(File file, String fileName) {
+		return local.importTextFiles(file, fileName);
+	}
+
+	@Override
+	public int importTextFiles(List<File> files) {
+		return local.importTextFiles(files);
+	}
+
+	@Override
+	public Documents getFile(int id) {
+		return local.getFile(id);
+	}
+
+	@Override
+	public void invalidate(int id) {
+		local.invalidate(id);
+	}
+
+	@Override
+	public List<Documents> getAllFiles() {
+		return local.getAllFiles();
+	}
+
+	@Override
+	public List<FileSummary> listFiles(FileSortOrder sort, boolean descending, FileSummary after, int limit) {
+		return local.listFiles(sort, descending, after, limit);
+	}
+
+	@Override
+	public int countFiles() {
+		return local.countFiles();
+	}
+
+	@Override
+	public List<FileChange> listChanges(long afterSequence, int limit) {
+		return local.listChanges(afterSequence, limit);
+	}
+
+	@Override
+	public long lastChange() {
+		return local.lastChange();
+	}
+
+	@Override
+	public String getFileExtension(String fileName) {
+		return local.getFileExtension(fileName);
+	}
+
+	@Override
+	public String transliterate(int pageId, String arabicText) {
+		return local.transliterate(pageId, arabicText);
+	}
+
+	@Override
+	public void transliteratePages(List<Pages> pages) {
+		local.transliteratePages(pages);
+	}
+
+	@Override
+	public List<String> searchKeyword(String keyword) {
+		try {
+			List<String> names = new ArrayList<>();
+			for (Object name : (List<?>) call("GET", "/search/files?q=" + encode(keyword), null)) {
+				names.add((String) name);
+			}
+			return names;
+		} catch (IOException | RuntimeException e) {
+			fallback("searchKeyword", e);
+			return local.searchKeyword(keyword);
+		}
+	}
+
+	@Override
+	public List<SearchResult> searchKeywordRanked(String keyword, int offset, int limit) {
+		try {
+			List<SearchResult> results = new ArrayList<>();
+			for (Object row : (List<?>) call("GET",
+					"/search?q=" + encode(keyword) + "&offset=" + offset + "&limit=" + limit, null)) {
+				Map<?, ?> result = (Map<?, ?>) row;
+				results.add(new SearchResult(((Number) result.get("fileId")).intValue(),
+						(String) result.get("fileName"), ((Number) result.get("pageNumber")).intValue(),
+						toDouble(result.get("score")), (String) result.get("snippet")));
+			}
+			return results;
+		} catch (IOException | RuntimeException e) {
+			fallback("searchKeywordRanked", e);
+			return local.searchKeywordRanked(keyword, offset, limit);
+		}
+	}
+
+	@Override
+	public int reindexSearch() {
+		return local.reindexSearch();
+	}
+
+	@Override
+	public Map<String, String> lemmatizeWords(String text) {
+		try {
+			return strings(analysis("lemmas", text));
+		} catch (IOException | RuntimeException e) {
+			fallback("lemmatizeWords", e);
+			return local.lemmatizeWords(text);
+		}
+	}
+
+	@Override
+	public Map<String, List<String>> extractPOS(String text) {
+		try {
+			Map<String, List<String>> tags = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : analysis("pos", text).entrySet()) {
+				List<String> values = new ArrayList<>();
+				for (Object value : (List<?>) entry.getValue()) {
+					values.add((String) value);
+				}
+				tags.put((String) entry.getKey(), values);
+			}
+			return tags;
+		} catch (IOException | RuntimeException e) {
+			fallback("extractPOS", e);
+			return local.extractPOS(text);
+		}
+	}
+
+	@Override
+	public Map<String, String> extractRoots(String text) {
+		try {
+			return strings(analysis("roots", text));
+		} catch (IOException | RuntimeException e) {
+			fallback("extractRoots", e);
+			return local.extractRoots(text);
+		}
+	}
+
+	@Override
+	public double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
+		try {
+			Map<String, Object> request = new LinkedHashMap<>();
+			request.put("corpus", unSelectedDocsContent);
+			request.put("document", selectedDocContent);
+			return toDouble(((Map<?, ?>) call("POST", "/tfidf", request)).get("score"));
+		} catch (IOException | RuntimeException e) {
+			fallback("performTFIDF", e);
+			return local.performTFIDF(unSelectedDocsContent, selectedDocContent);
+		}
+	}
+
+	@Override
+	public Map<String, Double> performPMI(String content) {
+		try {
+			return doubles(analysis("pmi", content));
+		} catch (IOException | RuntimeException e) {
+			fallback("performPMI", e);
+			return local.performPMI(content);
+		}
+	}
+
+	@Override
+	public Map<String, Double> performPKL(String content) {
+		try {
+			return doubles(analysis("pkl", content));
+		} catch (IOException | RuntimeException e) {
+			fallback("performPKL", e);
+			return local.performPKL(content);
+		}
+	}
+
+	@Override
+	public Map<String, String> stemWords(String text) {
+		try {
+			return strings(analysis("stems", text));
+		} catch (IOException | RuntimeException e) {
+			fallback("stemWords", e);
+			return local.stemWords(text);
+		}
+	}
+
+	@Override
+	public Map<String, String> segmentWords(String text) {
+		try {
+			return strings(analysis("segments", text));
+		} catch (IOException | RuntimeException e) {
+			fallback("segmentWords", e);
+			return local.segmentWords(text);
+		}
+	}
+
+	/** The local analyzer, which analysis falls back to while the server is unreachable. */
+	@Override
+	public CompletableFuture<?> warmUpAnalyzer() {
+		return local.warmUpAnalyzer();
+	}
+
+	private Map<?, ?> analysis(String name, String text) throws IOException {
+		return (Map<?, ?>) call("POST", "/analysis/" + name, body("text", text));
+	}
+
+	private Object call(String method, String path, Map<String, Object> request) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		try {
+			connection.setRequestMethod(method);
+			connection.setConnectTimeout(CONNECT_TIMEOUT);
+			connection.setReadTimeout(READ_TIMEOUT);
+			if (request != null) {
+				connection.setDoOutput(true);
+				connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+			}
+			try {
+				connection.connect();
+			} catch (IOException e) {
+				throw new NotSentException(method + " " + path + " could not connect", e);
+			}
+			if (request != null) {
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(Json.write(request).getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			int status = connection.getResponseCode();
+			if (status == HttpURLConnection.HTTP_UNAVAILABLE) {
+				// the server rejects requests its queue has no room for before running them
+				throw new NotSentException(method + " " + path + " answered " + status, null);
+			}
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IOException(method + " " + path + " answered " + status);
+			}
+			try (InputStream in = connection.getInputStream()) {
+				return Json.parse(read(in));
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private void fallback(String operation, Exception e) {
+		FALLBACKS.inc();
+		logger.warn("Analysis server unavailable for {}, running locally: {}", operation, e.toString());
+	}
+
+	private void failed(String operation, Exception e) {
+		logger.error("{} failed on the analysis server and may have run there, not repeating it locally: {}",
+				operation, e.toString());
+	}
+
+	/** The request did not run on the server, so doing it locally cannot apply it twice. */
+	private static class NotSentException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		NotSentException(String message, Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	private static Map<String, Object> body(String... namesAndValues) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			body.put(namesAndValues[i], namesAndValues[i + 1]);
+		}
+		return body;
+	}
+
+	private static Map<String, String> strings(Map<?, ?> json) {
+		Map<String, String> result = new LinkedHashMap<>();
+		for (Map.Entry<?, ?> entry : json.entrySet()) {
+			result.put((String) entry.getKey(), (String) entry.getValue());
+		}
+		return result;
+	}
+
+	private static Map<String, Double> doubles(Map<?, ?> json) {
+		Map<String, Double> result = new LinkedHashMap<>();
+		for (Map.Entry<?, ?> entry : json.entrySet()) {
+			result.put((String) entry.getKey(), toDouble(entry.getValue()));
+		}
+		return result;
+	}
+
+	private static double toDouble(Object value) {
+		// NaN and infinities travel as null
+		return value == null ? Double.NaN : ((Number) value).doubleValue();
+	}
+
+	private static String encode(String text) throws IOException {
+		return URLEncoder.encode(text, "UTF-8");
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -3,41 +3,42 @@ package bll;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import dto.Documents;
 import dto.Pages;
-import pl.EditorPO;
+import util.ArabicTokenizer;
 
 public class SearchWord {
 	public static List<String> searchKeyword(String keyword, List<Documents> docs) {
-		final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 		// TODO Auto-generated method stub
 		List<String> getFiles = new ArrayList<>();
 		if (keyword.length() < 3) {
 			throw new IllegalArgumentException("Could not Search, Please Enter at least 3 letter to search");
 		}
+		ArabicTokenizer tokenizer = ArabicTokenizer.whitespace();
 
 		for (Documents doc : docs) {
 			for (Pages page : doc.getPages()) {
 				String pageContent = page.getPageContent();
 				if (pageContent.contains(keyword)) {
 
-					String[] words = pageContent.split("\\s+");
+					tokenizer.reset(pageContent);
+					int prefixOffset = -1;
+					int prefixLength = 0;
 
-					for (int i = 0; i < words.length; i++) {
-						if (words[i].equalsIgnoreCase(keyword)) {
+					while (tokenizer.next()) {
+						if (tokenizer.tokenEquals(keyword, true)) {
 
 							String prefixWord;
-							if (i > 0) {
-								prefixWord = words[i - 1];
+							if (prefixOffset >= 0) {
+								prefixWord = pageContent.substring(prefixOffset, prefixOffset + prefixLength);
 							} else {
 								prefixWord = "";
 							}
 							getFiles.add(doc.getName() + " - " + prefixWord + " " + keyword + "...");
 							break;
 						}
+						prefixOffset = tokenizer.offset();
+						prefixLength = tokenizer.length();
 					}
 					break;
 				}
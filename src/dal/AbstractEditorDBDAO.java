@@ -0,0 +1,144 @@
+package dal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import dto.Pages;
+import util.FlightEvents;
+
+/**
+ * Analysis operations shared by every storage backend. Subclasses only provide
+ * how files, pages and transliterations are persisted.
+ */
+public abstract class AbstractEditorDBDAO implements IEditorDBDAO {
+
+	private final ExecutorService transliterationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "transliteration");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// pages waiting on the transliteration thread, so a repeated request does not queue them twice
+	private final Set<Integer> queuedPages = ConcurrentHashMap.newKeySet();
+
+	/** Queues the pages that are neither queued already nor transliterated for their current text. */
+	@Override
+	public void transliteratePagesInBackground(List<Pages> pages) {
+		List<Pages> batch = new ArrayList<>();
+		for (Pages page : pages) {
+			if (!isTransliterated(page.getPageId(), page.getPageContent()) && queuedPages.add(page.getPageId())) {
+				batch.add(page);
+			}
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		transliterationExecutor.execute(() -> {
+			try {
+				for (Pages page : batch) {
+					if (Thread.currentThread().isInterrupted()) {
+						return;
+					}
+					transliterateInDB(page.getPageId(), page.getPageContent());
+				}
+			} finally {
+				batch.forEach(page -> queuedPages.remove(page.getPageId()));
+			}
+		});
+	}
+
+	/**
+	 * Whether a transliteration of this text is at hand without transliterating
+	 * it. Backends that cannot tell cheaply answer false and leave it to
+	 * {@link #transliterateInDB(int, String)}.
+	 */
+	protected boolean isTransliterated(int pageId, String arabicText) {
+		return false;
+	}
+
+	/** Creates the files one at a time; backends with a faster path override this. */
+	@Override
+	public int bulkCreateFilesInDB(List<Map.Entry<String, String>> files) {
+		int created = 0;
+		for (Map.Entry<String, String> file : files) {
+			if (createFileInDB(file.getKey(), file.getValue())) {
+				created++;
+			}
+		}
+		return created;
+	}
+
+	@Override
+	public Map<String, String> lemmatizeWords(String text) {
+		// TODO Auto-generated method stub
+		return Lemmatization.lemmatizeWords(PreProcessText.preprocessText(text));
+	}
+
+	@Override
+	public Map<String, List<String>> extractPOS(String text) {
+		// TODO Auto-generated method stub
+		return POSTagger.extractPOS(PreProcessText.preprocessText(text));
+	}
+
+	@Override
+	public Map<String, String> extractRoots(String text) {
+		// TODO Auto-generated method stub
+		return RootExtraction.extractRoots(PreProcessText.preprocessText(text));
+	}
+
+	@Override
+	public double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
+		return performTFIDF(unSelectedDocsContent.spliterator(), selectedDocContent);
+	}
+
+	/** Scores the document against a corpus that is consumed one document at a time. */
+	protected double performTFIDF(Spliterator<String> corpus, String selectedDocContent) {
+		FlightEvents.Event event = FlightEvents.TFIDF.begin();
+		TFIDFCalculator tfidf = new TFIDFCalculator();
+		corpus.forEachRemaining(tfidf::addDocumentToCorpus);
+		double score = tfidf.calculateDocumentTfIdf(selectedDocContent);
+		event.set("documents", tfidf.getDocumentCount()).set("characters", selectedDocContent.length()).commit();
+		return score;
+	}
+
+	@Override
+	public Map<String, Double> performPMI(String content) {
+		// TODO Auto-generated method stub
+		PMICalculator pmi = new PMICalculator(content);
+		Map<String, Double> pmiScores = pmi.calculatePMIForAllBigrams();
+
+		return pmiScores;
+	}
+
+	@Override
+	public Map<String, Double> performPKL(String content) {
+		// TODO Auto-generated method stub
+		PKLCalculator pkl = new PKLCalculator(content);
+		Map<String, Double> pklScores = pkl.calculatePKLForAllWords();
+		return pklScores;
+	}
+
+	@Override
+	public Map<String, String> stemWords(String text) {
+		// TODO Auto-generated method stub
+		return Stemmation.stemWords(PreProcessText.preprocessText(text));
+	}
+
+	@Override
+	public Map<String, String> segmentWords(String text) {
+		// TODO Auto-generated method stub
+		return WordSegmentation.extractSegments(PreProcessText.preprocessText(text));
+	}
+
+	@Override
+	public CompletableFuture<?> warmUpAnalyzer() {
+		return AnalyzerLoader.warmUp();
+	}
+
+}
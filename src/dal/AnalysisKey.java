@@ -0,0 +1,33 @@
+package dal;
+
+/**
+ * Bounded key columns of the analysis tables. Words are trimmed and cut to
+ * {@link #MAX_LENGTH} characters so they fit an index, and the word hash covers
+ * the whole trimmed word so truncated words stay distinct. Analysis values are
+ * stored whole; their columns are indexed on a prefix instead.
+ *
+ * Both mirror the backfill in migration 004: {@code LEFT(TRIM(x), 191)} and
+ * {@code UPPER(MD5(TRIM(x)))}.
+ */
+public final class AnalysisKey {
+
+	public static final int MAX_LENGTH = 191;
+
+	private AnalysisKey() {
+	}
+
+	public static String key(String value) {
+		if (value == null) {
+			return null;
+		}
+		String trimmed = value.trim();
+		if (trimmed.codePointCount(0, trimmed.length()) <= MAX_LENGTH) {
+			return trimmed;
+		}
+		return trimmed.substring(0, trimmed.offsetByCodePoints(0, MAX_LENGTH));
+	}
+
+	public static String hash(String word) throws Exception {
+		return HashCalculator.calculateHash(word.trim());
+	}
+}
@@ -0,0 +1,115 @@
+package dal;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+import util.Metrics;
+
+/**
+ * Loads the AlKhalil dictionaries once, on a background thread. Call
+ * {@link #warmUp()} at startup; analysis code calls {@link #get()}, which waits
+ * for that load instead of starting its own. Further instances for
+ * {@link AnalyzerPool} are loaded on the same kind of background thread once the
+ * first is ready.
+ */
+public final class AnalyzerLoader {
+	private static final Logger LOGGER = LogManager.getLogger(AnalyzerLoader.class);
+	private static final Metrics.Timer TIMER = Metrics.timer("analyzer.warmup");
+
+	private static final CompletableFuture<AlKhalil2Analyzer> READY = new CompletableFuture<>();
+	private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+	private AnalyzerLoader() {
+	}
+
+	/** Starts loading the analyzer if no one has yet; completes when it is ready. */
+	public static CompletableFuture<AlKhalil2Analyzer> warmUp() {
+		if (STARTED.compareAndSet(false, true)) {
+			Thread loader = new Thread(AnalyzerLoader::load, "analyzer-warmup");
+			loader.setDaemon(true);
+			loader.setPriority(Thread.MIN_PRIORITY);
+			loader.start();
+		}
+		return READY;
+	}
+
+	/** Completes once the analyzer is loaded, without starting the load. */
+	public static CompletableFuture<AlKhalil2Analyzer> ready() {
+		return READY;
+	}
+
+	/** Waits for the analyzer; returns null if it could not be loaded. */
+	public static AlKhalil2Analyzer get() {
+		try {
+			return warmUp().join();
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Loads up to {@code count} more analyzers on a background thread after the
+	 * first one is ready, handing each to {@code ready} once it is warm. Loads
+	 * none if the library only offers its shared instance.
+	 */
+	public static void warmUpInstances(int count, Consumer<AlKhalil2Analyzer> ready) {
+		Constructor<AlKhalil2Analyzer> constructor = publicConstructor();
+		if (constructor == null) {
+			LOGGER.warn("AlKhalil analyzer only offers a shared instance, analysis threads will take turns");
+			return;
+		}
+		Thread loader = new Thread(() -> {
+			if (get() == null) {
+				return;
+			}
+			for (int i = 0; i < count; i++) {
+				long started = System.nanoTime();
+				try {
+					AlKhalil2Analyzer analyzer = constructor.newInstance();
+					analyzer.processToken("كتب");
+					TIMER.stop(started);
+					ready.accept(analyzer);
+				} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+					LOGGER.warn("Could not load another AlKhalil analyzer, keeping {}: {}", i + 1, e.toString());
+					return;
+				}
+			}
+		}, "analyzer-warmup-pool");
+		loader.setDaemon(true);
+		loader.setPriority(Thread.MIN_PRIORITY);
+		loader.start();
+	}
+
+	/** The public no-argument constructor, or null if the library keeps the analyzer a singleton. */
+	private static Constructor<AlKhalil2Analyzer> publicConstructor() {
+		try {
+			return AlKhalil2Analyzer.class.getConstructor();
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static void load() {
+		long started = System.nanoTime();
+		try {
+			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
+			if (analyzer == null) {
+				throw new IllegalStateException("Failed to initialize AlKhalil2Analyzer.");
+			}
+			// the first token pulls in the lazily loaded tables as well
+			analyzer.processToken("كتب");
+			TIMER.stop(started);
+			LOGGER.info("AlKhalil analyzer loaded in {} ms", (System.nanoTime() - started) / 1000000);
+			READY.complete(analyzer);
+		} catch (Throwable e) {
+			LOGGER.error("Could not load AlKhalil analyzer: {}", e.toString());
+			READY.completeExceptionally(e);
+		}
+	}
+}
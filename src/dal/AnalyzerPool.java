@@ -0,0 +1,103 @@
+package dal;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.oujda_nlp_team.AlKhalil2Analyzer;
+
+import util.Metrics;
+
+/**
+ * AlKhalil analyzers for concurrent analysis. AlKhalil2Analyzer is not safe to
+ * share between threads, so each borrowed instance is used by one thread until
+ * it is released. By default the pool holds only the instance
+ * {@link AnalyzerLoader} warmed up, and callers take turns. With
+ * {@code analyzer.pool.size} in config.properties above one, and a library that
+ * supports separate instances, AnalyzerLoader warms up the extra instances on
+ * its background thread and adds them as they become ready; analysis threads
+ * never load dictionaries themselves.
+ */
+public final class AnalyzerPool {
+	private static final Metrics.Timer WAIT = Metrics.timer("analyzer.pool.wait");
+
+	private static final LinkedBlockingQueue<AlKhalil2Analyzer> IDLE = new LinkedBlockingQueue<>();
+	private static final AtomicBoolean STARTED = new AtomicBoolean();
+	private static final AtomicInteger CREATED = new AtomicInteger();
+	private static final int CONFIGURED_SIZE = configuredSize();
+
+	private AnalyzerPool() {
+	}
+
+	/**
+	 * Takes an analyzer for the calling thread, waiting while all are busy;
+	 * returns null if none can be loaded.
+	 */
+	public static AlKhalil2Analyzer borrow() {
+		AlKhalil2Analyzer analyzer = IDLE.poll();
+		if (analyzer != null) {
+			return analyzer;
+		}
+		if (STARTED.compareAndSet(false, true)) {
+			analyzer = AnalyzerLoader.get();
+			if (analyzer == null) {
+				STARTED.set(false);
+				return null;
+			}
+			CREATED.incrementAndGet();
+			if (CONFIGURED_SIZE > 1) {
+				AnalyzerLoader.warmUpInstances(CONFIGURED_SIZE - 1, AnalyzerPool::add);
+			}
+			return analyzer;
+		}
+		long started = System.nanoTime();
+		try {
+			while ((analyzer = IDLE.poll(100, TimeUnit.MILLISECONDS)) == null) {
+				if (AnalyzerLoader.ready().isCompletedExceptionally()) {
+					return null;
+				}
+			}
+			return analyzer;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} finally {
+			WAIT.stop(started);
+		}
+	}
+
+	/** Returns an analyzer taken with {@link #borrow()}; null is ignored. */
+	public static void release(AlKhalil2Analyzer analyzer) {
+		if (analyzer != null) {
+			IDLE.offer(analyzer);
+		}
+	}
+
+	/** How many analyzers have been loaded so far. */
+	public static int size() {
+		return CREATED.get();
+	}
+
+	private static void add(AlKhalil2Analyzer analyzer) {
+		CREATED.incrementAndGet();
+		IDLE.offer(analyzer);
+	}
+
+	private static int configuredSize() {
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			Properties prop = new Properties();
+			prop.load(input);
+			String value = prop.getProperty("analyzer.pool.size");
+			if (value != null && !value.trim().isEmpty()) {
+				return Math.max(1, Integer.parseInt(value.trim()));
+			}
+		} catch (IOException | NumberFormatException e) {
+			// no config file or no valid size, share one analyzer
+		}
+		return 1;
+	}
+}
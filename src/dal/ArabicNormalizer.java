@@ -0,0 +1,141 @@
+package dal;
+
+import java.util.Arrays;
+
+import util.ArabicTokenizer;
+
+/**
+ * Single pass Arabic normalizer. Characters of the Arabic block are mapped
+ * through a lookup table (dropping harakat and tatweel, optionally folding
+ * alef, ya and taa marbuta variants) and written into a reusable buffer, which
+ * this object then exposes as a {@link CharSequence}.
+ *
+ * Instances are not thread safe; keep one per thread and reuse it.
+ */
+public class ArabicNormalizer implements CharSequence {
+
+	private static final char BLOCK_START = '\u0600';
+	private static final char BLOCK_END = '\u06FF';
+	private static final char DROP = '\0';
+
+	private final char[] table = new char[BLOCK_END - BLOCK_START + 1];
+	private final boolean arabicOnly;
+	private char[] buffer;
+	private int length;
+
+	public ArabicNormalizer() {
+		this(false, false);
+	}
+
+	/**
+	 * @param normalizeLetters fold أ إ آ ٱ to ا, ى to ي and ة to ه
+	 * @param arabicOnly       drop every character that is neither Arabic nor
+	 *                         whitespace, like
+	 *                         {@link PreProcessText#removeNonArabicCharacters}
+	 */
+	public ArabicNormalizer(boolean normalizeLetters, boolean arabicOnly) {
+		this.arabicOnly = arabicOnly;
+		this.buffer = new char[256];
+
+		for (char c = BLOCK_START; c <= BLOCK_END; c++) {
+			char mapped = c;
+			if (isHaraka(c) || c == '\u0640' || (arabicOnly && !ArabicTokenizer.isArabic(c))) {
+				mapped = DROP;
+			} else if (normalizeLetters) {
+				switch (c) {
+				case 'آ':
+				case 'أ':
+				case 'إ':
+				case 'ٱ':
+					mapped = 'ا';
+					break;
+				case 'ى':
+					mapped = 'ي';
+					break;
+				case 'ة':
+					mapped = 'ه';
+					break;
+				default:
+					break;
+				}
+			}
+			table[c - BLOCK_START] = mapped;
+		}
+	}
+
+	public ArabicNormalizer normalize(CharSequence text) {
+		int size = text.length();
+		ensureCapacity(size);
+		int n = 0;
+		for (int i = 0; i < size; i++) {
+			n = put(text.charAt(i), n);
+		}
+		length = n;
+		return this;
+	}
+
+	public ArabicNormalizer normalize(char[] text, int offset, int count) {
+		ensureCapacity(count);
+		int n = 0;
+		for (int i = offset; i < offset + count; i++) {
+			n = put(text[i], n);
+		}
+		length = n;
+		return this;
+	}
+
+	private int put(char c, int n) {
+		if (c >= BLOCK_START && c <= BLOCK_END) {
+			char mapped = table[c - BLOCK_START];
+			if (mapped != DROP) {
+				buffer[n++] = mapped;
+			}
+		} else if (!arabicOnly || ArabicTokenizer.isArabic(c) || ArabicTokenizer.isSpace(c)) {
+			buffer[n++] = c;
+		}
+		return n;
+	}
+
+	private void ensureCapacity(int size) {
+		if (buffer.length < size) {
+			buffer = Arrays.copyOf(buffer, Math.max(size, buffer.length * 2));
+		}
+	}
+
+	/** The backing buffer; only the first {@link #length()} chars are valid. */
+	public char[] buffer() {
+		return buffer;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+		}
+		return buffer[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+		}
+		return new String(buffer, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(buffer, 0, length);
+	}
+
+	static boolean isHaraka(char c) {
+		return (c >= '\u0610' && c <= '\u061A') || (c >= '\u064B' && c <= '\u065F') || c == '\u0670'
+				|| (c >= '\u06D6' && c <= '\u06DC') || (c >= '\u06DF' && c <= '\u06E4')
+				|| (c >= '\u06E7' && c <= '\u06E8') || (c >= '\u06EA' && c <= '\u06ED');
+	}
+}
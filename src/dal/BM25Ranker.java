@@ -0,0 +1,138 @@
+package dal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import util.ArabicTokenizer;
+
+/**
+ * Okapi BM25 over per-file term frequencies. Postings are added one query term
+ * at a time and only the best {@code offset + limit} files are kept when
+ * ranking, so a common term does not sort the whole corpus.
+ */
+public class BM25Ranker {
+
+	static final int MAX_TERM_LENGTH = 191;
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private final int documentCount;
+	private final double averageLength;
+	private final Map<Integer, Double> scores = new HashMap<>();
+
+	public BM25Ranker(int documentCount, double averageLength) {
+		this.documentCount = documentCount;
+		this.averageLength = averageLength > 0 ? averageLength : 1;
+	}
+
+	/** Adds the postings of one query term; the arrays hold one entry per file. */
+	public void addTerm(int[] fileIds, int[] termFrequencies, int[] documentLengths, int count) {
+		double idf = Math.log(1 + (documentCount - count + 0.5) / (count + 0.5));
+		for (int i = 0; i < count; i++) {
+			double tf = termFrequencies[i];
+			double norm = K1 * (1 - B + B * documentLengths[i] / averageLength);
+			double score = idf * tf * (K1 + 1) / (tf + norm);
+			scores.merge(fileIds[i], score, Double::sum);
+		}
+	}
+
+	public int matchCount() {
+		return scores.size();
+	}
+
+	public List<ScoredFile> top(int offset, int limit) {
+		int keep = offset + limit;
+		Comparator<ScoredFile> byRank = Comparator.comparingDouble((ScoredFile f) -> -f.getScore())
+				.thenComparingInt(ScoredFile::getFileId);
+		PriorityQueue<ScoredFile> heap = new PriorityQueue<>(Math.max(1, keep), byRank.reversed());
+
+		for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+			ScoredFile candidate = new ScoredFile(entry.getKey(), entry.getValue());
+			if (heap.size() < keep) {
+				heap.add(candidate);
+			} else if (byRank.compare(candidate, heap.peek()) < 0) {
+				heap.poll();
+				heap.add(candidate);
+			}
+		}
+
+		List<ScoredFile> ranked = new ArrayList<>(heap);
+		ranked.sort(byRank);
+		if (offset >= ranked.size()) {
+			return Collections.emptyList();
+		}
+		return ranked.subList(offset, ranked.size());
+	}
+
+	/** Term frequencies of text as stored in the pageterms table. */
+	public static Map<String, Integer> countTerms(String text) {
+		Map<String, Integer> terms = new HashMap<>();
+		for (String term : ArabicTokenizer.tokenize(PreProcessText.normalize(text))) {
+			if (term.length() <= MAX_TERM_LENGTH) {
+				terms.merge(term, 1, Integer::sum);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Returns up to radius words either side of the first word whose normalized
+	 * form is one of terms, or the start of the page if none matches.
+	 */
+	public static String snippet(String pageContent, Set<String> terms, int radius) {
+		ArabicTokenizer tokenizer = ArabicTokenizer.whitespace().reset(pageContent);
+		ArabicNormalizer normalizer = new ArabicNormalizer(false, true);
+		List<Integer> starts = new ArrayList<>();
+		List<Integer> ends = new ArrayList<>();
+		int match = -1;
+		boolean more = false;
+
+		while (tokenizer.next()) {
+			if (match >= 0 && starts.size() > match + radius) {
+				more = true;
+				break;
+			}
+			starts.add(tokenizer.offset());
+			ends.add(tokenizer.offset() + tokenizer.length());
+			if (match < 0 && terms.contains(normalizer.normalize(
+					pageContent.subSequence(tokenizer.offset(), tokenizer.offset() + tokenizer.length())).toString())) {
+				match = starts.size() - 1;
+			}
+		}
+		if (starts.isEmpty()) {
+			return "";
+		}
+		if (match < 0) {
+			match = 0;
+			more = more || starts.size() > radius + 1;
+		}
+		int from = Math.max(0, match - radius);
+		int to = Math.min(starts.size() - 1, match + radius);
+		more = more || to < starts.size() - 1;
+		return (from > 0 ? "..." : "") + pageContent.substring(starts.get(from), ends.get(to)) + (more ? "..." : "");
+	}
+
+	public static class ScoredFile {
+		private final int fileId;
+		private final double score;
+
+		public ScoredFile(int fileId, double score) {
+			this.fileId = fileId;
+			this.score = score;
+		}
+
+		public int getFileId() {
+			return fileId;
+		}
+
+		public double getScore() {
+			return score;
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package dal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import util.FlightEvents;
+
+/**
+ * Streams rows for several tables into temporary tab separated files and loads
+ * each one with {@code LOAD DATA LOCAL INFILE}. Unique and foreign key checks
+ * stay on. A local load skips rows it cannot insert with only a warning, so
+ * {@link #load()} fails unless every row of every table was loaded.
+ *
+ * Ids can be written relative to a base that is only known once the tables are
+ * locked: {@link #offset(String, long)} adds the base to a column in every table
+ * while loading.
+ *
+ * Tables are loaded in the order they were registered; register parents before
+ * children. The connection needs {@code allowLocalInfile=true} and the server
+ * {@code local_infile=ON}.
+ */
+public class BulkLoader implements AutoCloseable {
+
+	private final Connection conn;
+	private final List<Table> tables = new ArrayList<>();
+	private final Map<String, Long> offsets = new LinkedHashMap<>();
+	private boolean locked;
+
+	public BulkLoader(Connection conn) {
+		this.conn = conn;
+	}
+
+	public Table table(String name, String... columns) throws IOException {
+		Table table = new Table(name, columns);
+		tables.add(table);
+		return table;
+	}
+
+	/**
+	 * Write-locks every registered table until {@link #unlock()}. Unlocking
+	 * commits, so the caller's transaction must be committed or rolled back
+	 * before that.
+	 */
+	public void lock() throws SQLException {
+		StringBuilder sql = new StringBuilder("LOCK TABLES ");
+		for (int i = 0; i < tables.size(); i++) {
+			sql.append(i > 0 ? ", " : "").append(tables.get(i).name).append(" WRITE");
+		}
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute(sql.toString());
+		}
+		locked = true;
+	}
+
+	public void unlock() throws SQLException {
+		if (locked) {
+			try (Statement stmt = conn.createStatement()) {
+				stmt.execute("UNLOCK TABLES");
+			}
+			locked = false;
+		}
+	}
+
+	/** Adds {@code base} to the values of {@code column} in every table that has it. */
+	public void offset(String column, long base) {
+		offsets.put(column, base);
+	}
+
+	/** Loads every table inside the caller's transaction. */
+	public void load() throws SQLException, IOException {
+		try (Statement stmt = conn.createStatement()) {
+			for (Table table : tables) {
+				table.writer.close();
+				if (table.rows > 0) {
+					FlightEvents.Event event = FlightEvents.BATCH_FLUSH.begin();
+					int loaded = stmt.executeUpdate(table.loadStatement(offsets));
+					SQLWarning warning = stmt.getWarnings();
+					if (loaded != table.rows || warning != null) {
+						throw new SQLException("Loaded " + loaded + " of " + table.rows + " rows into " + table.name
+								+ (warning == null ? "" : ": " + warning.getMessage()), warning);
+					}
+					event.set("table", table.name).set("rows", table.rows).set("bytes", table.file.length()).commit();
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		for (Table table : tables) {
+			try {
+				table.writer.close();
+			} catch (IOException e) {
+				// the file is deleted below either way
+			}
+			table.file.delete();
+		}
+	}
+
+	public static class Table {
+		private final String name;
+		private final String[] columns;
+		private final File file;
+		private final Writer writer;
+		private int rows;
+
+		private Table(String name, String[] columns) throws IOException {
+			this.name = name;
+			this.columns = columns;
+			this.file = File.createTempFile("bulk-" + name + "-", ".tsv");
+			this.writer = new BufferedWriter(
+					new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+		}
+
+		public void row(Object... values) throws IOException {
+			if (values.length != columns.length) {
+				throw new IllegalArgumentException(
+						name + " expects " + columns.length + " values but got " + values.length);
+			}
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					writer.write('\t');
+				}
+				write(values[i]);
+			}
+			writer.write('\n');
+			rows++;
+		}
+
+		public int rows() {
+			return rows;
+		}
+
+		private void write(Object value) throws IOException {
+			if (value == null) {
+				writer.write("\\N");
+				return;
+			}
+			String text = value.toString();
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				switch (c) {
+				case '\\':
+					writer.write("\\\\");
+					break;
+				case '\t':
+					writer.write("\\t");
+					break;
+				case '\n':
+					writer.write("\\n");
+					break;
+				case '\r':
+					writer.write("\\r");
+					break;
+				case '\0':
+					writer.write("\\0");
+					break;
+				default:
+					writer.write(c);
+				}
+			}
+		}
+
+		String loadStatement(Map<String, Long> offsets) {
+			List<String> targets = new ArrayList<>();
+			List<String> shifted = new ArrayList<>();
+			for (String column : columns) {
+				Long base = offsets.get(column);
+				if (base == null) {
+					targets.add(column);
+				} else {
+					targets.add("@" + column);
+					shifted.add(column + " = @" + column + " + " + base);
+				}
+			}
+			return "LOAD DATA LOCAL INFILE '" + file.getAbsolutePath().replace("\\", "/").replace("'", "''")
+					+ "' INTO TABLE " + name + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' "
+					+ "LINES TERMINATED BY '\\n' (" + String.join(", ", targets) + ")"
+					+ (shifted.isEmpty() ? "" : " SET " + String.join(", ", shifted));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package dal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Forward-only cursor over the whole corpus, yielding one file's content at a
+ * time in fileId order. Rows are fetched from {@code pages} in batches of the
+ * given fetch size, so only the current file is ever held in memory.
+ *
+ * The connection must not be used for anything else until the cursor is
+ * closed, since the driver streams the result set.
+ */
+public class CorpusCursor implements Spliterator<String>, AutoCloseable {
+
+	/** Turns a stored pageContent value into the page's text. */
+	public interface PageDecoder {
+		String decode(int fileId, int pageNumber, String storedContent) throws IOException;
+	}
+
+	/** Receives each file of the corpus. */
+	public interface FileVisitor {
+		void visit(int fileId, String content) throws IOException;
+	}
+
+	private static final Logger LOGGER = LogManager.getLogger(CorpusCursor.class);
+	private static final String QUERY = "SELECT fileId, pageNumber, pageContent FROM pages ORDER BY fileId, pageNumber";
+
+	private final PreparedStatement stmt;
+	private final ResultSet rs;
+	private final PageDecoder decoder;
+	private boolean hasRow;
+	private int fileId;
+
+	public CorpusCursor(Connection conn, int fetchSize, PageDecoder decoder) throws SQLException {
+		this.decoder = decoder;
+		this.stmt = conn.prepareStatement(QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		try {
+			stmt.setFetchSize(fetchSize);
+			this.rs = stmt.executeQuery();
+			this.hasRow = rs.next();
+		} catch (SQLException e) {
+			stmt.close();
+			throw e;
+		}
+	}
+
+	/** Visits every remaining file, then closes the cursor. */
+	public void forEachFile(FileVisitor visitor) throws SQLException, IOException {
+		try {
+			while (hasRow) {
+				String content = readFile();
+				visitor.visit(fileId, content);
+			}
+		} finally {
+			close();
+		}
+	}
+
+	/** The id of the file most recently returned. */
+	public int fileId() {
+		return fileId;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super String> action) {
+		try {
+			if (!hasRow) {
+				return false;
+			}
+			action.accept(readFile());
+			return true;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public Spliterator<String> trySplit() {
+		return null;
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+	/** The remaining files as a sequential stream that closes the cursor when closed. */
+	public Stream<String> stream() {
+		return StreamSupport.stream(this, false).onClose(this::close);
+	}
+
+	@Override
+	public void close() {
+		try {
+			rs.close();
+			stmt.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	private String readFile() throws SQLException, IOException {
+		fileId = rs.getInt("fileId");
+		StringBuilder content = new StringBuilder();
+		do {
+			content.append(decoder.decode(fileId, rs.getInt("pageNumber"), rs.getString("pageContent")));
+			hasRow = rs.next();
+		} while (hasRow && rs.getInt("fileId") == fileId);
+		return content.toString();
+	}
+}
@@ -19,7 +19,7 @@ public class DatabaseConnection {
     private String url;
     private String username;
     private String password;
-    final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+    private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
 
     private DatabaseConnection() {
         try {
@@ -1,53 +1,116 @@
 package dal;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
 import dto.Pages;
+import dto.SearchResult;
 import pl.EditorPO;
+import util.FlightEvents;
+import util.StageTimer;
 
-public class EditorDBDAO implements IEditorDBDAO {
+public class EditorDBDAO extends AbstractEditorDBDAO {
 	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static final int SNIPPET_RADIUS = 5;
+	private static final int CORPUS_FETCH_SIZE = 64;
+	private static final int REINDEX_BATCH = 100;
 	Connection conn = null;
+	private final TransliterationCache transliterationCache = new TransliterationCache(512);
+	// page text lives here instead of pages.pageContent when pagestore.path is set
+	private PageStore pageStore;
+	private String codec = TextCodec.NONE;
+	private final StatementCache statements;
+	// parameter bytes of the batch being built, reported when it is flushed
+	private long batchBytes;
 
 	public EditorDBDAO() {
-		this.conn = DatabaseConnection.getInstance().getConnection();
+		this(DatabaseConnection.getInstance().getConnection());
+
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			Properties prop = new Properties();
+			prop.load(input);
+			String pageStorePath = prop.getProperty("pagestore.path");
+			if (pageStorePath != null && !pageStorePath.trim().isEmpty()) {
+				pageStore = new PageStore(new File(pageStorePath.trim()));
+			}
+			codec = prop.getProperty("storage.codec", TextCodec.NONE).trim();
+		} catch (IOException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
 
+	/** Works on the given connection with pages stored inline and no codec, ignoring config.properties. */
+	public EditorDBDAO(Connection conn) {
+		this.conn = conn;
+		this.statements = new StatementCache(conn, 64);
+		Runtime.getRuntime().addShutdownHook(new Thread(statements::close, "statement-cache"));
 	}
 
 	@Override
-	public synchronized boolean createFileInDB(String nameOfFile, String content) {
-		String hash = null;
-		List<Pages> pages = null;
+	public boolean createFileInDB(String nameOfFile, String content) {
+		// analysis runs before taking the lock, which only guards the connection
+		String hash;
+		List<Pages> pages;
+		List<PageAnalysis> analyses = new ArrayList<>();
+		long stage = StageTimer.start();
+		try {
+			hash = HashCalculator.calculateHash(content);
+			stage = StageTimer.lap("hash", stage);
+			pages = PaginationDAO.paginate(content);
+			stage = StageTimer.lap("paginate", stage);
+			SlowOperationLog.size("pages", pages.size());
+			for (Pages page : pages) {
+				analyses.add(analysePage(page.getPageNumber(), page.getPageContent()));
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+		return insertFile(nameOfFile, content, hash, pages, analyses);
+	}
 
-		String insertQuery = "INSERT INTO files (fileName, fileHash) VALUES (?, ?)";
+	private synchronized boolean insertFile(String nameOfFile, String content, String hash, List<Pages> pages,
+			List<PageAnalysis> analyses) {
+		String insertQuery = "INSERT INTO files (fileName, fileHash, tfidfScore) VALUES (?, ?, ?)";
 		String pageQuery = "INSERT INTO pages (fileId, pageNumber, pageContent) VALUES (?, ?, ?)";
-		String transliterateQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)";
-		;
-		String posQuery = "INSERT INTO pos (pageId, word, pos) VALUES (?, ?, ?)";
-		String lemmaQuery = "INSERT INTO lemmatization (pageId, word, lemma) VALUES (?, ?, ?)";
-		String rootQuery = "INSERT INTO rootextraction (pageId, word, root) VALUES (?, ?, ?)";
-		String stemQuery = "INSERT INTO stemmation (pageId, word, stem) VALUES (?, ?, ?)";
-		String segmentQuery = "INSERT INTO wordsegementation (pageId, word, segment) VALUES (?, ?, ?)";
+		String posQuery = "INSERT INTO pos (pageId, word, wordHash, pos) VALUES (?, ?, ?, ?)";
+		String lemmaQuery = "INSERT INTO lemmatization (pageId, word, wordHash, lemma) VALUES (?, ?, ?, ?)";
+		String rootQuery = "INSERT INTO rootextraction (pageId, word, wordHash, root) VALUES (?, ?, ?, ?)";
+		String stemQuery = "INSERT INTO stemmation (pageId, word, wordHash, stem) VALUES (?, ?, ?, ?)";
+		String segmentQuery = "INSERT INTO wordsegementation (pageId, word, wordHash, segment) VALUES (?, ?, ?, ?)";
 		String tfidfQuery = "INSERT INTO tfidf (fileId, tfidfScore) VALUES (?, ?)";
-		String pklQuery = "INSERT INTO pkl (pageId, word, pklScore) VALUES (?, ?, ?)";
-		String pmiQuery = "INSERT INTO pmi (pageId, word, pmiScore) VALUES (?, ?, ?)";
-		Map<String, String> analyticsMap = new HashMap<>();
-		Map<String, Double> scoreMap = new HashMap<>();
+		String pklQuery = "INSERT INTO pkl (pageId, word, wordHash, pklScore) VALUES (?, ?, ?, ?)";
+		String pmiQuery = "INSERT INTO pmi (pageId, word, wordHash, pmiScore) VALUES (?, ?, ?, ?)";
+		String termQuery = "INSERT INTO pageterms (term, fileId, pageId, frequency) VALUES (?, ?, ?, ?)";
+		String tokenCountQuery = "UPDATE files SET tokenCount = ? WHERE fileId = ?";
+		Map<String, String> analyticsMap;
+		Map<String, Double> scoreMap;
 
 //		PreparedStatement fileStmt = null;
-//		PreparedStatement transliteratetStmt = null;
 //		PreparedStatement posStmt = null;
 //		PreparedStatement lemmaStmt = null;
 //		PreparedStatement rootStmt = null;
@@ -56,61 +119,65 @@ public class EditorDBDAO implements IEditorDBDAO {
 //		PreparedStatement pklStmt = null;
 //		PreparedStatement pmiStmt = null;
 //		PreparedStatement tfidfStmt = null;
+		long stage = StageTimer.start();
+		// set once pages may be in the page store, which a rollback does not undo
+		int storedFile = -1;
 		try {
-
-			hash = HashCalculator.calculateHash(content);
-			pages = PaginationDAO.paginate(content);
-		} catch (Exception e) {
-			e.printStackTrace();
-			LOGGER.error(e.getMessage());
-		}
-
-		try (PreparedStatement fileStmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-				PreparedStatement pageStmt = conn.prepareStatement(pageQuery, PreparedStatement.RETURN_GENERATED_KEYS);
-				PreparedStatement transliteratetStmt = conn.prepareStatement(transliterateQuery);
-				PreparedStatement posStmt = conn.prepareStatement(posQuery);
-				PreparedStatement lemmaStmt = conn.prepareStatement(lemmaQuery);
-				PreparedStatement rootStmt = conn.prepareStatement(rootQuery);
-				PreparedStatement segmentStmt = conn.prepareStatement(segmentQuery);
-				PreparedStatement stemStmt = conn.prepareStatement(stemQuery);
-				PreparedStatement pklStmt = conn.prepareStatement(pklQuery);
-				PreparedStatement pmiStmt = conn.prepareStatement(pmiQuery);
-				PreparedStatement tfidfStmt = conn.prepareStatement(tfidfQuery)) {
-			conn = DatabaseConnection.getInstance().getConnection();
-			double tfidf = performTFIDF(getAllExistingFilesContent(conn), content);
+			// cached statements are owned by the StatementCache and must not be closed here
+			PreparedStatement fileStmt = statements.prepare(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
+			PreparedStatement pageStmt = statements.prepare(pageQuery, PreparedStatement.RETURN_GENERATED_KEYS);
+			PreparedStatement posStmt = statements.prepare(posQuery);
+			PreparedStatement lemmaStmt = statements.prepare(lemmaQuery);
+			PreparedStatement rootStmt = statements.prepare(rootQuery);
+			PreparedStatement segmentStmt = statements.prepare(segmentQuery);
+			PreparedStatement stemStmt = statements.prepare(stemQuery);
+			PreparedStatement pklStmt = statements.prepare(pklQuery);
+			PreparedStatement pmiStmt = statements.prepare(pmiQuery);
+			PreparedStatement tfidfStmt = statements.prepare(tfidfQuery);
+			PreparedStatement termStmt = statements.prepare(termQuery);
+			PreparedStatement tokenCountStmt = statements.prepare(tokenCountQuery);
+			double tfidf = scoreAgainstCorpus(content);
+			stage = StageTimer.lap("tfidf", stage);
 			conn.setAutoCommit(false);
 
 			// Insert into files table
 //			fileStmt = conn.prepareStatement(insertQuery, PreparedStatement.RETURN_GENERATED_KEYS);
 			fileStmt.setString(1, nameOfFile);
 			fileStmt.setString(2, hash);
+			fileStmt.setDouble(3, tfidf);
 			fileStmt.executeUpdate();
 
-			ResultSet fileRS = fileStmt.getGeneratedKeys();
-			fileRS.next();
-			int fileID = fileRS.getInt(1);
+			int fileID;
+			try (ResultSet fileRS = fileStmt.getGeneratedKeys()) {
+				fileRS.next();
+				fileID = fileRS.getInt(1);
+			}
+			for (PageAnalysis analysis : analyses) {
+				analysis.event.set("fileId", fileID).commit();
+			}
+			int tokenCount = 0;
 
-			for (Pages page : pages) {
+			for (int i = 0; i < pages.size(); i++) {
+				Pages page = pages.get(i);
+				PageAnalysis analysis = analyses.get(i);
 				// Insert into pages table
 //				pageStmt = conn.prepareStatement(pageQuery, PreparedStatement.RETURN_GENERATED_KEYS);
 				pageStmt.setInt(1, fileID);
 				pageStmt.setInt(2, page.getPageNumber());
-				pageStmt.setString(3, page.getPageContent());
+				pageStmt.setString(3, pageStore == null ? TextCodec.encode(page.getPageContent(), codec) : "");
 				pageStmt.executeUpdate();
 
-				ResultSet pageRS = pageStmt.getGeneratedKeys();
-				pageRS.next();
-				int pageId = pageRS.getInt(1);
+				int pageId;
+				try (ResultSet pageRS = pageStmt.getGeneratedKeys()) {
+					pageRS.next();
+					pageId = pageRS.getInt(1);
+				}
 
-				// Transliteration
-				String transliteratedText = Transliteration.transliterate(page.getPageContent());
-//				transliteratetStmt = conn.prepareStatement(transliterateQuery);
-				transliteratetStmt.setInt(1, pageId);
-				transliteratetStmt.setString(2, transliteratedText);
-				transliteratetStmt.executeUpdate();
+				stage = StageTimer.lap("insert", stage);
+				// Transliteration is computed lazily by transliterateInDB
 
 				// POS Tagging
-				Map<String, List<String>> posTagsMap = POSTagger.extractPOS(page.getPageContent());
+				Map<String, List<String>> posTagsMap = analysis.pos;
 
 //				posStmt = conn.prepareStatement(posQuery);
 
@@ -119,14 +186,12 @@ public class EditorDBDAO implements IEditorDBDAO {
 					List<String> posTags = entry.getValue();
 					String posTagString = String.join("|", posTags);
 
-					posStmt.setInt(1, pageId);
-					posStmt.setString(2, word);
-					posStmt.setString(3, posTagString);
-					posStmt.addBatch();
+					addBatch(posStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), posTagString);
 				}
-				posStmt.executeBatch();
+				flush("pos", posStmt);
+				stage = StageTimer.lap("insert", stage);
 
-				analyticsMap = Lemmatization.lemmatizeWords(page.getPageContent());
+				analyticsMap = analysis.lemmas;
 
 //				lemmaStmt = conn.prepareStatement(lemmaQuery);
 
@@ -135,13 +200,11 @@ public class EditorDBDAO implements IEditorDBDAO {
 					String lemma = entry.getValue();
 					String lemmaString = String.join("|", lemma);
 
-					lemmaStmt.setInt(1, pageId);
-					lemmaStmt.setString(2, word);
-					lemmaStmt.setString(3, lemmaString);
-					lemmaStmt.addBatch();
+					addBatch(lemmaStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), lemmaString);
 				}
-				lemmaStmt.executeBatch();
-				analyticsMap = RootExtraction.extractRoots(page.getPageContent());
+				flush("lemmatization", lemmaStmt);
+				stage = StageTimer.lap("insert", stage);
+				analyticsMap = analysis.roots;
 
 //				rootStmt = conn.prepareStatement(rootQuery);
 
@@ -150,14 +213,12 @@ public class EditorDBDAO implements IEditorDBDAO {
 					String root = entry.getValue();
 					String rootString = String.join("|", root);
 
-					rootStmt.setInt(1, pageId);
-					rootStmt.setString(2, word);
-					rootStmt.setString(3, rootString);
-					rootStmt.addBatch();
+					addBatch(rootStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), rootString);
 				}
-				rootStmt.executeBatch();
+				flush("rootextraction", rootStmt);
+				stage = StageTimer.lap("insert", stage);
 
-				analyticsMap = WordSegmentation.extractSegments(page.getPageContent());
+				analyticsMap = analysis.segments;
 //				segmentStmt = conn.prepareStatement(segmentQuery);
 
 				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
@@ -165,14 +226,12 @@ public class EditorDBDAO implements IEditorDBDAO {
 					String segment = entry.getValue();
 					String segmentString = String.join("|", segment);
 
-					segmentStmt.setInt(1, pageId);
-					segmentStmt.setString(2, word);
-					segmentStmt.setString(3, segmentString);
-					segmentStmt.addBatch();
+					addBatch(segmentStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), segmentString);
 				}
-				segmentStmt.executeBatch();
+				flush("wordsegementation", segmentStmt);
+				stage = StageTimer.lap("insert", stage);
 
-				analyticsMap = Stemmation.stemWords(page.getPageContent());
+				analyticsMap = analysis.stems;
 //				stemStmt = conn.prepareStatement(stemQuery);
 
 				for (Map.Entry<String, String> entry : analyticsMap.entrySet()) {
@@ -180,58 +239,80 @@ public class EditorDBDAO implements IEditorDBDAO {
 					String stem = entry.getValue();
 					String stemString = String.join("|", stem);
 
-					stemStmt.setInt(1, pageId);
-					stemStmt.setString(2, word);
-					stemStmt.setString(3, stemString);
-					stemStmt.addBatch();
+					addBatch(stemStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), stemString);
 				}
-				stemStmt.executeBatch();
+				flush("stemmation", stemStmt);
+				stage = StageTimer.lap("insert", stage);
 
-				scoreMap = performPKL(page.getPageContent());
+				scoreMap = analysis.pkl;
 //				pklStmt = conn.prepareStatement(pklQuery);
 
 				for (Map.Entry<String, Double> entry : scoreMap.entrySet()) {
 					String word = entry.getKey();
 					Double pkl = entry.getValue();
 
-					pklStmt.setInt(1, pageId);
-					pklStmt.setString(2, word);
-					pklStmt.setDouble(3, pkl);
-					pklStmt.addBatch();
+					addBatch(pklStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), pkl);
 				}
-				pklStmt.executeBatch();
+				flush("pkl", pklStmt);
+				stage = StageTimer.lap("insert", stage);
 
-				scoreMap = performPMI(page.getPageContent());
+				scoreMap = analysis.pmi;
 //				pmiStmt = conn.prepareStatement(pmiQuery);
 
 				for (Map.Entry<String, Double> entry : scoreMap.entrySet()) {
 					String word = entry.getKey();
 					Double pmi = entry.getValue();
 
-					pmiStmt.setInt(1, pageId);
-					pmiStmt.setString(2, word);
-					pmiStmt.setDouble(3, pmi);
-					pmiStmt.addBatch();
+					addBatch(pmiStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), pmi);
 				}
-				pmiStmt.executeBatch();
+				flush("pmi", pmiStmt);
+				stage = StageTimer.lap("insert", stage);
 
+				// Term frequencies for ranked search
+				for (Map.Entry<String, Integer> entry : analysis.terms.entrySet()) {
+					addBatch(termStmt, entry.getKey(), fileID, pageId, entry.getValue());
+					tokenCount += entry.getValue();
+				}
+				flush("pageterms", termStmt);
+				stage = StageTimer.lap("insert", stage);
 			}
 
+			SlowOperationLog.size("tokens", tokenCount);
+			tokenCountStmt.setInt(1, tokenCount);
+			tokenCountStmt.setInt(2, fileID);
+			tokenCountStmt.executeUpdate();
+
 //			tfidfStmt = conn.prepareStatement(tfidfQuery);
 			tfidfStmt.setInt(1, fileID);
 			tfidfStmt.setDouble(2, tfidf);
 			tfidfStmt.executeUpdate();
 
+			logChange(fileID, 0, FileChange.Type.CREATED);
+
+			if (pageStore != null) {
+				storedFile = fileID;
+				for (Pages page : pages) {
+					pageStore.write(fileID, page.getPageNumber(), page.getPageContent());
+				}
+				// the row about to commit holds no text, the page store must
+				pageStore.sync();
+			}
+			stage = StageTimer.lap("insert", stage);
 			conn.commit();
+			StageTimer.lap("commit", stage);
 			return true;
 
 		} catch (Exception e) {
+			batchBytes = 0;
 			try {
 				conn.rollback();
 			} catch (SQLException e1) {
 				e1.printStackTrace();
 				LOGGER.error(e1.getMessage());
 			}
+			if (storedFile != -1) {
+				deleteStoredPages(Collections.singleton(storedFile));
+			}
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 		}
@@ -239,8 +320,161 @@ public class EditorDBDAO implements IEditorDBDAO {
 		return false;
 	}
 
+	@Override
+	public int bulkCreateFilesInDB(List<Map.Entry<String, String>> files) {
+		List<Integer> storedFiles = new ArrayList<>();
+		try (BulkLoader loader = new BulkLoader(conn)) {
+			BulkLoader.Table fileRows = loader.table("files", "fileId", "fileName", "fileHash", "tokenCount",
+					"tfidfScore");
+			BulkLoader.Table pageRows = loader.table("pages", "pageId", "fileId", "pageNumber", "pageContent");
+			BulkLoader.Table tfidfRows = loader.table("tfidf", "fileId", "tfidfScore");
+			BulkLoader.Table posRows = loader.table("pos", "pageId", "word", "wordHash", "pos");
+			BulkLoader.Table lemmaRows = loader.table("lemmatization", "pageId", "word", "wordHash", "lemma");
+			BulkLoader.Table rootRows = loader.table("rootextraction", "pageId", "word", "wordHash", "root");
+			BulkLoader.Table segmentRows = loader.table("wordsegementation", "pageId", "word", "wordHash", "segment");
+			BulkLoader.Table stemRows = loader.table("stemmation", "pageId", "word", "wordHash", "stem");
+			BulkLoader.Table pklRows = loader.table("pkl", "pageId", "word", "wordHash", "pklScore");
+			BulkLoader.Table pmiRows = loader.table("pmi", "pageId", "word", "wordHash", "pmiScore");
+			BulkLoader.Table termRows = loader.table("pageterms", "term", "fileId", "pageId", "frequency");
+			BulkLoader.Table changeRows = loader.table("changelog", "fileId", "pageNumber", "changeType");
+
+			// ids are counted from zero here so analysis rows can reference pages before they
+			// are loaded, and shifted past the ids in use once the tables are locked
+			int fileId = 0;
+			int pageId = 0;
+
+			// each file is scored against the corpus before it, as if created one by one
+			TFIDFCalculator corpus = new TFIDFCalculator();
+			synchronized (this) {
+				new CorpusCursor(conn, CORPUS_FETCH_SIZE, this::pageContent)
+						.forEachFile((existingFileId, existingContent) -> corpus.addDocumentToCorpus(existingContent));
+			}
+			// analysis only writes to the temporary files, so it runs without the lock
+			Map<Integer, List<Pages>> storedPages = new HashMap<>();
+			for (Map.Entry<String, String> file : files) {
+				String content = file.getValue();
+				String hash = HashCalculator.calculateHash(content);
+				List<Pages> pages = PaginationDAO.paginate(content);
+				double tfidf = corpus.calculateDocumentTfIdf(content);
+				corpus.addDocumentToCorpus(content);
+				fileId++;
+
+				int tokenCount = 0;
+				for (Pages page : pages) {
+					pageId++;
+					String pageContent = page.getPageContent();
+					pageRows.row(pageId, fileId, page.getPageNumber(),
+							pageStore == null ? TextCodec.encode(pageContent, codec) : "");
+
+					for (Map.Entry<String, List<String>> entry : POSTagger.extractPOS(pageContent).entrySet()) {
+						posRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								String.join("|", entry.getValue()));
+					}
+					for (Map.Entry<String, String> entry : Lemmatization.lemmatizeWords(pageContent).entrySet()) {
+						lemmaRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, String> entry : RootExtraction.extractRoots(pageContent).entrySet()) {
+						rootRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, String> entry : WordSegmentation.extractSegments(pageContent).entrySet()) {
+						segmentRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, String> entry : Stemmation.stemWords(pageContent).entrySet()) {
+						stemRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, Double> entry : performPKL(pageContent).entrySet()) {
+						pklRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, Double> entry : performPMI(pageContent).entrySet()) {
+						pmiRows.row(pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+								entry.getValue());
+					}
+					for (Map.Entry<String, Integer> entry : BM25Ranker.countTerms(pageContent).entrySet()) {
+						termRows.row(entry.getKey(), fileId, pageId, entry.getValue());
+						tokenCount += entry.getValue();
+					}
+				}
+				fileRows.row(fileId, file.getKey(), hash, tokenCount, tfidf);
+				tfidfRows.row(fileId, tfidf);
+				changeRows.row(fileId, 0, FileChange.Type.CREATED.name());
+				storedPages.put(fileId, pages);
+			}
+
+			synchronized (this) {
+				conn.setAutoCommit(false);
+				loader.lock();
+				try {
+					int fileBase = lastId("files", "fileId");
+					int pageBase = lastId("pages", "pageId");
+					loader.offset("fileId", fileBase);
+					loader.offset("pageId", pageBase);
+					loader.load();
+					if (pageStore != null) {
+						for (Map.Entry<Integer, List<Pages>> file : storedPages.entrySet()) {
+							storedFiles.add(fileBase + file.getKey());
+							for (Pages page : file.getValue()) {
+								pageStore.write(fileBase + file.getKey(), page.getPageNumber(), page.getPageContent());
+							}
+						}
+						pageStore.sync();
+					}
+					conn.commit();
+				} catch (Exception e) {
+					conn.rollback();
+					throw e;
+				} finally {
+					// after the commit or rollback, since unlocking commits
+					loader.unlock();
+				}
+			}
+			LOGGER.info("Bulk loaded {} files ({} pages)", fileRows.rows(), pageRows.rows());
+			return fileRows.rows();
+		} catch (Exception e) {
+			// a failed load was rolled back above, with the lock held
+			deleteStoredPages(storedFiles);
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return 0;
+		}
+	}
+
+	/**
+	 * The highest id the table has used, including ids of deleted rows that
+	 * AUTO_INCREMENT has moved past. Only stable while the table is locked.
+	 */
+	private int lastId(String table, String column) throws SQLException {
+		PreparedStatement stmt = statements.prepare("SELECT GREATEST(COALESCE((SELECT MAX(" + column + ") FROM "
+				+ table + "), 0), COALESCE((SELECT AUTO_INCREMENT - 1 FROM information_schema.TABLES "
+				+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?), 0))");
+		stmt.setString(1, table);
+		try (ResultSet rs = statements.executeQuery(stmt)) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
 	@Override
 	public boolean updateFileInDB(int fileId, String fileName, int pageNumber, String content) {
+		// analysis runs before taking the lock, which only guards the connection
+		PageAnalysis analysis;
+		try {
+			analysis = analysePage(pageNumber, content);
+			analysis.event.set("fileId", fileId).commit();
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+		return writeUpdate(fileId, fileName, pageNumber, content, analysis);
+	}
+
+	private synchronized boolean writeUpdate(int fileId, String fileName, int pageNumber, String content,
+			PageAnalysis analysis) {
 
 		PreparedStatement fileStmt = null;
 		PreparedStatement pageStmt = null;
@@ -253,177 +487,221 @@ public class EditorDBDAO implements IEditorDBDAO {
 		PreparedStatement pklStmt = null;
 		PreparedStatement pmiStmt = null;
 		PreparedStatement tfidfStmt = null;
+		PreparedStatement termStmt = null;
 
+		// the page store version replaced by this update, put back if it does not commit
+		boolean stored = false;
+		String previousContent = null;
+		long stage = StageTimer.start();
 		try {
 
 			conn.setAutoCommit(false);
 
 			// Update file information
 			String fileQuery = "UPDATE files SET fileName = ?, lastModified = CURRENT_TIMESTAMP() WHERE fileId = ?";
-			fileStmt = conn.prepareStatement(fileQuery);
+			fileStmt = statements.prepare(fileQuery);
 			fileStmt.setString(1, fileName);
 			fileStmt.setInt(2, fileId);
 			fileStmt.executeUpdate();
 
 			// Update page content
-			String pageQuery = "UPDATE pages SET pageContent = ? WHERE fileId = ? AND pageNumber = ?";
-			pageStmt = conn.prepareStatement(pageQuery);
-			pageStmt.setString(1, content);
-			pageStmt.setInt(2, fileId);
-			pageStmt.setInt(3, pageNumber);
-			pageStmt.executeUpdate();
+			if (pageStore == null) {
+				String pageQuery = "UPDATE pages SET pageContent = ? WHERE fileId = ? AND pageNumber = ?";
+				pageStmt = statements.prepare(pageQuery);
+				pageStmt.setString(1, TextCodec.encode(content, codec));
+				pageStmt.setInt(2, fileId);
+				pageStmt.setInt(3, pageNumber);
+				pageStmt.executeUpdate();
+			}
 
 			// Get the pageId of the updated page
 			String pageIdQuery = "SELECT pageId FROM pages WHERE fileId = ? AND pageNumber = ?";
-			PreparedStatement pageIdStmt = conn.prepareStatement(pageIdQuery);
+			PreparedStatement pageIdStmt = statements.prepare(pageIdQuery);
 			pageIdStmt.setInt(1, fileId);
 			pageIdStmt.setInt(2, pageNumber);
-			ResultSet pageIdRS = pageIdStmt.executeQuery();
-			if (!pageIdRS.next()) {
-				throw new SQLException("Page not found for the given fileId and pageNumber");
+			int pageId;
+			try (ResultSet pageIdRS = statements.executeQuery(pageIdStmt)) {
+				if (!pageIdRS.next()) {
+					throw new SQLException("Page not found for the given fileId and pageNumber");
+				}
+				pageId = pageIdRS.getInt("pageId");
 			}
-			int pageId = pageIdRS.getInt("pageId");
 
 //	        // Update transliteration
 //	        String transliteratedText = Transliteration.transliterate(content);
 //	        String transliterateQuery = "UPDATE transliteratedpages SET transliteratedText = ? WHERE pageId = ?";
-//	        transliterateStmt = conn.prepareStatement(transliterateQuery);
+//	        transliterateStmt = statements.prepare(transliterateQuery);
 //	        transliterateStmt.setString(1, transliteratedText);
 //	        transliterateStmt.setInt(2, pageId);
 //	        transliterateStmt.executeUpdate();
 
+			stage = StageTimer.lap("insert", stage);
 			// Update POS tagging
-			Map<String, List<String>> posTagsMap = POSTagger.extractPOS(content);
+			Map<String, List<String>> posTagsMap = analysis.pos;
 			String deletePosQuery = "DELETE FROM pos WHERE pageId = ?";
-			posStmt = conn.prepareStatement(deletePosQuery);
+			posStmt = statements.prepare(deletePosQuery);
 			posStmt.setInt(1, pageId);
 			posStmt.executeUpdate();
 
-			String insertPosQuery = "INSERT INTO pos (pageId, word, pos) VALUES (?, ?, ?)";
-			posStmt = conn.prepareStatement(insertPosQuery);
+			String insertPosQuery = "INSERT INTO pos (pageId, word, wordHash, pos) VALUES (?, ?, ?, ?)";
+			posStmt = statements.prepare(insertPosQuery);
 			for (Map.Entry<String, List<String>> entry : posTagsMap.entrySet()) {
 				String word = entry.getKey();
 				String posTags = String.join("|", entry.getValue());
-				posStmt.setInt(1, pageId);
-				posStmt.setString(2, word);
-				posStmt.setString(3, posTags);
-				posStmt.addBatch();
+				addBatch(posStmt, pageId, AnalysisKey.key(word), AnalysisKey.hash(word), posTags);
 			}
-			posStmt.executeBatch();
+			flush("pos", posStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update lemmatization
-			Map<String, String> lemmaMap = Lemmatization.lemmatizeWords(content);
+			Map<String, String> lemmaMap = analysis.lemmas;
 			String deleteLemmaQuery = "DELETE FROM lemmatization WHERE pageId = ?";
-			lemmaStmt = conn.prepareStatement(deleteLemmaQuery);
+			lemmaStmt = statements.prepare(deleteLemmaQuery);
 			lemmaStmt.setInt(1, pageId);
 			lemmaStmt.executeUpdate();
 
-			String insertLemmaQuery = "INSERT INTO lemmatization (pageId, word, lemma) VALUES (?, ?, ?)";
-			lemmaStmt = conn.prepareStatement(insertLemmaQuery);
+			String insertLemmaQuery = "INSERT INTO lemmatization (pageId, word, wordHash, lemma) VALUES (?, ?, ?, ?)";
+			lemmaStmt = statements.prepare(insertLemmaQuery);
 			for (Map.Entry<String, String> entry : lemmaMap.entrySet()) {
-				lemmaStmt.setInt(1, pageId);
-				lemmaStmt.setString(2, entry.getKey());
-				lemmaStmt.setString(3, entry.getValue());
-				lemmaStmt.addBatch();
+				addBatch(lemmaStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
 			}
-			lemmaStmt.executeBatch();
+			flush("lemmatization", lemmaStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update root extraction
-			Map<String, String> rootMap = RootExtraction.extractRoots(content);
+			Map<String, String> rootMap = analysis.roots;
 			String deleteRootQuery = "DELETE FROM rootextraction WHERE pageId = ?";
-			rootStmt = conn.prepareStatement(deleteRootQuery);
+			rootStmt = statements.prepare(deleteRootQuery);
 			rootStmt.setInt(1, pageId);
 			rootStmt.executeUpdate();
 
-			String insertRootQuery = "INSERT INTO rootextraction (pageId, word, root) VALUES (?, ?, ?)";
-			rootStmt = conn.prepareStatement(insertRootQuery);
+			String insertRootQuery = "INSERT INTO rootextraction (pageId, word, wordHash, root) VALUES (?, ?, ?, ?)";
+			rootStmt = statements.prepare(insertRootQuery);
 			for (Map.Entry<String, String> entry : rootMap.entrySet()) {
-				rootStmt.setInt(1, pageId);
-				rootStmt.setString(2, entry.getKey());
-				rootStmt.setString(3, entry.getValue());
-				rootStmt.addBatch();
+				addBatch(rootStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
 			}
-			rootStmt.executeBatch();
+			flush("rootextraction", rootStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update word segmentation
-			Map<String, String> segmentMap = WordSegmentation.extractSegments(content);
+			Map<String, String> segmentMap = analysis.segments;
 			String deleteSegmentQuery = "DELETE FROM wordsegementation WHERE pageId = ?";
-			segmentStmt = conn.prepareStatement(deleteSegmentQuery);
+			segmentStmt = statements.prepare(deleteSegmentQuery);
 			segmentStmt.setInt(1, pageId);
 			segmentStmt.executeUpdate();
 
-			String insertSegmentQuery = "INSERT INTO wordsegementation (pageId, word, segment) VALUES (?, ?, ?)";
-			segmentStmt = conn.prepareStatement(insertSegmentQuery);
+			String insertSegmentQuery = "INSERT INTO wordsegementation (pageId, word, wordHash, segment) VALUES (?, ?, ?, ?)";
+			segmentStmt = statements.prepare(insertSegmentQuery);
 			for (Map.Entry<String, String> entry : segmentMap.entrySet()) {
-				segmentStmt.setInt(1, pageId);
-				segmentStmt.setString(2, entry.getKey());
-				segmentStmt.setString(3, entry.getValue());
-				segmentStmt.addBatch();
+				addBatch(segmentStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
 			}
-			segmentStmt.executeBatch();
+			flush("wordsegementation", segmentStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update stemming
-			Map<String, String> stemMap = Stemmation.stemWords(content);
+			Map<String, String> stemMap = analysis.stems;
 			String deleteStemQuery = "DELETE FROM stemmation WHERE pageId = ?";
-			stemStmt = conn.prepareStatement(deleteStemQuery);
+			stemStmt = statements.prepare(deleteStemQuery);
 			stemStmt.setInt(1, pageId);
 			stemStmt.executeUpdate();
 
-			String insertStemQuery = "INSERT INTO stemmation (pageId, word, stem) VALUES (?, ?, ?)";
-			stemStmt = conn.prepareStatement(insertStemQuery);
+			String insertStemQuery = "INSERT INTO stemmation (pageId, word, wordHash, stem) VALUES (?, ?, ?, ?)";
+			stemStmt = statements.prepare(insertStemQuery);
 			for (Map.Entry<String, String> entry : stemMap.entrySet()) {
-				stemStmt.setInt(1, pageId);
-				stemStmt.setString(2, entry.getKey());
-				stemStmt.setString(3, entry.getValue());
-				stemStmt.addBatch();
+				addBatch(stemStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
 			}
-			stemStmt.executeBatch();
+			flush("stemmation", stemStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update PKL
-			Map<String, Double> pklMap = performPKL(content);
+			Map<String, Double> pklMap = analysis.pkl;
 			String deletePklQuery = "DELETE FROM pkl WHERE pageId = ?";
-			pklStmt = conn.prepareStatement(deletePklQuery);
+			pklStmt = statements.prepare(deletePklQuery);
 			pklStmt.setInt(1, pageId);
 			pklStmt.executeUpdate();
 
-			String insertPklQuery = "INSERT INTO pkl (pageId, word, pklScore) VALUES (?, ?, ?)";
-			pklStmt = conn.prepareStatement(insertPklQuery);
+			String insertPklQuery = "INSERT INTO pkl (pageId, word, wordHash, pklScore) VALUES (?, ?, ?, ?)";
+			pklStmt = statements.prepare(insertPklQuery);
 			for (Map.Entry<String, Double> entry : pklMap.entrySet()) {
-				pklStmt.setInt(1, pageId);
-				pklStmt.setString(2, entry.getKey());
-				pklStmt.setDouble(3, entry.getValue());
-				pklStmt.addBatch();
+				addBatch(pklStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
 			}
-			pklStmt.executeBatch();
+			flush("pkl", pklStmt);
+			stage = StageTimer.lap("insert", stage);
 
 			// Update PMI
-			Map<String, Double> pmiMap = performPMI(content);
+			Map<String, Double> pmiMap = analysis.pmi;
 			String deletePmiQuery = "DELETE FROM pmi WHERE pageId = ?";
-			pmiStmt = conn.prepareStatement(deletePmiQuery);
+			pmiStmt = statements.prepare(deletePmiQuery);
 			pmiStmt.setInt(1, pageId);
 			pmiStmt.executeUpdate();
 
-			String insertPmiQuery = "INSERT INTO pmi (pageId, word, pmiScore) VALUES (?, ?, ?)";
-			pmiStmt = conn.prepareStatement(insertPmiQuery);
+			String insertPmiQuery = "INSERT INTO pmi (pageId, word, wordHash, pmiScore) VALUES (?, ?, ?, ?)";
+			pmiStmt = statements.prepare(insertPmiQuery);
 			for (Map.Entry<String, Double> entry : pmiMap.entrySet()) {
-				pmiStmt.setInt(1, pageId);
-				pmiStmt.setString(2, entry.getKey());
-				pmiStmt.setDouble(3, entry.getValue());
-				pmiStmt.addBatch();
+				addBatch(pmiStmt, pageId, AnalysisKey.key(entry.getKey()), AnalysisKey.hash(entry.getKey()),
+						entry.getValue());
+			}
+			flush("pmi", pmiStmt);
+			stage = StageTimer.lap("insert", stage);
+
+			// Update search term frequencies
+			String deleteTermQuery = "DELETE FROM pageterms WHERE pageId = ?";
+			termStmt = statements.prepare(deleteTermQuery);
+			termStmt.setInt(1, pageId);
+			termStmt.executeUpdate();
+
+			String insertTermQuery = "INSERT INTO pageterms (term, fileId, pageId, frequency) VALUES (?, ?, ?, ?)";
+			termStmt = statements.prepare(insertTermQuery);
+			int pageTokens = 0;
+			for (Map.Entry<String, Integer> entry : analysis.terms.entrySet()) {
+				addBatch(termStmt, entry.getKey(), fileId, pageId, entry.getValue());
+				pageTokens += entry.getValue();
 			}
-			pmiStmt.executeBatch();
+			flush("pageterms", termStmt);
+			SlowOperationLog.size("tokens", pageTokens);
+
+			String tokenCountQuery = "UPDATE files SET tokenCount = "
+					+ "(SELECT COALESCE(SUM(frequency), 0) FROM pageterms WHERE fileId = ?) WHERE fileId = ?";
+			termStmt = statements.prepare(tokenCountQuery);
+			termStmt.setInt(1, fileId);
+			termStmt.setInt(2, fileId);
+			termStmt.executeUpdate();
 
 			// Update TF-IDF
-			double tfidf = performTFIDF(getAllExistingFilesContent(conn), content);
+			stage = StageTimer.lap("insert", stage);
+			double tfidf = scoreAgainstCorpus(content);
+			stage = StageTimer.lap("tfidf", stage);
 			String tfidfQuery = "UPDATE tfidf SET tfidfScore = ? WHERE fileId = ?";
-			tfidfStmt = conn.prepareStatement(tfidfQuery);
+			tfidfStmt = statements.prepare(tfidfQuery);
+			tfidfStmt.setDouble(1, tfidf);
+			tfidfStmt.setInt(2, fileId);
+			tfidfStmt.executeUpdate();
+
+			// denormalized copy that the file listing sorts on
+			tfidfStmt = statements.prepare("UPDATE files SET tfidfScore = ? WHERE fileId = ?");
 			tfidfStmt.setDouble(1, tfidf);
 			tfidfStmt.setInt(2, fileId);
 			tfidfStmt.executeUpdate();
 
+			logChange(fileId, pageNumber, FileChange.Type.UPDATED);
+
+			if (pageStore != null) {
+				previousContent = pageStore.read(fileId, pageNumber);
+				stored = true;
+				pageStore.write(fileId, pageNumber, content);
+				pageStore.sync();
+			}
+			stage = StageTimer.lap("insert", stage);
 			conn.commit();
+			StageTimer.lap("commit", stage);
 			return true;
 		} catch (Exception e) {
+			batchBytes = 0;
 			try {
 
 				conn.rollback();
@@ -432,6 +710,9 @@ public class EditorDBDAO implements IEditorDBDAO {
 				rollbackEx.printStackTrace();
 				LOGGER.error(rollbackEx.getMessage());
 			}
+			if (stored) {
+				restoreStoredPage(fileId, pageNumber, previousContent);
+			}
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
@@ -439,16 +720,31 @@ public class EditorDBDAO implements IEditorDBDAO {
 	}
 
 	@Override
-	public boolean deleteFileInDB(int id) {
+	public synchronized boolean deleteFileInDB(int id) {
 		String query = "DELETE FROM FILES WHERE fileId = ?";
-		try (PreparedStatement fileStmt = conn.prepareStatement(query)) {
+		try {
+			conn.setAutoCommit(false);
+			PreparedStatement fileStmt = statements.prepare(query);
 
 			fileStmt.setInt(1, id);
 			int rowsAffected = fileStmt.executeUpdate();
+			if (rowsAffected > 0) {
+				logChange(id, 0, FileChange.Type.DELETED);
+			}
+			conn.commit();
 
+			if (pageStore != null) {
+				pageStore.deleteFile(id);
+			}
 			return rowsAffected > 0;
 
-		} catch (SQLException e) {
+		} catch (SQLException | IOException e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+				LOGGER.error(e1.getMessage());
+			}
 			e.printStackTrace();
 			LOGGER.error(e.getMessage());
 			return false;
@@ -474,39 +770,38 @@ public class EditorDBDAO implements IEditorDBDAO {
 //	}
 
 	@Override
-	public List<Documents> getFilesFromDB() {
+	public synchronized List<Documents> getFilesFromDB() {
 		List<Documents> documents = new ArrayList<>();
 
-		PreparedStatement stmt = null;
-		String query = null;
-		ResultSet rs;
+		String query = "SELECT fileId, fileName, filehash, dateCreated, lastModified FROM files";
+		String query1 = "SELECT pageId, fileId, pageNumber, pageContent FROM pages where fileId = ?";
 
 		try {
 
 			conn.setAutoCommit(false);
-			query = "SELECT fileId, fileName, filehash, dateCreated, lastModified FROM files";
-			stmt = conn.prepareStatement(query);
-			rs = stmt.executeQuery();
-
-			while (rs.next()) {
-				int id = rs.getInt("fileId");
-				String name = rs.getString("fileName");
-				String hash = rs.getString("fileHash");
-				String lastModified = rs.getString("lastModified");
-				String dateCreated = rs.getString("dateCreated");
-
-				String query1 = "SELECT pageId, fileId, pageNumber, pageContent FROM pages where fileId = ?";
-				PreparedStatement stmt1 = conn.prepareStatement(query1);
-				stmt1.setInt(1, id);
-				ResultSet rs1 = stmt1.executeQuery();
-				List<Pages> pages = new ArrayList<Pages>();
-
-				while (rs1.next()) {
-					pages.add(new Pages(rs1.getInt("pageId"), rs1.getInt("fileId"), rs1.getInt("pageNumber"),
-							rs1.getString("pageContent")));
+			PreparedStatement stmt = statements.prepare(query);
+			PreparedStatement stmt1 = statements.prepare(query1);
+
+			try (ResultSet rs = statements.executeQuery(stmt)) {
+				while (rs.next()) {
+					int id = rs.getInt("fileId");
+					String name = rs.getString("fileName");
+					String hash = rs.getString("fileHash");
+					String lastModified = rs.getString("lastModified");
+					String dateCreated = rs.getString("dateCreated");
+
+					stmt1.setInt(1, id);
+					List<Pages> pages = new ArrayList<Pages>();
+					try (ResultSet rs1 = statements.executeQuery(stmt1)) {
+						while (rs1.next()) {
+							pages.add(new Pages(rs1.getInt("pageId"), rs1.getInt("fileId"), rs1.getInt("pageNumber"),
+									pageContent(rs1.getInt("fileId"), rs1.getInt("pageNumber"),
+											rs1.getString("pageContent"))));
+						}
+					}
+
+					documents.add(new Documents(id, name, hash, lastModified, dateCreated, pages));
 				}
-
-				documents.add(new Documents(id, name, hash, lastModified, dateCreated, pages));
 			}
 			conn.commit();
 		} catch (Exception e) {
@@ -522,33 +817,215 @@ public class EditorDBDAO implements IEditorDBDAO {
 	}
 
 	@Override
-	public String transliterateInDB(int pageId, String arabicText) {
-		String content;
-		String deleteQuery = "DELETE FROM transliteratedpages WHERE pageId = ?";
-		String insertQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText) VALUES (?, ?)";
+	public synchronized Documents getFileFromDB(int id) {
+		String fileQuery = "SELECT fileId, fileName, fileHash, dateCreated, lastModified FROM files WHERE fileId = ?";
+		String pageQuery = "SELECT pageId, fileId, pageNumber, pageContent FROM pages WHERE fileId = ? ORDER BY pageNumber";
 
 		try {
-			// Ensure the transliteration result is valid
-			content = Transliteration.transliterate(arabicText);
+			conn.setAutoCommit(false);
+			PreparedStatement fileStmt = statements.prepare(fileQuery);
+			PreparedStatement pageStmt = statements.prepare(pageQuery);
+			fileStmt.setInt(1, id);
+			Documents document = null;
+			try (ResultSet rs = statements.executeQuery(fileStmt)) {
+				if (rs.next()) {
+					pageStmt.setInt(1, id);
+					List<Pages> pages = new ArrayList<>();
+					try (ResultSet pageRS = statements.executeQuery(pageStmt)) {
+						while (pageRS.next()) {
+							pages.add(new Pages(pageRS.getInt("pageId"), id, pageRS.getInt("pageNumber"),
+									pageContent(id, pageRS.getInt("pageNumber"), pageRS.getString("pageContent"))));
+						}
+					}
+					document = new Documents(id, rs.getString("fileName"), rs.getString("fileHash"),
+							rs.getString("lastModified"), rs.getString("dateCreated"), pages);
+				}
+			}
+			conn.commit();
+			return document;
+		} catch (Exception e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return null;
+		}
+	}
 
-			// Begin transaction
+	/** The file's lastModified, or null if there is no such file. */
+	@Override
+	public synchronized String lastModifiedInDB(int id) {
+		try {
 			conn.setAutoCommit(false);
+			PreparedStatement stmt = statements.prepare("SELECT lastModified FROM files WHERE fileId = ?");
+			stmt.setInt(1, id);
+			String lastModified = null;
+			try (ResultSet rs = statements.executeQuery(stmt)) {
+				if (rs.next()) {
+					lastModified = rs.getString("lastModified");
+				}
+			}
+			// end the read so the next check sees rows committed since
+			conn.commit();
+			return lastModified;
+		} catch (SQLException e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return null;
+		}
+	}
 
-			// Delete existing entries
-			try (PreparedStatement deleteStmt = conn.prepareStatement(deleteQuery)) {
-				deleteStmt.setInt(1, pageId);
-				deleteStmt.executeUpdate();
+	@Override
+	public synchronized List<FileSummary> listFilesInDB(FileSortOrder sort, boolean descending, FileSummary after,
+			int limit) {
+		List<FileSummary> files = new ArrayList<>();
+
+		// keyset pagination: seek past the last row shown instead of skipping an OFFSET
+		String column = sort.getColumn();
+		String direction = descending ? " DESC" : " ASC";
+		String comparison = descending ? " < ?" : " > ?";
+		String query = "SELECT fileId, fileName, lastModified, dateCreated, tfidfScore FROM files"
+				+ (after == null ? ""
+						: " WHERE " + column + comparison + " OR (" + column + " = ? AND fileId" + comparison + ")")
+				+ " ORDER BY " + column + direction + ", fileId" + direction + " LIMIT ?";
+
+		try {
+			conn.setAutoCommit(false);
+			PreparedStatement stmt = statements.prepare(query);
+			int index = 1;
+			if (after != null) {
+				Object key = sort.keyOf(after);
+				stmt.setObject(index++, key);
+				stmt.setObject(index++, key);
+				stmt.setInt(index++, after.getFileId());
 			}
+			stmt.setInt(index, limit);
 
-			// Insert new transliterated content
-			try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-				insertStmt.setInt(1, pageId);
-				insertStmt.setString(2, content);
-				insertStmt.executeUpdate();
+			try (ResultSet rs = statements.executeQuery(stmt)) {
+				while (rs.next()) {
+					files.add(new FileSummary(rs.getInt("fileId"), rs.getString("fileName"),
+							rs.getString("lastModified"), rs.getString("dateCreated"), rs.getDouble("tfidfScore")));
+				}
 			}
+			conn.commit();
+		} catch (SQLException e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return null;
+		}
+		return files;
+	}
 
-			// Commit transaction
+	@Override
+	public synchronized int countFilesInDB() {
+		try (ResultSet rs = statements.executeQuery(statements.prepare("SELECT COUNT(*) FROM files"))) {
+			return rs.next() ? rs.getInt(1) : 0;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return 0;
+		}
+	}
+
+	@Override
+	public synchronized List<FileChange> listChangesInDB(long afterSequence, int limit) {
+		List<FileChange> changes = new ArrayList<>();
+		String query = "SELECT sequence, fileId, pageNumber, changeType FROM changelog WHERE sequence > ? "
+				+ "ORDER BY sequence LIMIT ?";
+		try {
+			conn.setAutoCommit(false);
+			PreparedStatement stmt = statements.prepare(query);
+			stmt.setLong(1, afterSequence);
+			stmt.setInt(2, limit);
+			try (ResultSet rs = statements.executeQuery(stmt)) {
+				while (rs.next()) {
+					changes.add(new FileChange(rs.getLong("sequence"), rs.getInt("fileId"), rs.getInt("pageNumber"),
+							FileChange.Type.valueOf(rs.getString("changeType"))));
+				}
+			}
+			// end the read so the next poll sees rows committed since
 			conn.commit();
+		} catch (SQLException e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return changes;
+	}
+
+	@Override
+	public synchronized long lastChangeInDB() {
+		try (ResultSet rs = statements.executeQuery(
+				statements.prepare("SELECT COALESCE(MAX(sequence), 0) FROM changelog"))) {
+			return rs.next() ? rs.getLong(1) : 0;
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return 0;
+		}
+	}
+
+	@Override
+	protected boolean isTransliterated(int pageId, String arabicText) {
+		try {
+			return transliterationCache.get(HashCalculator.calculateHash(arabicText)) != null;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String transliterateInDB(int pageId, String arabicText) {
+		String selectQuery = "SELECT transliteratedText, sourceHash FROM transliteratedpages WHERE pageId = ?";
+		String upsertQuery = "INSERT INTO transliteratedpages (pageId, transliteratedText, sourceHash) VALUES (?, ?, ?) "
+				+ "ON DUPLICATE KEY UPDATE transliteratedText = VALUES(transliteratedText), sourceHash = VALUES(sourceHash)";
+
+		try {
+			String hash = HashCalculator.calculateHash(arabicText);
+			String content = transliterationCache.get(hash);
+			if (content != null) {
+				return content;
+			}
+
+			synchronized (this) {
+				PreparedStatement selectStmt = statements.prepare(selectQuery);
+				selectStmt.setInt(1, pageId);
+				try (ResultSet rs = statements.executeQuery(selectStmt)) {
+					if (rs.next() && hash.equals(rs.getString("sourceHash"))) {
+						content = TextCodec.decode(rs.getString("transliteratedText"));
+						transliterationCache.put(hash, content);
+						return content;
+					}
+				}
+
+				content = Transliteration.transliterate(arabicText);
+
+				conn.setAutoCommit(false);
+				PreparedStatement upsertStmt = statements.prepare(upsertQuery);
+				upsertStmt.setInt(1, pageId);
+				upsertStmt.setString(2, TextCodec.encode(content, codec));
+				upsertStmt.setString(3, hash);
+				upsertStmt.executeUpdate();
+				conn.commit();
+			}
+			transliterationCache.put(hash, content);
 			return content;
 
 		} catch (Exception e) {
@@ -566,73 +1043,291 @@ public class EditorDBDAO implements IEditorDBDAO {
 		}
 	}
 
-	private List<String> getAllExistingFilesContent(Connection conn) throws SQLException {
-		List<String> allFilesContent = new ArrayList<>();
-		String query = "SELECT f.fileId, GROUP_CONCAT(p.pageContent ORDER BY p.pageNumber SEPARATOR '') AS fileContent "
-				+ "FROM files f " + "JOIN pages p ON f.fileId = p.fileId " + "GROUP BY f.fileId";
+	/**
+	 * Adds the pages that have no search terms yet, such as pages of files created
+	 * before migration 002, to the index and recounts their files' lengths.
+	 * Returns the number of pages added, or -1 if the reindex failed part way.
+	 */
+	@Override
+	public synchronized int reindexSearchInDB() {
+		String pagesQuery = "SELECT p.pageId, p.fileId, p.pageNumber, p.pageContent FROM pages p WHERE p.pageId > ? "
+				+ "AND NOT EXISTS (SELECT 1 FROM pageterms t WHERE t.pageId = p.pageId) ORDER BY p.pageId LIMIT ?";
+		String termQuery = "INSERT INTO pageterms (term, fileId, pageId, frequency) VALUES (?, ?, ?, ?)";
+		String tokenCountQuery = "UPDATE files SET tokenCount = "
+				+ "(SELECT COALESCE(SUM(frequency), 0) FROM pageterms WHERE fileId = ?) WHERE fileId = ?";
+
+		int reindexed = 0;
+		int lastPageId = 0;
+		try {
+			conn.setAutoCommit(false);
+			PreparedStatement pagesStmt = statements.prepare(pagesQuery);
+			PreparedStatement termStmt = statements.prepare(termQuery);
+			PreparedStatement tokenCountStmt = statements.prepare(tokenCountQuery);
+			while (true) {
+				List<Pages> pages = new ArrayList<>();
+				pagesStmt.setInt(1, lastPageId);
+				pagesStmt.setInt(2, REINDEX_BATCH);
+				try (ResultSet rs = statements.executeQuery(pagesStmt)) {
+					while (rs.next()) {
+						pages.add(new Pages(rs.getInt("pageId"), rs.getInt("fileId"), rs.getInt("pageNumber"),
+								pageContent(rs.getInt("fileId"), rs.getInt("pageNumber"), rs.getString("pageContent"))));
+					}
+				}
+				if (pages.isEmpty()) {
+					return reindexed;
+				}
 
-		try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(query)) {
-			while (rs.next()) {
-				allFilesContent.add(rs.getString("fileContent"));
+				Set<Integer> fileIds = new LinkedHashSet<>();
+				for (Pages page : pages) {
+					for (Map.Entry<String, Integer> entry : BM25Ranker.countTerms(page.getPageContent()).entrySet()) {
+						addBatch(termStmt, entry.getKey(), page.getFileId(), page.getPageId(), entry.getValue());
+					}
+					fileIds.add(page.getFileId());
+					lastPageId = page.getPageId();
+				}
+				flush("pageterms", termStmt);
+				for (int fileId : fileIds) {
+					tokenCountStmt.setInt(1, fileId);
+					tokenCountStmt.setInt(2, fileId);
+					tokenCountStmt.executeUpdate();
+				}
+				conn.commit();
+				reindexed += pages.size();
+				LOGGER.info("Reindexed {} pages for search", reindexed);
+			}
+		} catch (Exception e) {
+			batchBytes = 0;
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+				LOGGER.error(e1.getMessage());
 			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return -1;
 		}
-		return allFilesContent;
 	}
 
 	@Override
-	public synchronized Map<String, String> lemmatizeWords(String text) {
-		// TODO Auto-generated method stub
-		return Lemmatization.lemmatizeWords(PreProcessText.preprocessText(text));
+	public synchronized List<SearchResult> searchRankedInDB(String keyword, int offset, int limit) {
+		List<SearchResult> results = new ArrayList<>();
+		Set<String> terms = new LinkedHashSet<>(BM25Ranker.countTerms(keyword).keySet());
+		if (terms.isEmpty() || limit <= 0) {
+			return results;
+		}
+
+		// files not indexed yet have no terms and would drag the average length down
+		String statsQuery = "SELECT COUNT(*) AS documentCount, COALESCE(AVG(tokenCount), 0) AS averageLength "
+				+ "FROM files WHERE tokenCount > 0";
+		String postingsQuery = "SELECT t.fileId, SUM(t.frequency) AS termFrequency, f.tokenCount FROM pageterms t "
+				+ "JOIN files f ON f.fileId = t.fileId WHERE t.term = ? GROUP BY t.fileId, f.tokenCount";
+		String snippetQuery = "SELECT f.fileName, p.pageNumber, p.pageContent FROM pageterms t "
+				+ "JOIN pages p ON p.pageId = t.pageId JOIN files f ON f.fileId = t.fileId "
+				+ "WHERE t.fileId = ? AND t.term IN (" + String.join(", ", Collections.nCopies(terms.size(), "?"))
+				+ ") ORDER BY p.pageNumber LIMIT 1";
+
+		try {
+			conn.setAutoCommit(false);
+			BM25Ranker ranker;
+			try (ResultSet rs = statements.executeQuery(statements.prepare(statsQuery))) {
+				rs.next();
+				ranker = new BM25Ranker(rs.getInt("documentCount"), rs.getDouble("averageLength"));
+			}
+
+			PreparedStatement postingsStmt = statements.prepare(postingsQuery);
+			int[] fileIds = new int[64];
+			int[] termFrequencies = new int[64];
+			int[] documentLengths = new int[64];
+			for (String term : terms) {
+				postingsStmt.setString(1, term);
+				int count = 0;
+				try (ResultSet rs = statements.executeQuery(postingsStmt)) {
+					while (rs.next()) {
+						if (count == fileIds.length) {
+							fileIds = Arrays.copyOf(fileIds, count * 2);
+							termFrequencies = Arrays.copyOf(termFrequencies, count * 2);
+							documentLengths = Arrays.copyOf(documentLengths, count * 2);
+						}
+						fileIds[count] = rs.getInt("fileId");
+						termFrequencies[count] = rs.getInt("termFrequency");
+						documentLengths[count] = rs.getInt("tokenCount");
+						count++;
+					}
+				}
+				ranker.addTerm(fileIds, termFrequencies, documentLengths, count);
+			}
+
+			PreparedStatement snippetStmt = statements.prepare(snippetQuery);
+			for (BM25Ranker.ScoredFile scored : ranker.top(offset, limit)) {
+				snippetStmt.setInt(1, scored.getFileId());
+				int index = 2;
+				for (String term : terms) {
+					snippetStmt.setString(index++, term);
+				}
+				try (ResultSet rs = statements.executeQuery(snippetStmt)) {
+					if (rs.next()) {
+						results.add(new SearchResult(scored.getFileId(), rs.getString("fileName"),
+								rs.getInt("pageNumber"), scored.getScore(),
+								BM25Ranker.snippet(pageContent(scored.getFileId(), rs.getInt("pageNumber"),
+										rs.getString("pageContent")), terms, SNIPPET_RADIUS)));
+					}
+				}
+			}
+			conn.commit();
+		} catch (Exception e) {
+			try {
+				conn.rollback();
+			} catch (SQLException e1) {
+				e1.printStackTrace();
+				LOGGER.error(e1.getMessage());
+			}
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+		return results;
 	}
 
-	@Override
-	public synchronized Map<String, List<String>> extractPOS(String text) {
-		// TODO Auto-generated method stub
-		return POSTagger.extractPOS(PreProcessText.preprocessText(text));
+	/** Results of analysing one page, computed before the write takes the lock. */
+	private static class PageAnalysis {
+		Map<String, List<String>> pos;
+		Map<String, String> lemmas;
+		Map<String, String> roots;
+		Map<String, String> segments;
+		Map<String, String> stems;
+		Map<String, Double> pkl;
+		Map<String, Double> pmi;
+		Map<String, Integer> terms;
+		// ended but not committed, a new file has no id yet
+		FlightEvents.Event event;
 	}
 
-	@Override
-	public synchronized Map<String, String> extractRoots(String text) {
-		// TODO Auto-generated method stub
-		return RootExtraction.extractRoots(PreProcessText.preprocessText(text));
+	/** Analyses one page; the caller sets fileId on the analysis event and commits it. */
+	private PageAnalysis analysePage(int pageNumber, String content) {
+		FlightEvents.Event event = FlightEvents.PAGE_ANALYSIS.begin();
+		PageAnalysis analysis = new PageAnalysis();
+		long stage = StageTimer.start();
+		analysis.pos = POSTagger.extractPOS(content);
+		stage = StageTimer.lap("pos", stage);
+		analysis.lemmas = Lemmatization.lemmatizeWords(content);
+		stage = StageTimer.lap("lemma", stage);
+		analysis.roots = RootExtraction.extractRoots(content);
+		stage = StageTimer.lap("root", stage);
+		analysis.segments = WordSegmentation.extractSegments(content);
+		stage = StageTimer.lap("segment", stage);
+		analysis.stems = Stemmation.stemWords(content);
+		stage = StageTimer.lap("stem", stage);
+		analysis.pkl = performPKL(content);
+		stage = StageTimer.lap("pkl", stage);
+		analysis.pmi = performPMI(content);
+		stage = StageTimer.lap("pmi", stage);
+		analysis.terms = BM25Ranker.countTerms(content);
+		StageTimer.lap("terms", stage);
+		int tokens = 0;
+		for (int frequency : analysis.terms.values()) {
+			tokens += frequency;
+		}
+		analysis.event = event.end().set("pageNumber", pageNumber).set("tokens", tokens).set("characters",
+				content.length());
+		return analysis;
 	}
 
-	@Override
-	public synchronized double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
-		TFIDFCalculator tfidf = new TFIDFCalculator();
-		for (String unSelectedDocContent : unSelectedDocsContent) {
-			tfidf.addDocumentToCorpus(unSelectedDocContent);
+	private double scoreAgainstCorpus(String content) throws SQLException {
+		try (CorpusCursor corpus = new CorpusCursor(conn, CORPUS_FETCH_SIZE, this::pageContent)) {
+			return performTFIDF(corpus, content);
 		}
-		return tfidf.calculateDocumentTfIdf(selectedDocContent);
 	}
 
-	@Override
-	public synchronized Map<String, Double> performPMI(String content) {
-		// TODO Auto-generated method stub
-		PMICalculator pmi = new PMICalculator(content);
-		Map<String, Double> pmiScores = pmi.calculatePMIForAllBigrams();
+	/** Binds the values to the statement's parameters in order and adds them to its batch. */
+	private void addBatch(PreparedStatement stmt, Object... values) throws SQLException {
+		for (int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			if (value instanceof Integer) {
+				stmt.setInt(i + 1, (Integer) value);
+				batchBytes += Integer.BYTES;
+			} else if (value instanceof Double) {
+				stmt.setDouble(i + 1, (Double) value);
+				batchBytes += Double.BYTES;
+			} else {
+				String text = (String) value;
+				stmt.setString(i + 1, text);
+				batchBytes += utf8Length(text);
+			}
+		}
+		stmt.addBatch();
+	}
+
+	private static long utf8Length(String text) {
+		if (text == null) {
+			return 0;
+		}
+		long length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			// a surrogate pair is four bytes, two for each half
+			length += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+		}
+		return length;
+	}
 
-		return pmiScores;
+	/**
+	 * Executes the statement's batch, reported as a flight recorder event with
+	 * the size of the parameters bound since the last flush.
+	 */
+	private void flush(String table, PreparedStatement stmt) throws SQLException {
+		FlightEvents.Event event = FlightEvents.BATCH_FLUSH.begin();
+		long bytes = batchBytes;
+		batchBytes = 0;
+		int[] counts = stmt.executeBatch();
+		event.set("table", table).set("rows", counts.length).set("bytes", bytes).commit();
 	}
 
-	@Override
-	public synchronized Map<String, Double> performPKL(String content) {
-		// TODO Auto-generated method stub
-		PKLCalculator pkl = new PKLCalculator(content);
-		Map<String, Double> pklScores = pkl.calculatePKLForAllWords();
-		return pklScores;
+	/** Appends to the change log inside the caller's transaction. */
+	private void logChange(int fileId, int pageNumber, FileChange.Type type) throws SQLException {
+		PreparedStatement stmt = statements.prepare(
+				"INSERT INTO changelog (fileId, pageNumber, changeType) VALUES (?, ?, ?)");
+		stmt.setInt(1, fileId);
+		stmt.setInt(2, pageNumber);
+		stmt.setString(3, type.name());
+		stmt.executeUpdate();
 	}
 
-	@Override
-	public synchronized Map<String, String> stemWords(String text) {
-		// TODO Auto-generated method stub
-		return Stemmation.stemWords(PreProcessText.preprocessText(text));
+	/** Removes pages a rolled back insert wrote to the page store. */
+	private void deleteStoredPages(Collection<Integer> fileIds) {
+		for (int fileId : fileIds) {
+			try {
+				pageStore.deleteFile(fileId);
+			} catch (IOException e) {
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+			}
+		}
 	}
 
-	@Override
-	public synchronized Map<String, String> segmentWords(String text) {
-		// TODO Auto-generated method stub
-		return WordSegmentation.extractSegments(PreProcessText.preprocessText(text));
+	/**
+	 * Puts back the page store version a rolled back update replaced, or removes
+	 * the page if its text was still in the pages table.
+	 */
+	private void restoreStoredPage(int fileId, int pageNumber, String previousContent) {
+		try {
+			if (previousContent != null) {
+				pageStore.write(fileId, pageNumber, previousContent);
+			} else {
+				pageStore.deletePage(fileId, pageNumber);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Page text from the page store, falling back to the (possibly compressed)
+	 * pageContent column for rows written before the store was enabled.
+	 */
+	private String pageContent(int fileId, int pageNumber, String storedContent) throws IOException {
+		String content = pageStore == null ? null : pageStore.read(fileId, pageNumber);
+		return content != null ? content : TextCodec.decode(storedContent);
 	}
 
-}
\ No newline at end of file
+}
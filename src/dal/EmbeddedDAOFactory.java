@@ -0,0 +1,40 @@
+package dal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Selects the in-process store. {@code db.path} in config.properties names the
+ * journal file; {@code memory} keeps everything in memory only.
+ */
+public class EmbeddedDAOFactory extends AbstractDAOEditorFactory {
+	private static final Logger LOGGER = LogManager.getLogger(EmbeddedDAOFactory.class);
+	private static final String DEFAULT_PATH = "data/realeditor.journal";
+
+	@Override
+	public IEditorDBDAO createEditorDAO() {
+		String path = DEFAULT_PATH;
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			Properties prop = new Properties();
+			prop.load(input);
+			path = prop.getProperty("db.path", DEFAULT_PATH).trim();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		if (path.equals("memory")) {
+			return new EmbeddedEditorDAO();
+		}
+		try {
+			return new EmbeddedEditorDAO(new File(path));
+		} catch (IOException e) {
+			LOGGER.error("Could not open embedded store {}: {}", path, e.getMessage());
+			throw new IllegalStateException("Could not open embedded store " + path, e);
+		}
+	}
+}
@@ -0,0 +1,542 @@
+package dal;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+import dto.SearchResult;
+import util.FlightEvents;
+import util.StageTimer;
+
+/**
+ * In-process storage backend. All tables live in memory and every change is
+ * appended to a local journal file that is replayed on startup, so no database
+ * server or socket round trip is involved. Without a journal file the store is
+ * purely in memory, which is what tests and benchmarks use.
+ */
+public class EmbeddedEditorDAO extends AbstractEditorDBDAO {
+	private static final Logger LOGGER = LogManager.getLogger(EmbeddedEditorDAO.class);
+	private static final int SNIPPET_RADIUS = 5;
+	private static final int COMPACTION_MIN_DEAD_RECORDS = 100;
+	private static final int CHANGE_LOG_CAPACITY = 10000;
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final Object lock = new Object();
+	private final Map<Integer, FileRecord> files = new LinkedHashMap<>();
+	private final Map<Integer, PageRecord> pagesById = new HashMap<>();
+	// term -> pageId -> frequency
+	private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+	private final EmbeddedJournal journal;
+	// not journaled: only this process reads the store, so the log starts empty
+	private final List<FileChange> changes = new ArrayList<>();
+	private long lastSequence;
+	private int nextFileId = 1;
+	private int nextPageId = 1;
+
+	public EmbeddedEditorDAO() {
+		this.journal = null;
+	}
+
+	public EmbeddedEditorDAO(File journalFile) throws IOException {
+		this.journal = new EmbeddedJournal(journalFile);
+		int records = journal.replay(this);
+		int deadRecords = records - files.size() - pagesById.size();
+		if (deadRecords > COMPACTION_MIN_DEAD_RECORDS && deadRecords > files.size()) {
+			journal.compact(files.values(), nextFileId, nextPageId);
+		}
+		journal.open();
+	}
+
+	@Override
+	public boolean createFileInDB(String nameOfFile, String content) {
+		try {
+			long stage = StageTimer.start();
+			String hash = HashCalculator.calculateHash(content);
+			stage = StageTimer.lap("hash", stage);
+			List<Pages> pages = PaginationDAO.paginate(content);
+			stage = StageTimer.lap("paginate", stage);
+			SlowOperationLog.size("pages", pages.size());
+			double tfidf = performTFIDF(getAllExistingFilesContent(), content);
+			stage = StageTimer.lap("tfidf", stage);
+
+			List<PageRecord> analysed = new ArrayList<>();
+			for (Pages page : pages) {
+				analysed.add(analysePage(0, page.getPageNumber(), page.getPageContent()));
+			}
+			stage = StageTimer.start();
+
+			String now = LocalDateTime.now().format(TIMESTAMP);
+			synchronized (lock) {
+				FileRecord file = new FileRecord(nextFileId, nameOfFile, hash, now, now);
+				file.tfidf = tfidf;
+				int pageId = nextPageId;
+				for (PageRecord page : analysed) {
+					page.pageId = pageId++;
+					page.fileId = file.fileId;
+					file.pages.put(page.pageNumber, page);
+					file.tokenCount += page.tokenCount();
+				}
+				if (journal != null) {
+					journal.appendFile(file);
+				}
+				applyFile(file);
+				logChange(file.fileId, 0, FileChange.Type.CREATED);
+				SlowOperationLog.size("tokens", file.tokenCount);
+			}
+			StageTimer.lap("insert", stage);
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public boolean updateFileInDB(int fileId, String fileName, int pageNumber, String content) {
+		try {
+			PageRecord page = analysePage(fileId, pageNumber, content);
+			SlowOperationLog.size("tokens", page.tokenCount());
+			long stage = StageTimer.start();
+			double tfidf = performTFIDF(getAllExistingFilesContent(), content);
+			stage = StageTimer.lap("tfidf", stage);
+			String now = LocalDateTime.now().format(TIMESTAMP);
+
+			synchronized (lock) {
+				FileRecord file = files.get(fileId);
+				PageRecord existing = file == null ? null : file.pages.get(pageNumber);
+				if (existing == null) {
+					LOGGER.error("Page not found for the given fileId and pageNumber");
+					return false;
+				}
+				page.pageId = existing.pageId;
+				page.fileId = fileId;
+				page.transliteration = existing.transliteration;
+				page.transliterationHash = existing.transliterationHash;
+
+				if (journal != null) {
+					journal.appendPage(fileName, now, tfidf, page);
+				}
+				applyPage(fileName, now, tfidf, page);
+				logChange(fileId, pageNumber, FileChange.Type.UPDATED);
+			}
+			StageTimer.lap("insert", stage);
+			return true;
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public boolean deleteFileInDB(int id) {
+		synchronized (lock) {
+			if (!files.containsKey(id)) {
+				return false;
+			}
+			try {
+				if (journal != null) {
+					journal.appendDelete(id);
+				}
+				applyDelete(id);
+				logChange(id, 0, FileChange.Type.DELETED);
+				return true;
+			} catch (IOException e) {
+				e.printStackTrace();
+				LOGGER.error(e.getMessage());
+				return false;
+			}
+		}
+	}
+
+	@Override
+	public List<Documents> getFilesFromDB() {
+		List<Documents> documents = new ArrayList<>();
+		synchronized (lock) {
+			for (FileRecord file : files.values()) {
+				documents.add(toDocument(file));
+			}
+		}
+		return documents;
+	}
+
+	@Override
+	public Documents getFileFromDB(int id) {
+		synchronized (lock) {
+			FileRecord file = files.get(id);
+			return file == null ? null : toDocument(file);
+		}
+	}
+
+	@Override
+	public String lastModifiedInDB(int id) {
+		synchronized (lock) {
+			FileRecord file = files.get(id);
+			return file == null ? null : file.lastModified;
+		}
+	}
+
+	/** Called with the lock held. */
+	private static Documents toDocument(FileRecord file) {
+		List<Pages> pages = new ArrayList<>();
+		for (PageRecord page : file.pages.values()) {
+			pages.add(new Pages(page.pageId, page.fileId, page.pageNumber, page.content));
+		}
+		return new Documents(file.fileId, file.name, file.hash, file.lastModified, file.dateCreated, pages);
+	}
+
+	@Override
+	public List<FileSummary> listFilesInDB(FileSortOrder sort, boolean descending, FileSummary after, int limit) {
+		Comparator<FileSummary> order = descending ? sort.comparator().reversed() : sort.comparator();
+		List<FileSummary> matches = new ArrayList<>();
+		synchronized (lock) {
+			for (FileRecord file : files.values()) {
+				FileSummary summary = new FileSummary(file.fileId, file.name, file.lastModified, file.dateCreated,
+						file.tfidf);
+				if (after == null || order.compare(summary, after) > 0) {
+					matches.add(summary);
+				}
+			}
+		}
+		matches.sort(order);
+		return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+	}
+
+	@Override
+	public int countFilesInDB() {
+		synchronized (lock) {
+			return files.size();
+		}
+	}
+
+	@Override
+	public List<FileChange> listChangesInDB(long afterSequence, int limit) {
+		List<FileChange> result = new ArrayList<>();
+		synchronized (lock) {
+			for (FileChange change : changes) {
+				if (change.getSequence() > afterSequence && result.size() < limit) {
+					result.add(change);
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long lastChangeInDB() {
+		synchronized (lock) {
+			return lastSequence;
+		}
+	}
+
+	@Override
+	protected boolean isTransliterated(int pageId, String arabicText) {
+		try {
+			String hash = HashCalculator.calculateHash(arabicText);
+			synchronized (lock) {
+				PageRecord page = pagesById.get(pageId);
+				return page != null && hash.equals(page.transliterationHash);
+			}
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String transliterateInDB(int pageId, String arabicText) {
+		try {
+			String hash = HashCalculator.calculateHash(arabicText);
+			synchronized (lock) {
+				PageRecord page = pagesById.get(pageId);
+				if (page != null && hash.equals(page.transliterationHash)) {
+					return page.transliteration;
+				}
+			}
+
+			String content = Transliteration.transliterate(arabicText);
+
+			synchronized (lock) {
+				PageRecord page = pagesById.get(pageId);
+				if (page == null) {
+					LOGGER.error("Page {} not found", pageId);
+					return null;
+				}
+				if (journal != null) {
+					journal.appendTransliteration(pageId, content, hash);
+				}
+				applyTransliteration(pageId, content, hash);
+			}
+			return content;
+		} catch (Exception e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+			return null;
+		}
+	}
+
+	/** Every page is indexed when it is analysed, so there is never anything to add. */
+	@Override
+	public int reindexSearchInDB() {
+		return 0;
+	}
+
+	@Override
+	public List<SearchResult> searchRankedInDB(String keyword, int offset, int limit) {
+		List<SearchResult> results = new ArrayList<>();
+		Set<String> terms = new LinkedHashSet<>(BM25Ranker.countTerms(keyword).keySet());
+		if (terms.isEmpty() || limit <= 0) {
+			return results;
+		}
+
+		synchronized (lock) {
+			long totalLength = 0;
+			for (FileRecord file : files.values()) {
+				totalLength += file.tokenCount;
+			}
+			BM25Ranker ranker = new BM25Ranker(files.size(),
+					files.isEmpty() ? 0 : (double) totalLength / files.size());
+
+			for (String term : terms) {
+				Map<Integer, Integer> pagePostings = postings.get(term);
+				if (pagePostings == null) {
+					continue;
+				}
+				Map<Integer, Integer> filePostings = new HashMap<>();
+				for (Map.Entry<Integer, Integer> posting : pagePostings.entrySet()) {
+					filePostings.merge(pagesById.get(posting.getKey()).fileId, posting.getValue(), Integer::sum);
+				}
+				int[] fileIds = new int[filePostings.size()];
+				int[] termFrequencies = new int[filePostings.size()];
+				int[] documentLengths = new int[filePostings.size()];
+				int count = 0;
+				for (Map.Entry<Integer, Integer> posting : filePostings.entrySet()) {
+					fileIds[count] = posting.getKey();
+					termFrequencies[count] = posting.getValue();
+					documentLengths[count] = files.get(posting.getKey()).tokenCount;
+					count++;
+				}
+				ranker.addTerm(fileIds, termFrequencies, documentLengths, count);
+			}
+
+			for (BM25Ranker.ScoredFile scored : ranker.top(offset, limit)) {
+				FileRecord file = files.get(scored.getFileId());
+				for (PageRecord page : file.pages.values()) {
+					if (page.containsAny(terms)) {
+						results.add(new SearchResult(file.fileId, file.name, page.pageNumber, scored.getScore(),
+								BM25Ranker.snippet(page.content, terms, SNIPPET_RADIUS)));
+						break;
+					}
+				}
+			}
+		}
+		return results;
+	}
+
+	/** Called with the lock held; the oldest entries are dropped past CHANGE_LOG_CAPACITY. */
+	private void logChange(int fileId, int pageNumber, FileChange.Type type) {
+		changes.add(new FileChange(++lastSequence, fileId, pageNumber, type));
+		if (changes.size() > CHANGE_LOG_CAPACITY) {
+			changes.subList(0, changes.size() - CHANGE_LOG_CAPACITY).clear();
+		}
+	}
+
+	private List<String> getAllExistingFilesContent() {
+		List<String> allFilesContent = new ArrayList<>();
+		synchronized (lock) {
+			for (FileRecord file : files.values()) {
+				StringBuilder fileContent = new StringBuilder();
+				for (PageRecord page : file.pages.values()) {
+					fileContent.append(page.content);
+				}
+				allFilesContent.add(fileContent.toString());
+			}
+		}
+		return allFilesContent;
+	}
+
+	/** Runs every analyzer over the page; {@code fileId} is 0 for a file that has no id yet. */
+	private PageRecord analysePage(int fileId, int pageNumber, String content) {
+		FlightEvents.Event event = FlightEvents.PAGE_ANALYSIS.begin();
+		PageRecord page = new PageRecord(0, 0, pageNumber, content);
+
+		long stage = StageTimer.start();
+		Map<String, String> posTags = new HashMap<>();
+		for (Map.Entry<String, List<String>> entry : POSTagger.extractPOS(content).entrySet()) {
+			posTags.put(entry.getKey(), String.join("|", entry.getValue()));
+		}
+		page.analysis.put("pos", posTags);
+		stage = StageTimer.lap("pos", stage);
+		page.analysis.put("lemmatization", Lemmatization.lemmatizeWords(content));
+		stage = StageTimer.lap("lemma", stage);
+		page.analysis.put("rootextraction", RootExtraction.extractRoots(content));
+		stage = StageTimer.lap("root", stage);
+		page.analysis.put("wordsegementation", WordSegmentation.extractSegments(content));
+		stage = StageTimer.lap("segment", stage);
+		page.analysis.put("stemmation", Stemmation.stemWords(content));
+		stage = StageTimer.lap("stem", stage);
+		page.analysis.put("pkl", toStrings(performPKL(content)));
+		stage = StageTimer.lap("pkl", stage);
+		page.analysis.put("pmi", toStrings(performPMI(content)));
+		stage = StageTimer.lap("pmi", stage);
+		page.terms = BM25Ranker.countTerms(content);
+		StageTimer.lap("terms", stage);
+		event.set("fileId", fileId).set("pageNumber", pageNumber).set("tokens", page.tokenCount())
+				.set("characters", content.length()).commit();
+		return page;
+	}
+
+	private static Map<String, String> toStrings(Map<String, Double> scores) {
+		Map<String, String> values = new LinkedHashMap<>();
+		for (Map.Entry<String, Double> entry : scores.entrySet()) {
+			values.put(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		return values;
+	}
+
+	// The apply methods are used both for live changes and for journal replay.
+
+	void applyFile(FileRecord file) {
+		files.put(file.fileId, file);
+		nextFileId = Math.max(nextFileId, file.fileId + 1);
+		for (PageRecord page : file.pages.values()) {
+			pagesById.put(page.pageId, page);
+			index(page);
+			nextPageId = Math.max(nextPageId, page.pageId + 1);
+		}
+	}
+
+	void applyPage(String fileName, String lastModified, double tfidf, PageRecord page) {
+		FileRecord file = files.get(page.fileId);
+		PageRecord old = file.pages.put(page.pageNumber, page);
+		if (old != null) {
+			unindex(old);
+		}
+		pagesById.put(page.pageId, page);
+		index(page);
+
+		file.name = fileName;
+		file.lastModified = lastModified;
+		file.tfidf = tfidf;
+		file.tokenCount = 0;
+		for (PageRecord filePage : file.pages.values()) {
+			file.tokenCount += filePage.tokenCount();
+		}
+	}
+
+	void applyDelete(int fileId) {
+		FileRecord file = files.remove(fileId);
+		if (file == null) {
+			return;
+		}
+		for (PageRecord page : file.pages.values()) {
+			pagesById.remove(page.pageId);
+			unindex(page);
+		}
+	}
+
+	void applyNextIds(int fileId, int pageId) {
+		nextFileId = Math.max(nextFileId, fileId);
+		nextPageId = Math.max(nextPageId, pageId);
+	}
+
+	void applyTransliteration(int pageId, String transliteration, String sourceHash) {
+		PageRecord page = pagesById.get(pageId);
+		if (page != null) {
+			page.transliteration = transliteration;
+			page.transliterationHash = sourceHash;
+		}
+	}
+
+	private void index(PageRecord page) {
+		for (Map.Entry<String, Integer> term : page.terms.entrySet()) {
+			postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(page.pageId, term.getValue());
+		}
+	}
+
+	private void unindex(PageRecord page) {
+		for (String term : page.terms.keySet()) {
+			Map<Integer, Integer> pagePostings = postings.get(term);
+			if (pagePostings != null) {
+				pagePostings.remove(page.pageId);
+				if (pagePostings.isEmpty()) {
+					postings.remove(term);
+				}
+			}
+		}
+	}
+
+	static class FileRecord {
+		int fileId;
+		String name;
+		String hash;
+		String dateCreated;
+		String lastModified;
+		int tokenCount;
+		double tfidf;
+		final TreeMap<Integer, PageRecord> pages = new TreeMap<>();
+
+		FileRecord(int fileId, String name, String hash, String dateCreated, String lastModified) {
+			this.fileId = fileId;
+			this.name = name;
+			this.hash = hash;
+			this.dateCreated = dateCreated;
+			this.lastModified = lastModified;
+		}
+	}
+
+	static class PageRecord {
+		int pageId;
+		int fileId;
+		int pageNumber;
+		String content;
+		String transliteration;
+		String transliterationHash;
+		// table name -> word -> value, mirroring the MariaDB analysis tables
+		final Map<String, Map<String, String>> analysis = new LinkedHashMap<>();
+		Map<String, Integer> terms = new HashMap<>();
+
+		PageRecord(int pageId, int fileId, int pageNumber, String content) {
+			this.pageId = pageId;
+			this.fileId = fileId;
+			this.pageNumber = pageNumber;
+			this.content = content;
+		}
+
+		int tokenCount() {
+			int count = 0;
+			for (int frequency : terms.values()) {
+				count += frequency;
+			}
+			return count;
+		}
+
+		boolean containsAny(Collection<String> searchTerms) {
+			for (String term : searchTerms) {
+				if (terms.containsKey(term)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,324 @@
+package dal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import dal.EmbeddedEditorDAO.FileRecord;
+import dal.EmbeddedEditorDAO.PageRecord;
+
+/**
+ * Append-only journal behind {@link EmbeddedEditorDAO}. Each record is
+ * {@code [type:1][length:4][payload][crc32:8]}; a torn or corrupt tail left by a
+ * crash is cut off on replay.
+ */
+class EmbeddedJournal implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger(EmbeddedJournal.class);
+
+	static final byte FILE = 1;
+	static final byte PAGE = 2;
+	static final byte DELETE = 3;
+	static final byte TRANSLITERATION = 4;
+	static final byte NEXT_IDS = 5;
+
+	private final File file;
+	private FileChannel channel;
+
+	EmbeddedJournal(File file) {
+		this.file = file;
+	}
+
+	/** Replays every intact record into the store and returns how many there were. */
+	int replay(EmbeddedEditorDAO store) throws IOException {
+		if (!file.exists()) {
+			return 0;
+		}
+		long validLength = 0;
+		int records = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			while (true) {
+				byte[] payload;
+				byte type;
+				try {
+					type = in.readByte();
+					int length = in.readInt();
+					if (length < 0 || validLength + 13 + length > file.length()) {
+						break;
+					}
+					payload = new byte[length];
+					in.readFully(payload);
+					if (in.readLong() != checksum(type, payload)) {
+						break;
+					}
+				} catch (EOFException e) {
+					break;
+				}
+				apply(store, type, new DataInputStream(new ByteArrayInputStream(payload)));
+				validLength += 13 + payload.length;
+				records++;
+			}
+		}
+		if (validLength < file.length()) {
+			LOGGER.warn("Discarding {} corrupt bytes at the end of {}", file.length() - validLength, file);
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(validLength);
+			}
+		}
+		return records;
+	}
+
+	/** Opens the journal for appending. */
+	void open() throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		channel = new RandomAccessFile(file, "rw").getChannel();
+		channel.position(channel.size());
+	}
+
+	/**
+	 * Rewrites the journal as one FILE record per live file, after a NEXT_IDS
+	 * record so the ids of deleted files and pages are not handed out again.
+	 */
+	void compact(Collection<FileRecord> files, int nextFileId, int nextPageId) throws IOException {
+		close();
+		File temp = new File(file.getPath() + ".compact");
+		try (FileOutputStream target = new FileOutputStream(temp)) {
+			DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(target));
+			ByteArrayOutputStream ids = new ByteArrayOutputStream();
+			DataOutputStream idData = new DataOutputStream(ids);
+			idData.writeInt(nextFileId);
+			idData.writeInt(nextPageId);
+			writeRecord(compacted, NEXT_IDS, ids.toByteArray());
+			for (FileRecord record : files) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				writeFile(new DataOutputStream(bytes), record);
+				writeRecord(compacted, FILE, bytes.toByteArray());
+			}
+			compacted.flush();
+			target.getFD().sync();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	void appendFile(FileRecord record) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		writeFile(new DataOutputStream(bytes), record);
+		append(FILE, bytes.toByteArray());
+	}
+
+	void appendPage(String fileName, String lastModified, double tfidf, PageRecord page) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		writeString(data, fileName);
+		writeString(data, lastModified);
+		data.writeDouble(tfidf);
+		writePage(data, page);
+		append(PAGE, bytes.toByteArray());
+	}
+
+	void appendDelete(int fileId) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeInt(fileId);
+		append(DELETE, bytes.toByteArray());
+	}
+
+	void appendTransliteration(int pageId, String transliteration, String sourceHash) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		data.writeInt(pageId);
+		writeString(data, transliteration);
+		writeString(data, sourceHash);
+		append(TRANSLITERATION, bytes.toByteArray());
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Writes one record and forces it to disk before returning. If the write
+	 * fails part way the file is cut back to where the record started, so the
+	 * records appended after it are not lost behind a torn one on replay.
+	 */
+	private void append(byte type, byte[] payload) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 13);
+		writeRecord(new DataOutputStream(bytes), type, payload);
+		ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+		long goodLength = channel.position();
+		try {
+			while (record.hasRemaining()) {
+				channel.write(record);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			try {
+				channel.truncate(goodLength);
+				channel.position(goodLength);
+			} catch (IOException truncateFailed) {
+				e.addSuppressed(truncateFailed);
+			}
+			throw e;
+		}
+	}
+
+	private static void writeRecord(DataOutputStream target, byte type, byte[] payload) throws IOException {
+		target.writeByte(type);
+		target.writeInt(payload.length);
+		target.write(payload);
+		target.writeLong(checksum(type, payload));
+	}
+
+	private static long checksum(byte type, byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(payload, 0, payload.length);
+		return crc.getValue();
+	}
+
+	private static void apply(EmbeddedEditorDAO store, byte type, DataInputStream in) throws IOException {
+		switch (type) {
+		case FILE:
+			store.applyFile(readFile(in));
+			break;
+		case PAGE:
+			String fileName = readString(in);
+			String lastModified = readString(in);
+			double tfidf = in.readDouble();
+			store.applyPage(fileName, lastModified, tfidf, readPage(in));
+			break;
+		case DELETE:
+			store.applyDelete(in.readInt());
+			break;
+		case TRANSLITERATION:
+			store.applyTransliteration(in.readInt(), readString(in), readString(in));
+			break;
+		case NEXT_IDS:
+			store.applyNextIds(in.readInt(), in.readInt());
+			break;
+		default:
+			throw new IOException("Unknown journal record type " + type);
+		}
+	}
+
+	private static void writeFile(DataOutputStream out, FileRecord file) throws IOException {
+		out.writeInt(file.fileId);
+		writeString(out, file.name);
+		writeString(out, file.hash);
+		writeString(out, file.dateCreated);
+		writeString(out, file.lastModified);
+		out.writeInt(file.tokenCount);
+		out.writeDouble(file.tfidf);
+		out.writeInt(file.pages.size());
+		for (PageRecord page : file.pages.values()) {
+			writePage(out, page);
+		}
+	}
+
+	private static FileRecord readFile(DataInputStream in) throws IOException {
+		FileRecord file = new FileRecord(in.readInt(), readString(in), readString(in), readString(in),
+				readString(in));
+		file.tokenCount = in.readInt();
+		file.tfidf = in.readDouble();
+		int pages = in.readInt();
+		for (int i = 0; i < pages; i++) {
+			PageRecord page = readPage(in);
+			file.pages.put(page.pageNumber, page);
+		}
+		return file;
+	}
+
+	private static void writePage(DataOutputStream out, PageRecord page) throws IOException {
+		out.writeInt(page.pageId);
+		out.writeInt(page.fileId);
+		out.writeInt(page.pageNumber);
+		writeString(out, page.content);
+		writeString(out, page.transliteration);
+		writeString(out, page.transliterationHash);
+		out.writeInt(page.analysis.size());
+		for (Map.Entry<String, Map<String, String>> table : page.analysis.entrySet()) {
+			writeString(out, table.getKey());
+			out.writeInt(table.getValue().size());
+			for (Map.Entry<String, String> row : table.getValue().entrySet()) {
+				writeString(out, row.getKey());
+				writeString(out, row.getValue());
+			}
+		}
+		out.writeInt(page.terms.size());
+		for (Map.Entry<String, Integer> term : page.terms.entrySet()) {
+			writeString(out, term.getKey());
+			out.writeInt(term.getValue());
+		}
+	}
+
+	private static PageRecord readPage(DataInputStream in) throws IOException {
+		PageRecord page = new PageRecord(in.readInt(), in.readInt(), in.readInt(), readString(in));
+		page.transliteration = readString(in);
+		page.transliterationHash = readString(in);
+		int tables = in.readInt();
+		for (int i = 0; i < tables; i++) {
+			String name = readString(in);
+			int rows = in.readInt();
+			Map<String, String> values = new LinkedHashMap<>();
+			for (int j = 0; j < rows; j++) {
+				values.put(readString(in), readString(in));
+			}
+			page.analysis.put(name, values);
+		}
+		int terms = in.readInt();
+		page.terms = new HashMap<>();
+		for (int i = 0; i < terms; i++) {
+			page.terms.put(readString(in), in.readInt());
+		}
+		return page;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
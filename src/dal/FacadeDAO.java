@@ -2,8 +2,14 @@ package dal;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+import dto.SearchResult;
 
 public class FacadeDAO implements IFacadeDAO {
 
@@ -15,28 +21,132 @@ public class FacadeDAO implements IFacadeDAO {
 
 	@Override
 	public boolean createFileInDB(String nameOfFile, String content) {
-		return mariaDB.createFileInDB(nameOfFile, content);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("createFileInDB").size("chars", chars(content));
+		try {
+			return mariaDB.createFileInDB(nameOfFile, content);
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public int bulkCreateFilesInDB(List<Map.Entry<String, String>> files) {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("bulkCreateFilesInDB")
+				.size("files", files.size()).size("chars", chars(files));
+		try {
+			return mariaDB.bulkCreateFilesInDB(files);
+		} finally {
+			operation.end();
+		}
 	}
 
 	@Override
 	public boolean updateFileInDB(int id, String fileName, int pageNumber, String content) {
-		return mariaDB.updateFileInDB(id, fileName, pageNumber, content);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("updateFileInDB")
+				.size("page", pageNumber).size("chars", chars(content));
+		try {
+			return mariaDB.updateFileInDB(id, fileName, pageNumber, content);
+		} finally {
+			operation.end();
+		}
 	}
 
 	@Override
 	public boolean deleteFileInDB(int id) {
-		return mariaDB.deleteFileInDB(id);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("deleteFileInDB");
+		try {
+			return mariaDB.deleteFileInDB(id);
+		} finally {
+			operation.end();
+		}
 	}
 
 	@Override
 	public List<Documents> getFilesFromDB() {
-		return mariaDB.getFilesFromDB();
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("getFilesFromDB");
+		try {
+			return mariaDB.getFilesFromDB();
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public Documents getFileFromDB(int id) {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("getFileFromDB");
+		try {
+			return mariaDB.getFileFromDB(id);
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public String lastModifiedInDB(int id) {
+		return mariaDB.lastModifiedInDB(id);
+	}
+
+	@Override
+	public List<FileSummary> listFilesInDB(FileSortOrder sort, boolean descending, FileSummary after, int limit) {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("listFilesInDB").size("limit", limit);
+		try {
+			return mariaDB.listFilesInDB(sort, descending, after, limit);
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public int countFilesInDB() {
+		return mariaDB.countFilesInDB();
+	}
+
+	@Override
+	public List<FileChange> listChangesInDB(long afterSequence, int limit) {
+		return mariaDB.listChangesInDB(afterSequence, limit);
+	}
+
+	@Override
+	public long lastChangeInDB() {
+		return mariaDB.lastChangeInDB();
 	}
 
 	@Override
 	public String transliterateInDB(int pageId, String arabicText) {
 		// TODO Auto-generated method stub
-		return mariaDB.transliterateInDB(pageId, arabicText);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("transliterateInDB")
+				.size("chars", chars(arabicText));
+		try {
+			return mariaDB.transliterateInDB(pageId, arabicText);
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public void transliteratePagesInBackground(List<Pages> pages) {
+		mariaDB.transliteratePagesInBackground(pages);
+	}
+
+	@Override
+	public int reindexSearchInDB() {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("reindexSearchInDB");
+		try {
+			return mariaDB.reindexSearchInDB();
+		} finally {
+			operation.end();
+		}
+	}
+
+	@Override
+	public List<SearchResult> searchRankedInDB(String keyword, int offset, int limit) {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("searchRankedInDB")
+				.size("offset", offset).size("limit", limit);
+		try {
+			return mariaDB.searchRankedInDB(keyword, offset, limit);
+		} finally {
+			operation.end();
+		}
 	}
 
 
@@ -61,7 +171,13 @@ public class FacadeDAO implements IFacadeDAO {
 	@Override
 	public double performTFIDF(List<String> unSelectedDocsContent, String selectedDocContent) {
 		// TODO Auto-generated method stub
-		return mariaDB.performTFIDF(unSelectedDocsContent, selectedDocContent);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("performTFIDF")
+				.size("documents", unSelectedDocsContent.size()).size("chars", chars(selectedDocContent));
+		try {
+			return mariaDB.performTFIDF(unSelectedDocsContent, selectedDocContent);
+		} finally {
+			operation.end();
+		}
 	}
 
 	@Override
@@ -88,6 +204,20 @@ public class FacadeDAO implements IFacadeDAO {
 		return mariaDB.segmentWords(text);
 	}
 
+	@Override
+	public CompletableFuture<?> warmUpAnalyzer() {
+		return mariaDB.warmUpAnalyzer();
+	}
 
+	private static long chars(String text) {
+		return text == null ? 0 : text.length();
+	}
 
+	private static long chars(List<Map.Entry<String, String>> files) {
+		long total = 0;
+		for (Map.Entry<String, String> file : files) {
+			total += chars(file.getValue());
+		}
+		return total;
+	}
 }
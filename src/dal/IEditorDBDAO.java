@@ -2,20 +2,47 @@ package dal;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import dto.Documents;
+import dto.FileChange;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+import dto.SearchResult;
 
 public interface IEditorDBDAO {
 	boolean createFileInDB(String nameOfFile, String content);
 
+	int bulkCreateFilesInDB(List<Map.Entry<String, String>> files);
+
 	boolean updateFileInDB(int id, String fileName, int pageNumber, String content);
 
 	boolean deleteFileInDB(int id);
 
 	List<Documents> getFilesFromDB();
 
+	Documents getFileFromDB(int id);
+
+	String lastModifiedInDB(int id);
+
+	/** A page of files after {@code after}, or null if they could not be read. */
+	List<FileSummary> listFilesInDB(FileSortOrder sort, boolean descending, FileSummary after, int limit);
+
+	int countFilesInDB();
+
+	List<FileChange> listChangesInDB(long afterSequence, int limit);
+
+	long lastChangeInDB();
+
 	String transliterateInDB(int pageId, String arabicText);
 
+	void transliteratePagesInBackground(List<Pages> pages);
+
+	List<SearchResult> searchRankedInDB(String keyword, int offset, int limit);
+
+	int reindexSearchInDB();
+
 	Map<String, String> lemmatizeWords(String text);
 
 	Map<String, List<String>> extractPOS(String text);
@@ -32,4 +59,7 @@ public interface IEditorDBDAO {
 
 	Map<String, String> segmentWords(String text);
 
+	/** Starts loading the Arabic analyzer if it is not loading yet; completes once it is ready. */
+	CompletableFuture<?> warmUpAnalyzer();
+
 }
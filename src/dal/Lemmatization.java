@@ -1,6 +1,7 @@
 package dal;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -8,18 +9,26 @@ import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import pl.EditorPO;
+import util.ArabicTokenizer;
+import util.FlightEvents;
+import util.Metrics;
 
 public class Lemmatization {
 
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static final Metrics.Timer TIMER = Metrics.timer("analyzer.lemmatization");
+	private static final Metrics.Counter WORDS = Metrics.counter("analyzer.lemmatization.words");
+
 	public static Map<String, String> lemmatizeWords(String text) {
-		final Logger logger = LogManager.getLogger(EditorPO.class);
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("analyzer.lemmatization");
+		long started = System.nanoTime();
+		FlightEvents.Event batch = FlightEvents.ANALYZER_BATCH.begin();
 		Map<String, String> wordLemmaMap = new HashMap<>();
 
-		String[] words = text.split("\\s+");
+		List<String> words = ArabicTokenizer.tokenize(text);
 
+		AlKhalil2Analyzer analyzer = AnalyzerPool.borrow();
 		try {
-			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
-
 			if (analyzer != null) {
 				for (String word : words) {
 					String lemma = analyzer.processToken(word).getAllLemmasString();
@@ -32,13 +41,19 @@ public class Lemmatization {
 				}
 			} else {
 				System.err.println("Failed to initialize AlKhalil2Analyzer.");
-				logger.error("Failed to initialize AlKhalil2Analyzer.");
+				LOGGER.error("Failed to initialize AlKhalil2Analyzer.");
 			}
 		} catch (Exception e) {
 			System.err.println("Error while lemmatizing words: " + e.getMessage());
-			logger.error("Error while lemmatizing words: " + e.getMessage());
+			LOGGER.error("Error while lemmatizing words: {}", e.getMessage());
+		} finally {
+			AnalyzerPool.release(analyzer);
 		}
 
+		TIMER.stop(started);
+		WORDS.add(words.size());
+		batch.set("analyzer", "lemmatization").set("tokens", words.size()).commit();
+		operation.size("tokens", words.size()).end();
 		return wordLemmaMap;
 	}
 }
\ No newline at end of file
@@ -2,23 +2,25 @@ package dal;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import util.ArabicTokenizer;
+
 public class PKLCalculator {
-    private String document;
+    private List<String> words;
     private Map<String, Integer> wordFreq;
     private int totalWords;
 
     public PKLCalculator(String document) {
-        this.document = PreProcessText.preprocessText(document);
+        this.words = ArabicTokenizer.tokenize(PreProcessText.normalize(document));
         this.wordFreq = new HashMap<>();
         this.totalWords = 0;
         computeWordFrequencies();
     }
 
     private void computeWordFrequencies() {
-        String[] words = document.split("\\s+");
-        totalWords = words.length;
+        totalWords = words.size();
 
         for (String word : words) {
             wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
@@ -43,12 +45,11 @@ public class PKLCalculator {
 
     public Map<String, Double> calculatePKLForAllWords() {
         Map<String, Double> pklScores = new LinkedHashMap<>();
-        String[] words = document.split("\\s+");
 
-        for (int i = 1; i < words.length - 1; i++) {
-            String ul = words[i - 1];
-            String v = words[i];
-            String ur = words[i + 1];
+        for (int i = 1; i < words.size() - 1; i++) {
+            String ul = words.get(i - 1);
+            String v = words.get(i);
+            String ur = words.get(i + 1);
 
             double pkl = calculatePKL(v, ul, ur);
             pklScores.put(v + " (" + ul + ", " + ur + ")", pkl);
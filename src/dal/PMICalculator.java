@@ -2,16 +2,19 @@ package dal;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import util.ArabicTokenizer;
+
 public class PMICalculator {
-    private String document;
+    private List<String> words;
     private Map<String, Integer> wordFreq;
     private Map<String, Integer> bigramFreq;
     private int totalWords;
 
     public PMICalculator(String document) {
-        this.document = PreProcessText.preprocessText(document);
+        this.words = ArabicTokenizer.tokenize(PreProcessText.normalize(document));
         this.wordFreq = new HashMap<>();
         this.bigramFreq = new HashMap<>();
         this.totalWords = 0;
@@ -19,15 +22,14 @@ public class PMICalculator {
     }
 
     private void computeWordAndBigramFrequencies() {
-        String[] words = document.split("\\s+");
-        totalWords = words.length;
+        totalWords = words.size();
 
         for (String word : words) {
             wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
         }
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String bigram = words[i] + " " + words[i + 1];
+        for (int i = 0; i < words.size() - 1; i++) {
+            String bigram = words.get(i) + " " + words.get(i + 1);
             bigramFreq.put(bigram, bigramFreq.getOrDefault(bigram, 0) + 1);
         }
     }
@@ -55,11 +57,10 @@ public class PMICalculator {
 
     public Map<String, Double> calculatePMIForAllBigrams() {
         Map<String, Double> pmiScores = new LinkedHashMap<>();
-        String[] words = document.split("\\s+");
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String word1 = words[i];
-            String word2 = words[i + 1];
+        for (int i = 0; i < words.size() - 1; i++) {
+            String word1 = words.get(i);
+            String word2 = words.get(i + 1);
             String bigram = word1 + " " + word2;
 
             double pmiScore = calculatePMI(word1, word2);
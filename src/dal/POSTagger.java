@@ -11,18 +11,26 @@ import org.apache.logging.log4j.Logger;
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import net.oujda_nlp_team.entity.Result;
 import pl.EditorPO;
+import util.ArabicTokenizer;
+import util.FlightEvents;
+import util.Metrics;
 
 public class POSTagger {
+    private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+    private static final Metrics.Timer TIMER = Metrics.timer("analyzer.pos");
+    private static final Metrics.Counter WORDS = Metrics.counter("analyzer.pos.words");
+
     public static Map<String, List<String>> extractPOS(String text) {
-    	final Logger logger = LogManager.getLogger(EditorPO.class);
+        SlowOperationLog.Operation operation = SlowOperationLog.begin("analyzer.pos");
+        long started = System.nanoTime();
+        FlightEvents.Event batch = FlightEvents.ANALYZER_BATCH.begin();
 
         Map<String, List<String>> wordPosMap = new HashMap<>();
 
-        String[] words = text.split("\\s+");
+        List<String> words = ArabicTokenizer.tokenize(text);
 
+        AlKhalil2Analyzer analyzer = AnalyzerPool.borrow();
         try {
-            AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
-
             if (analyzer != null) {
                 for (String word : words) {
                     List<String> posTags = new ArrayList<>();
@@ -42,14 +50,20 @@ public class POSTagger {
                 }
             } else {
                 System.err.println("Failed to initialize AlKhalil2Analyzer.");
-                logger.error("Failed to initialize AlKhalil2Analyzer.");
+                LOGGER.error("Failed to initialize AlKhalil2Analyzer.");
                 
             }
         } catch (Exception e) {
             System.err.println("Error while extracting POS tags: " + e.getMessage());
-            logger.error("Error while extracting POS tags: " + e.getMessage());
+            LOGGER.error("Error while extracting POS tags: {}", e.getMessage());
+        } finally {
+            AnalyzerPool.release(analyzer);
         }
 
+        TIMER.stop(started);
+        WORDS.add(words.size());
+        batch.set("analyzer", "pos").set("tokens", words.size()).commit();
+        operation.size("tokens", words.size()).end();
         return wordPosMap;
     }
 }
\ No newline at end of file
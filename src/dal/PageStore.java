@@ -0,0 +1,520 @@
+package dal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only page content store. Pages are appended to segment files and read
+ * back using an in-memory index keyed by (fileId, pageNumber), through a
+ * {@link MappedByteBuffer} once their segment is sealed and through the channel
+ * while it is still being appended to. Writes reach the disk on {@link #sync()},
+ * which callers run before committing anything that refers to them.
+ * Superseded records are reclaimed by a background compaction that merges all
+ * sealed segments into one.
+ *
+ * Segment layout: {@code [magic:4][covers:8]} followed by records
+ * {@code [fileId:4][pageNumber:4][length:4][utf8 bytes][crc32:4]}, where a
+ * length of -1 marks a deleted page. A compacted segment records the highest
+ * segment it replaces in {@code covers}; segments it covers are ignored on
+ * recovery, and a torn or corrupt tail is truncated.
+ */
+public class PageStore implements Closeable {
+	private static final Logger LOGGER = LogManager.getLogger(PageStore.class);
+
+	private static final int MAGIC = 0x50475331;
+	private static final int HEADER_SIZE = 12;
+	private static final int RECORD_OVERHEAD = 16;
+	private static final int TOMBSTONE = -1;
+	private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	private final File directory;
+	private final long segmentSize;
+	private final ConcurrentSkipListMap<Long, Location> index = new ConcurrentSkipListMap<>();
+	private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+	private final AtomicBoolean compacting = new AtomicBoolean();
+	private final Object compactionLock = new Object();
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "page-store-compaction");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private Segment active;
+	private int nextSegmentId = 1;
+
+	public PageStore(File directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public PageStore(File directory, long segmentSize) throws IOException {
+		this.directory = directory;
+		this.segmentSize = Math.min(segmentSize, Integer.MAX_VALUE);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create page store directory " + directory);
+		}
+		recover();
+	}
+
+	/** Appends a new version of the page; the previous version becomes garbage. */
+	public void write(int fileId, int pageNumber, String content) throws IOException {
+		append(fileId, pageNumber, content.getBytes(StandardCharsets.UTF_8));
+		scheduleCompaction();
+	}
+
+	/** Forces the pages written so far to disk; sealed segments already are. */
+	public synchronized void sync() throws IOException {
+		if (active != null) {
+			active.channel.force(false);
+		}
+	}
+
+	/** Removes one page of the file. */
+	public void deletePage(int fileId, int pageNumber) throws IOException {
+		if (contains(fileId, pageNumber)) {
+			append(fileId, pageNumber, null);
+			scheduleCompaction();
+		}
+	}
+
+	/** Removes every page of the file. */
+	public void deleteFile(int fileId) throws IOException {
+		for (Long key : new ArrayList<>(pagesOf(fileId).keySet())) {
+			append(fileId, (int) (key & 0xFFFFFFFFL), null);
+		}
+		scheduleCompaction();
+	}
+
+	public boolean contains(int fileId, int pageNumber) {
+		return index.containsKey(key(fileId, pageNumber));
+	}
+
+	/**
+	 * The page as a read-only view of the mapped segment, without copying, or
+	 * null if the page is not stored. Pages of the segment still being appended
+	 * to are copied out of it instead.
+	 */
+	public ByteBuffer readBytes(int fileId, int pageNumber) throws IOException {
+		long key = key(fileId, pageNumber);
+		while (true) {
+			Location location = index.get(key);
+			if (location == null) {
+				return null;
+			}
+			Segment segment = segments.get(location.segmentId);
+			if (segment != null) {
+				try {
+					return segment.slice(location.offset + RECORD_OVERHEAD - 4, location.length);
+				} catch (ClosedChannelException e) {
+					// compacted away while mapping; the index already points elsewhere
+				}
+			}
+			// the segment was compacted away between the two lookups; retry
+		}
+	}
+
+	public String read(int fileId, int pageNumber) throws IOException {
+		ByteBuffer bytes = readBytes(fileId, pageNumber);
+		return bytes == null ? null : StandardCharsets.UTF_8.decode(bytes).toString();
+	}
+
+	/** Concatenates the file's pages in page order, or null if none are stored. */
+	public String readFile(int fileId) throws IOException {
+		StringBuilder content = null;
+		for (Long key : pagesOf(fileId).keySet()) {
+			String page = read(fileId, (int) (key & 0xFFFFFFFFL));
+			if (page != null) {
+				content = content == null ? new StringBuilder(page) : content.append(page);
+			}
+		}
+		return content == null ? null : content.toString();
+	}
+
+	/** Merges all sealed segments into one, dropping superseded and deleted pages. */
+	public void compact() throws IOException {
+		synchronized (compactionLock) {
+			compactSealedSegments();
+		}
+	}
+
+	private void compactSealedSegments() throws IOException {
+		List<Segment> sealed = new ArrayList<>();
+		long covers = -1;
+		int compactedId;
+		synchronized (this) {
+			if (active != null && active.size > HEADER_SIZE) {
+				seal();
+			}
+			for (Segment segment : segments.values()) {
+				if (segment != active) {
+					sealed.add(segment);
+					covers = Math.max(covers, segment.orderKey());
+				}
+			}
+			if (sealed.size() < 2 && (sealed.isEmpty() || sealed.get(0).dead == 0)) {
+				return;
+			}
+			compactedId = nextSegmentId++;
+		}
+
+		File temp = new File(directory, name(compactedId) + ".tmp");
+		Map<Long, Location> moved = new ConcurrentSkipListMap<>();
+		try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+			writeHeader(channel, covers);
+			long position = HEADER_SIZE;
+			for (Map.Entry<Long, Location> entry : index.entrySet()) {
+				Location location = entry.getValue();
+				if (!sealed.contains(segments.get(location.segmentId))) {
+					continue;
+				}
+				ByteBuffer record = segments.get(location.segmentId).slice(location.offset,
+						location.length + RECORD_OVERHEAD);
+				channel.write(record, position);
+				moved.put(entry.getKey(), location);
+				position += location.length + RECORD_OVERHEAD;
+			}
+			channel.force(true);
+		}
+		Files.move(temp.toPath(), new File(directory, name(compactedId)).toPath(),
+				StandardCopyOption.ATOMIC_MOVE);
+		Segment compacted = Segment.open(new File(directory, name(compactedId)), compactedId, false);
+
+		synchronized (this) {
+			segments.put(compactedId, compacted);
+			int offset = HEADER_SIZE;
+			for (Map.Entry<Long, Location> entry : moved.entrySet()) {
+				Location old = entry.getValue();
+				Location relocated = new Location(compactedId, offset, old.length);
+				if (!index.replace(entry.getKey(), old, relocated)) {
+					compacted.dead += relocated.size();
+				}
+				offset += relocated.size();
+			}
+			for (Segment segment : sealed) {
+				segments.remove(segment.id);
+				segment.closeAndDelete();
+			}
+		}
+		LOGGER.info("Compacted {} page store segments into {}", sealed.size(), compacted.file.getName());
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		compactor.shutdownNow();
+		for (Segment segment : segments.values()) {
+			segment.close();
+		}
+		segments.clear();
+		active = null;
+	}
+
+	int segmentCount() {
+		return segments.size();
+	}
+
+	private synchronized void append(int fileId, int pageNumber, byte[] content) throws IOException {
+		int length = content == null ? TOMBSTONE : content.length;
+		int recordSize = Math.max(length, 0) + RECORD_OVERHEAD;
+		if (active == null || (active.size + recordSize > segmentSize && active.size > HEADER_SIZE)) {
+			if (active != null) {
+				seal();
+			}
+			active = Segment.create(new File(directory, name(nextSegmentId)), nextSegmentId);
+			segments.put(active.id, active);
+			nextSegmentId++;
+		}
+
+		ByteBuffer record = ByteBuffer.allocate(recordSize);
+		record.putInt(fileId).putInt(pageNumber).putInt(length);
+		if (content != null) {
+			record.put(content);
+		}
+		record.putInt(checksum(record.array(), recordSize - 4));
+		record.flip();
+
+		int offset = active.size;
+		active.append(record);
+
+		long key = key(fileId, pageNumber);
+		Location previous = content == null ? index.remove(key)
+				: index.put(key, new Location(active.id, offset, length));
+		if (previous != null) {
+			Segment old = segments.get(previous.segmentId);
+			if (old != null) {
+				old.dead += previous.size();
+			}
+		}
+		if (content == null) {
+			active.dead += recordSize;
+		}
+	}
+
+	private void seal() throws IOException {
+		active.seal();
+		active = null;
+	}
+
+	private void scheduleCompaction() {
+		long total = 0;
+		long dead = 0;
+		for (Segment segment : segments.values()) {
+			if (segment != active) {
+				total += segment.size;
+				dead += segment.dead;
+			}
+		}
+		if (dead * 2 > total && dead > segmentSize / 4 && compacting.compareAndSet(false, true)) {
+			compactor.execute(() -> {
+				try {
+					compact();
+				} catch (IOException e) {
+					e.printStackTrace();
+					LOGGER.error(e.getMessage());
+				} finally {
+					compacting.set(false);
+				}
+			});
+		}
+	}
+
+	private void recover() throws IOException {
+		File[] files = directory.listFiles();
+		List<Segment> found = new ArrayList<>();
+		for (File file : files == null ? new File[0] : files) {
+			String name = file.getName();
+			if (name.endsWith(".tmp")) {
+				file.delete();
+			} else if (name.startsWith("segment-") && name.endsWith(".dat")) {
+				int id = Integer.parseInt(name.substring(8, name.length() - 4));
+				nextSegmentId = Math.max(nextSegmentId, id + 1);
+				found.add(Segment.open(file, id, true));
+			}
+		}
+
+		// a compacted segment replaces everything up to the segment it covers
+		Segment base = null;
+		for (Segment segment : found) {
+			if (segment.covers >= 0 && (base == null || segment.covers > base.covers
+					|| (segment.covers == base.covers && segment.id > base.id))) {
+				base = segment;
+			}
+		}
+		found.sort(Comparator.comparingLong(Segment::orderKey).thenComparingInt(segment -> segment.id));
+		for (Segment segment : found) {
+			if (base != null && segment != base && segment.orderKey() <= base.covers) {
+				segment.closeAndDelete();
+				continue;
+			}
+			replay(segment);
+			segments.put(segment.id, segment);
+		}
+	}
+
+	private void replay(Segment segment) throws IOException {
+		ByteBuffer buffer = segment.slice(0, segment.size);
+		int position = HEADER_SIZE;
+		while (position + RECORD_OVERHEAD <= segment.size) {
+			int fileId = buffer.getInt(position);
+			int pageNumber = buffer.getInt(position + 4);
+			int length = buffer.getInt(position + 8);
+			int recordSize = Math.max(length, 0) + RECORD_OVERHEAD;
+			if (length < TOMBSTONE || position + recordSize > segment.size) {
+				break;
+			}
+			byte[] record = new byte[recordSize - 4];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position);
+			view.get(record);
+			if (view.getInt() != checksum(record, record.length)) {
+				break;
+			}
+
+			long key = key(fileId, pageNumber);
+			Location previous = length == TOMBSTONE ? index.remove(key)
+					: index.put(key, new Location(segment.id, position, length));
+			if (previous != null) {
+				Segment old = previous.segmentId == segment.id ? segment : segments.get(previous.segmentId);
+				old.dead += previous.size();
+			}
+			if (length == TOMBSTONE) {
+				segment.dead += recordSize;
+			}
+			position += recordSize;
+		}
+		if (position < segment.size) {
+			LOGGER.warn("Truncating {} corrupt bytes from {}", segment.size - position, segment.file.getName());
+			segment.truncate(position);
+		}
+	}
+
+	private ConcurrentNavigableMap<Long, Location> pagesOf(int fileId) {
+		return index.subMap(key(fileId, 0), true, key(fileId, -1), true);
+	}
+
+	private static long key(int fileId, int pageNumber) {
+		return ((long) fileId << 32) | (pageNumber & 0xFFFFFFFFL);
+	}
+
+	private static String name(int segmentId) {
+		return String.format("segment-%08d.dat", segmentId);
+	}
+
+	private static int checksum(byte[] bytes, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+		return (int) crc.getValue();
+	}
+
+	private static void writeHeader(FileChannel channel, long covers) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putLong(covers).flip();
+		channel.write(header, 0);
+	}
+
+	private static final class Location {
+		final int segmentId;
+		final int offset;
+		final int length;
+
+		Location(int segmentId, int offset, int length) {
+			this.segmentId = segmentId;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		int size() {
+			return length + RECORD_OVERHEAD;
+		}
+	}
+
+	private static final class Segment {
+		final int id;
+		final File file;
+		final long covers;
+		final RandomAccessFile raf;
+		final FileChannel channel;
+		volatile int size;
+		volatile long dead;
+		// sealed segments no longer grow, so they are mapped once
+		private volatile boolean sealed;
+		private volatile MappedByteBuffer mapped;
+
+		private Segment(int id, File file, long covers, RandomAccessFile raf, boolean sealed) throws IOException {
+			this.id = id;
+			this.file = file;
+			this.covers = covers;
+			this.raf = raf;
+			this.channel = raf.getChannel();
+			this.size = (int) channel.size();
+			this.sealed = sealed;
+		}
+
+		static Segment create(File file, int id) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			writeHeader(raf.getChannel(), -1);
+			return new Segment(id, file, -1, raf, false);
+		}
+
+		static Segment open(File file, int id, boolean writable) throws IOException {
+			RandomAccessFile raf = new RandomAccessFile(file, writable ? "rw" : "r");
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			raf.getChannel().read(header, 0);
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+				raf.close();
+				throw new IOException("Not a page store segment: " + file);
+			}
+			// only new segments are appended to
+			return new Segment(id, file, header.getLong(), raf, true);
+		}
+
+		long orderKey() {
+			return covers >= 0 ? covers : id;
+		}
+
+		void append(ByteBuffer record) throws IOException {
+			int position = size;
+			while (record.hasRemaining()) {
+				position += channel.write(record, position);
+			}
+			size = position;
+		}
+
+		ByteBuffer slice(int offset, int length) throws IOException {
+			if (!sealed) {
+				return read(offset, length);
+			}
+			MappedByteBuffer buffer = mapped;
+			if (buffer == null || offset + length > buffer.capacity()) {
+				synchronized (this) {
+					buffer = mapped;
+					if (buffer == null || offset + length > buffer.capacity()) {
+						buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+						mapped = buffer;
+					}
+				}
+			}
+			ByteBuffer view = buffer.asReadOnlyBuffer();
+			view.position(offset);
+			view.limit(offset + length);
+			return view.slice();
+		}
+
+		private ByteBuffer read(int offset, int length) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, offset + buffer.position()) < 0) {
+					throw new IOException("Page store segment " + file.getName() + " ends before offset "
+							+ (offset + length));
+				}
+			}
+			buffer.flip();
+			return buffer.asReadOnlyBuffer();
+		}
+
+		void seal() throws IOException {
+			channel.force(true);
+			sealed = true;
+		}
+
+		void truncate(int length) throws IOException {
+			channel.truncate(length);
+			size = length;
+			mapped = null;
+		}
+
+		void close() throws IOException {
+			mapped = null;
+			raf.close();
+		}
+
+		void closeAndDelete() throws IOException {
+			close();
+			if (!file.delete()) {
+				// still mapped on some platforms; recovery skips covered segments
+				file.deleteOnExit();
+			}
+		}
+	}
+}
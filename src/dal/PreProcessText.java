@@ -1,30 +1,38 @@
 package dal;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import util.ArabicTokenizer;
 
 public class PreProcessText {
-	private static final Set<Character> DIACRITICS = new HashSet<>(
-			Arrays.asList('َ', 'ً', 'ُ', 'ٌ', 'ِ', 'ٍ', 'ْ', 'ّ'));
+	private static final ThreadLocal<ArabicNormalizer> HARAKAT_NORMALIZER = ThreadLocal
+			.withInitial(ArabicNormalizer::new);
+	private static final ThreadLocal<ArabicNormalizer> ARABIC_NORMALIZER = ThreadLocal
+			.withInitial(() -> new ArabicNormalizer(false, true));
 
 	public static String removeHarakat(String text) {
-		StringBuilder result = new StringBuilder();
-		for (char ch : text.toCharArray()) {
-			if (!DIACRITICS.contains(ch)) {
+		return HARAKAT_NORMALIZER.get().normalize(text).toString();
+	}
+
+	public static String removeNonArabicCharacters(String text) {
+		StringBuilder result = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ArabicTokenizer.isArabic(ch) || ArabicTokenizer.isSpace(ch)) {
 				result.append(ch);
 			}
 		}
 		return result.toString();
 	}
 
-	public static String removeNonArabicCharacters(String text) {
-		return text.replaceAll("[^\\p{IsArabic}\\s]", "");
+	public static String preprocessText(String text) {
+		return normalize(text).toString();
 	}
 
-	public static String preprocessText(String text) {
-		text = removeHarakat(text);
-		text = removeNonArabicCharacters(text);
-		return text.toLowerCase();
+	/**
+	 * Same result as {@link #preprocessText(String)} without building a String.
+	 * The returned view is this thread's reusable buffer and is only valid until
+	 * the next call on the same thread.
+	 */
+	public static CharSequence normalize(CharSequence text) {
+		return ARABIC_NORMALIZER.get().normalize(text);
 	}
 }
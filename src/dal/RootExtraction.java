@@ -1,6 +1,7 @@
 package dal;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -8,19 +9,27 @@ import org.apache.logging.log4j.Logger;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import pl.EditorPO;
+import util.ArabicTokenizer;
+import util.FlightEvents;
+import util.Metrics;
 
 public class RootExtraction {
 
 
+    private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+    private static final Metrics.Timer TIMER = Metrics.timer("analyzer.root");
+    private static final Metrics.Counter WORDS = Metrics.counter("analyzer.root.words");
+
     public static Map<String, String> extractRoots(String text) {
-    	final Logger logger = LogManager.getLogger(EditorPO.class);
+        SlowOperationLog.Operation operation = SlowOperationLog.begin("analyzer.root");
+        long started = System.nanoTime();
+        FlightEvents.Event batch = FlightEvents.ANALYZER_BATCH.begin();
         Map<String, String> wordRootMap = new HashMap<>();
 
-        String[] words = text.split("\\s+");
+        List<String> words = ArabicTokenizer.tokenize(text);
 
+        AlKhalil2Analyzer analyzer = AnalyzerPool.borrow();
         try {
-            AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
-
             if (analyzer != null) {
                 for (String word : words) {
                     String root = analyzer.processToken(word).getAllRootString(); // Get the root
@@ -33,13 +42,19 @@ public class RootExtraction {
                 }
             } else {
                 System.err.println("Failed to initialize AlKhalil2Analyzer.");
-                logger.error("Failed to initialize AlKhalil2Analyzer.");
+                LOGGER.error("Failed to initialize AlKhalil2Analyzer.");
             }
         } catch (Exception e) {
             System.err.println("Error while extracting roots: " + e.getMessage());
-            logger.error("Error while extracting roots: " + e.getMessage());
+            LOGGER.error("Error while extracting roots: {}", e.getMessage());
+        } finally {
+            AnalyzerPool.release(analyzer);
         }
 
+        TIMER.stop(started);
+        WORDS.add(words.size());
+        batch.set("analyzer", "root").set("tokens", words.size()).commit();
+        operation.size("tokens", words.size()).end();
         return wordRootMap;
     }
 }
\ No newline at end of file
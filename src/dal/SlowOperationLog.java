@@ -0,0 +1,146 @@
+package dal;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import util.StageTimer;
+
+/**
+ * Logs operations that take longer than a threshold, with the size of their
+ * input and, for DAO calls, the time spent in each {@link StageTimer} stage.
+ * Entries go to the {@code dal.SlowOperationLog} logger, which log4j2.xml
+ * sends to logs/slow-operations.log.
+ *
+ * The threshold is {@code slowlog.threshold} milliseconds in
+ * config.properties (default 1000) and can be set per operation with
+ * {@code slowlog.threshold.<operation>}, e.g.
+ * {@code slowlog.threshold.analyzer.lemmatization = 200}.
+ */
+public final class SlowOperationLog {
+	private static final Logger LOGGER = LogManager.getLogger(SlowOperationLog.class);
+	private static final long DEFAULT_THRESHOLD_MILLIS = 1000;
+
+	private static final ThreadLocal<Operation> CURRENT = new ThreadLocal<>();
+	private static volatile Properties settings;
+
+	private SlowOperationLog() {
+	}
+
+	/**
+	 * Starts timing an operation on this thread. The outermost operation also
+	 * collects the stage breakdown.
+	 */
+	public static Operation begin(String name) {
+		Operation operation = new Operation(name, CURRENT.get());
+		CURRENT.set(operation);
+		if (operation.parent == null) {
+			StageTimer.beginTrace();
+		}
+		return operation;
+	}
+
+	/** Adds a size to the operation running on this thread, if any. */
+	public static void size(String name, long value) {
+		Operation operation = CURRENT.get();
+		if (operation != null) {
+			operation.size(name, value);
+		}
+	}
+
+	/** Threshold for the operation in milliseconds. */
+	public static long thresholdMillis(String operation) {
+		Properties prop = settings();
+		String value = prop.getProperty("slowlog.threshold." + operation, prop.getProperty("slowlog.threshold"));
+		if (value != null) {
+			try {
+				return Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				LOGGER.error("Invalid slow operation threshold {} for {}", value, operation);
+			}
+		}
+		return DEFAULT_THRESHOLD_MILLIS;
+	}
+
+	/** Replaces the thresholds read from config.properties. */
+	public static void configure(Properties prop) {
+		settings = prop;
+	}
+
+	private static Properties settings() {
+		Properties prop = settings;
+		if (prop == null) {
+			prop = new Properties();
+			try (FileInputStream input = new FileInputStream("config.properties")) {
+				prop.load(input);
+			} catch (IOException e) {
+				// no config file, use the defaults
+			}
+			settings = prop;
+		}
+		return prop;
+	}
+
+	public static final class Operation {
+		private final String name;
+		private final Operation parent;
+		private final long started = System.nanoTime();
+		private final Map<String, Long> sizes = new LinkedHashMap<>();
+
+		private Operation(String name, Operation parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		public Operation size(String size, long value) {
+			sizes.put(size, value);
+			return this;
+		}
+
+		/** Stops timing and logs the operation if it was slow; returns whether it was. */
+		public boolean end() {
+			long elapsed = System.nanoTime() - started;
+			Map<String, Long> stages = null;
+			if (parent == null) {
+				stages = StageTimer.endTrace();
+				CURRENT.remove();
+			} else {
+				CURRENT.set(parent);
+			}
+			if (TimeUnit.NANOSECONDS.toMillis(elapsed) < thresholdMillis(name)) {
+				return false;
+			}
+			LOGGER.warn(describe(elapsed, stages));
+			return true;
+		}
+
+		private String describe(long elapsed, Map<String, Long> stages) {
+			StringBuilder text = new StringBuilder(name).append(" took ")
+					.append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append(" ms");
+			String separator = " (";
+			for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+				text.append(separator).append(entry.getKey()).append('=').append(entry.getValue());
+				separator = ", ";
+			}
+			if (!sizes.isEmpty()) {
+				text.append(')');
+			}
+			if (stages != null && !stages.isEmpty()) {
+				separator = " stages: ";
+				for (Map.Entry<String, Long> entry : stages.entrySet()) {
+					text.append(separator).append(entry.getKey()).append('=')
+							.append(String.format(Locale.ROOT, "%.1f ms", entry.getValue() / 1e6));
+					separator = ", ";
+				}
+			}
+			return text.toString();
+		}
+	}
+}
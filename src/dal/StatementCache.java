@@ -0,0 +1,142 @@
+package dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Prepared statements of one connection, keyed by SQL and reused across calls.
+ * The least recently used statement is closed once the cache is full, and
+ * {@link #close()} closes the rest. Statements handed out are owned by the
+ * cache: callers must not close them and must not share them across threads.
+ *
+ * Result sets opened through {@link #executeQuery(PreparedStatement)} are
+ * tracked so {@link #reportLeaks()} can count the ones left open. Only with
+ * {@code -Dstatements.debug=true} is the caller's stack trace recorded as well,
+ * to name the code that left them open.
+ */
+public class StatementCache implements AutoCloseable {
+	private static final Logger LOGGER = LogManager.getLogger(StatementCache.class);
+	private static final boolean DEBUG = Boolean.getBoolean("statements.debug");
+
+	private final Connection conn;
+	private final boolean traceResultSets;
+	private final Map<String, PreparedStatement> statements;
+	private final Map<ResultSet, Throwable> openResultSets = new IdentityHashMap<>();
+	private long prepared;
+	private long reused;
+
+	public StatementCache(Connection conn, int capacity) {
+		this(conn, capacity, DEBUG);
+	}
+
+	public StatementCache(Connection conn, int capacity, boolean traceResultSets) {
+		this.conn = conn;
+		this.traceResultSets = traceResultSets;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > capacity) {
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public synchronized PreparedStatement prepare(String sql) throws SQLException {
+		return prepare(sql, Statement.NO_GENERATED_KEYS);
+	}
+
+	public synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "keys:" + sql : sql;
+		PreparedStatement stmt = statements.get(key);
+		if (stmt != null && !stmt.isClosed()) {
+			stmt.clearParameters();
+			stmt.clearBatch();
+			reused++;
+			return stmt;
+		}
+		stmt = conn.prepareStatement(sql, autoGeneratedKeys);
+		statements.put(key, stmt);
+		prepared++;
+		return stmt;
+	}
+
+	/** Executes the query and tracks the result set until it is closed. */
+	public ResultSet executeQuery(PreparedStatement stmt) throws SQLException {
+		ResultSet rs = stmt.executeQuery();
+		synchronized (this) {
+			if (openResultSets.size() >= statements.size() + 16) {
+				openResultSets();
+			}
+			openResultSets.put(rs, traceResultSets ? new Throwable("Result set opened here") : null);
+		}
+		return rs;
+	}
+
+	public synchronized int cachedStatements() {
+		return statements.size();
+	}
+
+	public synchronized int openResultSets() {
+		Iterator<ResultSet> iterator = openResultSets.keySet().iterator();
+		while (iterator.hasNext()) {
+			try {
+				if (iterator.next().isClosed()) {
+					iterator.remove();
+				}
+			} catch (SQLException e) {
+				iterator.remove();
+			}
+		}
+		return openResultSets.size();
+	}
+
+	/** Logs every tracked result set that is still open; returns how many there were. */
+	public synchronized int reportLeaks() {
+		int open = openResultSets();
+		if (traceResultSets) {
+			for (Throwable origin : openResultSets.values()) {
+				LOGGER.warn("Unclosed result set", origin);
+			}
+		} else if (open > 0) {
+			LOGGER.warn("{} unclosed result sets, run with -Dstatements.debug=true to see where they were opened",
+					open);
+		}
+		LOGGER.info("Statement cache: {} cached, {} prepared, {} reused, {} open result sets", statements.size(),
+				prepared, reused, open);
+		return open;
+	}
+
+	@Override
+	public synchronized void close() {
+		reportLeaks();
+		for (PreparedStatement stmt : statements.values()) {
+			closeQuietly(stmt);
+		}
+		statements.clear();
+		openResultSets.clear();
+	}
+
+	private static void closeQuietly(Statement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+			LOGGER.error(e.getMessage());
+		}
+	}
+}
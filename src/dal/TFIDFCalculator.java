@@ -1,35 +1,45 @@
 package dal;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+
+import util.ArabicTokenizer;
 
 public class TFIDFCalculator {
 
-	private List<String> corpus = new ArrayList<>();
+	// only document frequencies are kept, so the corpus can be streamed through
+	private final Map<String, Integer> documentFrequencies = new HashMap<>();
+	private int documentCount;
 
 	public void addDocumentToCorpus(String document) {
-		corpus.add(PreProcessText.preprocessText(document));
+		Set<String> uniqueWords = new HashSet<>(ArabicTokenizer.tokenize(PreProcessText.preprocessText(document)));
+		for (String word : uniqueWords) {
+			documentFrequencies.merge(word, 1, Integer::sum);
+		}
+		documentCount++;
+	}
+
+	public int getDocumentCount() {
+		return documentCount;
 	}
 
 	public double calculateDocumentTfIdf(String document) {
-		String preprocessedDoc = PreProcessText.preprocessText(document);
-		String[] words = preprocessedDoc.split("\\s+");
-		List<String> wordList = Arrays.asList(words);
+		List<String> wordList = ArabicTokenizer.tokenize(PreProcessText.normalize(document));
+		if (wordList.isEmpty()) {
+			return 0.0;
+		}
 
 		Map<String, Double> tf = calculateTermFrequency(wordList);
-		Map<String, Double> idf = calculateInverseDocumentFrequency();
 
 		double totalTfIdf = 0.0;
-		for (String word : tf.keySet()) {
-			double tfValue = tf.get(word);
-			double idfValue = idf.getOrDefault(word, Math.log(corpus.size() + 1));
-			totalTfIdf += tfValue * idfValue;
+		for (Map.Entry<String, Double> entry : tf.entrySet()) {
+			Integer documentFrequency = documentFrequencies.get(entry.getKey());
+			double idfValue = documentFrequency == null ? Math.log(documentCount + 1)
+					: Math.log((double) documentCount / (1 + documentFrequency));
+			totalTfIdf += entry.getValue() * idfValue;
 		}
 
 		return totalTfIdf / wordList.size();
@@ -50,24 +60,6 @@ public class TFIDFCalculator {
 		return tf;
 	}
 
-	private Map<String, Double> calculateInverseDocumentFrequency() {
-		Map<String, Double> idf = new HashMap<>();
-		int totalDocs = corpus.size();
-
-		for (String doc : corpus) {
-			Set<String> uniqueWords = Arrays.stream(doc.split("\\s+")).collect(Collectors.toSet());
-			for (String word : uniqueWords) {
-				idf.put(word, idf.getOrDefault(word, 0.0) + 1);
-			}
-		}
-
-		for (String word : idf.keySet()) {
-			idf.put(word, Math.log((double) totalDocs / (1 + idf.get(word))));
-		}
-
-		return idf;
-	}
-
 //    public static void main(String[] args) {
 //        TFIDF calculator = new TFIDF();
 //        
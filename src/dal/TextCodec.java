@@ -0,0 +1,120 @@
+package dal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage codec for large text columns. Encoded values start with a marker
+ * character and a codec id followed by Base64 of the compressed UTF-8 bytes, so
+ * rows written before compression was enabled are returned unchanged by
+ * {@link #decode(String)}. Plain text that itself starts with the marker is
+ * stored behind a plain codec id, so it is never mistaken for compressed text.
+ *
+ * The deflate codec uses a preset dictionary of frequent Arabic words. Never
+ * edit the dictionary in place: add a new codec id so existing rows still
+ * inflate.
+ */
+public final class TextCodec {
+
+	public static final String NONE = "none";
+	public static final String DEFLATE = "deflate";
+
+	private static final char MARKER = '\u0001';
+	private static final char PLAIN = 'P';
+	private static final char DEFLATE_V1 = 'D';
+	private static final int MIN_LENGTH = 64;
+
+	// most frequent words last, where deflate finds them with the shortest distances
+	private static final byte[] DICTIONARY_V1 = ("وسلم عليه الله رسول النبي صلى يوم الناس الأرض السماء "
+			+ "الكتاب العلم القرآن الحديث الدين العرب اللغة العربية الكلمة الجملة الفعل الاسم الحرف "
+			+ "أيضا حيث بينما لكن لأن إلا سوف ليس كيف متى أين لماذا هناك هنا أول آخر كبير صغير جديد "
+			+ "عندما منذ خلال حول ضد دون فوق تحت أمام وراء ذلك تلك هؤلاء أولئك الذين اللذان اللتان "
+			+ "فقد وقد ولا ولم وما ومن وفي وعلى وإلى وعن وكان وهو وهي وهذا وهذه والتي والذي "
+			+ "بعض غير أي أو ثم قد لن لم هم هي هو مع عند كل حتى قبل بعد بين قال كانت كان "
+			+ "الذي التي هذه هذا لا ما إن أن عن إلى على من في ال وال بال لل فال كال ").getBytes(StandardCharsets.UTF_8);
+
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal
+			.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+	private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+	private TextCodec() {
+	}
+
+	/**
+	 * Encodes text for storage with the named codec. Text that is short or
+	 * does not shrink is stored as is.
+	 */
+	public static String encode(String text, String codec) {
+		if (text == null || !DEFLATE.equals(codec) || text.length() < MIN_LENGTH) {
+			return plain(text);
+		}
+		byte[] input = text.getBytes(StandardCharsets.UTF_8);
+		Deflater deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setDictionary(DICTIONARY_V1);
+		deflater.setInput(input);
+		deflater.finish();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 16);
+		byte[] chunk = new byte[4096];
+		while (!deflater.finished()) {
+			output.write(chunk, 0, deflater.deflate(chunk));
+		}
+
+		String encoded = new StringBuilder().append(MARKER).append(DEFLATE_V1)
+				.append(Base64.getEncoder().encodeToString(output.toByteArray())).toString();
+		return encoded.length() < input.length ? encoded : plain(text);
+	}
+
+	/** Decodes a stored value; values without the codec marker are plain text. */
+	public static String decode(String stored) {
+		if (!isEncoded(stored)) {
+			return stored;
+		}
+		if (stored.charAt(1) == PLAIN) {
+			return stored.substring(2);
+		}
+		if (stored.charAt(1) != DEFLATE_V1) {
+			throw new IllegalArgumentException("Unknown text codec '" + stored.charAt(1) + "'");
+		}
+		byte[] input = Base64.getDecoder().decode(stored.substring(2));
+		Inflater inflater = INFLATER.get();
+		inflater.reset();
+		inflater.setInput(input);
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 4);
+		byte[] chunk = new byte[4096];
+		try {
+			while (!inflater.finished()) {
+				int count = inflater.inflate(chunk);
+				if (count == 0) {
+					if (inflater.needsDictionary()) {
+						inflater.setDictionary(DICTIONARY_V1);
+					} else if (inflater.needsInput()) {
+						throw new IllegalArgumentException("Truncated compressed text");
+					}
+				}
+				output.write(chunk, 0, count);
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalArgumentException("Corrupt compressed text", e);
+		}
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/** Marks text that starts with the codec marker as plain; other text is stored as is. */
+	private static String plain(String text) {
+		if (text != null && !text.isEmpty() && text.charAt(0) == MARKER) {
+			return new StringBuilder(text.length() + 2).append(MARKER).append(PLAIN).append(text).toString();
+		}
+		return text;
+	}
+
+	public static boolean isEncoded(String stored) {
+		return stored != null && stored.length() >= 2 && stored.charAt(0) == MARKER;
+	}
+}
@@ -1,85 +1,157 @@
 package dal;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 public class Transliteration {
 
+    private static final char BLOCK_START = '\u0600';
+    private static final char BLOCK_END = '\u06FF';
 
-    private static final Map<Character, String> transliterationMap = new HashMap<>();
+    // Direct-indexed by (ch - BLOCK_START); null means the character is skipped.
+    private static final String[] ROMAN = new String[BLOCK_END - BLOCK_START + 1];
+    private static final String[] CAPITALIZED = new String[BLOCK_END - BLOCK_START + 1];
 
     static {
-        transliterationMap.put('ا', "a");
-        transliterationMap.put('آ', "aa");
-        transliterationMap.put('ب', "b");
-        transliterationMap.put('ت', "t");
-        transliterationMap.put('ث', "th");
-        transliterationMap.put('ج', "j"); 
-        transliterationMap.put('ح', "H"); 
-        transliterationMap.put('خ', "kh");
-        transliterationMap.put('د', "d");
-        transliterationMap.put('ذ', "dh");
-        transliterationMap.put('ر', "r");
-        transliterationMap.put('ز', "z");
-        transliterationMap.put('س', "s");
-        transliterationMap.put('ش', "sh");
-        transliterationMap.put('ص', "S"); 
-        transliterationMap.put('ض', "D"); 
-        transliterationMap.put('ط', "T"); 
-        transliterationMap.put('ظ', "DH"); 
-        transliterationMap.put('ع', "3"); 
-        transliterationMap.put('غ', "gh");
-        transliterationMap.put('ف', "f");
-        transliterationMap.put('ق', "q");
-        transliterationMap.put('ك', "k");
-        transliterationMap.put('ل', "l");
-        transliterationMap.put('م', "m");
-        transliterationMap.put('ن', "n");
-        transliterationMap.put('ه', "h");
-        transliterationMap.put('و', "w"); 
-        transliterationMap.put('ي', "y"); 
-        transliterationMap.put('ء', "'");
+        put('ا', "a");
+        put('آ', "aa");
+        put('ب', "b");
+        put('ت', "t");
+        put('ث', "th");
+        put('ج', "j"); 
+        put('ح', "H"); 
+        put('خ', "kh");
+        put('د', "d");
+        put('ذ', "dh");
+        put('ر', "r");
+        put('ز', "z");
+        put('س', "s");
+        put('ش', "sh");
+        put('ص', "S"); 
+        put('ض', "D"); 
+        put('ط', "T"); 
+        put('ظ', "DH"); 
+        put('ع', "3"); 
+        put('غ', "gh");
+        put('ف', "f");
+        put('ق', "q");
+        put('ك', "k");
+        put('ل', "l");
+        put('م', "m");
+        put('ن', "n");
+        put('ه', "h");
+        put('و', "w"); 
+        put('ي', "y"); 
+        put('ء', "'");
         // Adding vowels for pronunciation
-        transliterationMap.put('َ', "a");
-        transliterationMap.put('ُ', "u");
-        transliterationMap.put('ِ', "i");
+        put('َ', "a");
+        put('ُ', "u");
+        put('ِ', "i");
     }
 
+    private static void put(char arabic, String roman) {
+        ROMAN[arabic - BLOCK_START] = roman;
+        CAPITALIZED[arabic - BLOCK_START] = Character.toUpperCase(roman.charAt(0)) + roman.substring(1);
+    }
 
     public static String transliterate(String arabicText) {
-        StringBuilder romanText = new StringBuilder();
-        boolean lastCharWasSpace = false;
+        StringBuilder romanText = new StringBuilder(arabicText.length());
+        try {
+            transliterate(arabicText, romanText);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return romanText.toString();
+    }
+
+    public static void transliterate(CharSequence arabicText, Appendable out) throws IOException {
+        TransliterationWriter writer = new TransliterationWriter(out);
+        for (int i = 0; i < arabicText.length(); i++) {
+            writer.put(arabicText.charAt(i));
+        }
+    }
+
+    public static void transliterate(Reader arabicText, Appendable out) throws IOException {
+        TransliterationWriter writer = new TransliterationWriter(out);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = arabicText.read(buffer)) != -1) {
+            writer.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Returns a Writer that transliterates everything written to it into out.
+     * Word boundaries are tracked across writes, so a document can be streamed
+     * through it in chunks.
+     */
+    public static Writer writer(Appendable out) {
+        return new TransliterationWriter(out);
+    }
+
+    private static class TransliterationWriter extends Writer {
+        private final Appendable out;
+        private boolean wordStart = true;
+        private boolean pendingSpace = false;
+        private boolean written = false;
+
+        TransliterationWriter(Appendable out) {
+            this.out = out;
+        }
 
-        for (char ch : arabicText.toCharArray()) {
+        void put(char ch) throws IOException {
             if (ch == ' ') {
-                if (!lastCharWasSpace) {
-                    romanText.append(" ");
-                    lastCharWasSpace = true;
-                }
-                continue;
+                wordStart = true;
+                pendingSpace = written;
+                return;
             }
+            if (ch < BLOCK_START || ch > BLOCK_END) {
+                return;
+            }
+            String romanEquivalent = wordStart ? CAPITALIZED[ch - BLOCK_START] : ROMAN[ch - BLOCK_START];
+            if (romanEquivalent == null) {
+                return;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(romanEquivalent);
+            wordStart = false;
+            written = true;
+        }
 
-            if (!transliterationMap.containsKey(ch))
-                continue;
-
-            String romanEquivalent = transliterationMap.get(ch);
-            romanText.append(romanEquivalent);
-            lastCharWasSpace = false;
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                put(cbuf[i]);
+            }
         }
 
-        // Formatting words and capitalizing each word's first letter
-        String[] words = romanText.toString().split(" ");
-        StringBuilder formattedText = new StringBuilder();
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                put(str.charAt(i));
+            }
+        }
 
-        for (String word : words) {
-            if (word.isEmpty())
-                continue;
-            formattedText.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1)).append(" ");
+        @Override
+        public void flush() throws IOException {
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
         }
 
-        return formattedText.toString().trim();
+        @Override
+        public void close() throws IOException {
+            if (out instanceof Closeable) {
+                ((Closeable) out).close();
+            }
+        }
     }
 }
-
-
-
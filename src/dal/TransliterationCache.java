@@ -0,0 +1,36 @@
+package dal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of transliterated text keyed by the hash of the Arabic
+ * source, so unchanged pages are never transliterated twice.
+ */
+public class TransliterationCache {
+
+	private final Map<String, String> entries;
+
+	public TransliterationCache(int maxEntries) {
+		this.entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	public synchronized String get(String sourceHash) {
+		return entries.get(sourceHash);
+	}
+
+	public synchronized void put(String sourceHash, String transliteratedText) {
+		entries.put(sourceHash, transliteratedText);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+}
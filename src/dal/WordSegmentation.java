@@ -10,20 +10,28 @@ import org.apache.logging.log4j.Logger;
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 import net.oujda_nlp_team.entity.Result;
 import pl.EditorPO;
+import util.ArabicTokenizer;
+import util.FlightEvents;
+import util.Metrics;
 
 public class WordSegmentation {
 
+	private static final Logger LOGGER = LogManager.getLogger(EditorPO.class);
+	private static final Metrics.Timer TIMER = Metrics.timer("analyzer.segment");
+	private static final Metrics.Counter WORDS = Metrics.counter("analyzer.segment.words");
+
 	public static Map<String, String> extractSegments(String text) {
+		SlowOperationLog.Operation operation = SlowOperationLog.begin("analyzer.segment");
+		long started = System.nanoTime();
+		FlightEvents.Event batch = FlightEvents.ANALYZER_BATCH.begin();
 
 		Map<String, String> wordSegmentMap = new LinkedHashMap<>();
-		final Logger logger = LogManager.getLogger(EditorPO.class);
 
-		String[] words = text.split("\\s+");
+		List<String> words = ArabicTokenizer.tokenize(text);
 
+		AlKhalil2Analyzer analyzer = AnalyzerPool.borrow();
 		try {
 
-			AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
-
 			if (analyzer != null) {
 				for (String word : words) {
 
@@ -54,13 +62,19 @@ public class WordSegmentation {
 				}
 			} else {
 				System.err.println("Failed to initialize AlKhalil2Analyzer.");
-				logger.error("Failed to initialize AlKhalil2Analyzer.");
+				LOGGER.error("Failed to initialize AlKhalil2Analyzer.");
 			}
 		} catch (Exception e) {
 			System.err.println("Error while extracting word segments: " + e.getMessage());
-			logger.error("Error while extracting word segments: " + e.getMessage());
+			LOGGER.error("Error while extracting word segments: {}", e.getMessage());
+		} finally {
+			AnalyzerPool.release(analyzer);
 		}
 
+		TIMER.stop(started);
+		WORDS.add(words.size());
+		batch.set("analyzer", "segment").set("tokens", words.size()).commit();
+		operation.size("tokens", words.size()).end();
 		return wordSegmentMap;
 	}
 
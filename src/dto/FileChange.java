@@ -0,0 +1,46 @@
+package dto;
+
+/**
+ * One entry of the change log: a file was created, one of its pages was
+ * updated, or it was deleted. Sequence numbers only grow, so a client that
+ * remembers the last one it saw can ask for everything after it.
+ */
+public class FileChange {
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	private long sequence;
+	private int fileId;
+	private int pageNumber;
+	private Type type;
+
+	public FileChange(long sequence, int fileId, int pageNumber, Type type) {
+		this.sequence = sequence;
+		this.fileId = fileId;
+		this.pageNumber = pageNumber;
+		this.type = type;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public int getFileId() {
+		return fileId;
+	}
+
+	/** The updated page, or 0 when the whole file was created or deleted. */
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public String toString() {
+		return sequence + " " + type + " file " + fileId + (pageNumber > 0 ? " page " + pageNumber : "");
+	}
+}
@@ -0,0 +1,53 @@
+package dto;
+
+import java.util.Comparator;
+
+/** Columns the file listing can be sorted by; ties are broken by file id. */
+public enum FileSortOrder {
+	NAME("fileName"), LAST_MODIFIED("lastModified"), DATE_CREATED("dateCreated"), TFIDF("tfidfScore");
+
+	private final String column;
+
+	FileSortOrder(String column) {
+		this.column = column;
+	}
+
+	/** The indexed files column this order sorts on. */
+	public String getColumn() {
+		return column;
+	}
+
+	/** The value of this order's column for the given row, used as a keyset bound. */
+	public Object keyOf(FileSummary file) {
+		switch (this) {
+		case NAME:
+			return file.getFileName();
+		case LAST_MODIFIED:
+			return file.getLastModified();
+		case DATE_CREATED:
+			return file.getDateCreated();
+		default:
+			return file.getTfidfScore();
+		}
+	}
+
+	/** Ascending order on this column, then on file id. */
+	public Comparator<FileSummary> comparator() {
+		Comparator<FileSummary> byColumn;
+		switch (this) {
+		case NAME:
+			byColumn = Comparator.comparing(FileSummary::getFileName, String.CASE_INSENSITIVE_ORDER);
+			break;
+		case LAST_MODIFIED:
+			byColumn = Comparator.comparing(FileSummary::getLastModified);
+			break;
+		case DATE_CREATED:
+			byColumn = Comparator.comparing(FileSummary::getDateCreated);
+			break;
+		default:
+			byColumn = Comparator.comparingDouble(FileSummary::getTfidfScore);
+			break;
+		}
+		return byColumn.thenComparingInt(FileSummary::getFileId);
+	}
+}
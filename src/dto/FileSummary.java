@@ -0,0 +1,37 @@
+package dto;
+
+public class FileSummary {
+	private int fileId;
+	private String fileName;
+	private String lastModified;
+	private String dateCreated;
+	private double tfidfScore;
+
+	public FileSummary(int fileId, String fileName, String lastModified, String dateCreated, double tfidfScore) {
+		this.fileId = fileId;
+		this.fileName = fileName;
+		this.lastModified = lastModified;
+		this.dateCreated = dateCreated;
+		this.tfidfScore = tfidfScore;
+	}
+
+	public int getFileId() {
+		return fileId;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public String getDateCreated() {
+		return dateCreated;
+	}
+
+	public double getTfidfScore() {
+		return tfidfScore;
+	}
+}
@@ -0,0 +1,300 @@
+package dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON for the analysis service. {@link #write(Object)} accepts maps,
+ * collections, strings, numbers, booleans and null; {@link #parse(String)}
+ * returns the same kinds, with objects as {@link LinkedHashMap}, arrays as
+ * {@link ArrayList} and numbers as {@link Long} or {@link Double}. Objects and
+ * arrays may nest {@value #MAX_DEPTH} deep, so untrusted input cannot overflow
+ * the stack.
+ */
+public final class Json {
+	public static final int MAX_DEPTH = 64;
+
+	private Json() {
+	}
+
+	public static String write(Object value) {
+		StringBuilder out = new StringBuilder();
+		write(value, out);
+		return out.toString();
+	}
+
+	private static void write(Object value, StringBuilder out) {
+		if (value == null) {
+			out.append("null");
+		} else if (value instanceof String) {
+			writeString((String) value, out);
+		} else if (value instanceof Double || value instanceof Float) {
+			double number = ((Number) value).doubleValue();
+			out.append(Double.isNaN(number) || Double.isInfinite(number) ? "null" : String.valueOf(number));
+		} else if (value instanceof Number || value instanceof Boolean) {
+			out.append(value);
+		} else if (value instanceof Map) {
+			out.append('{');
+			boolean first = true;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				if (!first) {
+					out.append(',');
+				}
+				writeString(String.valueOf(entry.getKey()), out);
+				out.append(':');
+				write(entry.getValue(), out);
+				first = false;
+			}
+			out.append('}');
+		} else if (value instanceof Iterable) {
+			out.append('[');
+			boolean first = true;
+			for (Object item : (Iterable<?>) value) {
+				if (!first) {
+					out.append(',');
+				}
+				write(item, out);
+				first = false;
+			}
+			out.append(']');
+		} else {
+			throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+		}
+	}
+
+	private static void writeString(String text, StringBuilder out) {
+		out.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append(String.format("\\u%04x", (int) c));
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+
+	/** Parses a JSON document; throws {@link IllegalArgumentException} if it is malformed. */
+	public static Object parse(String text) {
+		Parser parser = new Parser(text);
+		Object value = parser.value();
+		parser.skipWhitespace();
+		if (parser.position != text.length()) {
+			throw parser.error("unexpected trailing characters");
+		}
+		return value;
+	}
+
+	private static final class Parser {
+		private final String text;
+		private int position;
+		private int depth;
+
+		Parser(String text) {
+			this.text = text;
+		}
+
+		Object value() {
+			skipWhitespace();
+			if (position >= text.length()) {
+				throw error("unexpected end");
+			}
+			char c = text.charAt(position);
+			switch (c) {
+			case '{':
+			case '[':
+				if (depth == MAX_DEPTH) {
+					throw error("nested deeper than " + MAX_DEPTH);
+				}
+				depth++;
+				try {
+					return c == '{' ? object() : array();
+				} finally {
+					depth--;
+				}
+			case '"':
+				return string();
+			case 't':
+				return literal("true", Boolean.TRUE);
+			case 'f':
+				return literal("false", Boolean.FALSE);
+			case 'n':
+				return literal("null", null);
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					return number();
+				}
+				throw error("unexpected character '" + c + "'");
+			}
+		}
+
+		private Map<String, Object> object() {
+			Map<String, Object> object = new LinkedHashMap<>();
+			position++;
+			skipWhitespace();
+			if (peek() == '}') {
+				position++;
+				return object;
+			}
+			while (true) {
+				skipWhitespace();
+				if (peek() != '"') {
+					throw error("expected a member name");
+				}
+				String name = string();
+				skipWhitespace();
+				expect(':');
+				object.put(name, value());
+				skipWhitespace();
+				if (peek() == ',') {
+					position++;
+				} else {
+					expect('}');
+					return object;
+				}
+			}
+		}
+
+		private List<Object> array() {
+			List<Object> array = new ArrayList<>();
+			position++;
+			skipWhitespace();
+			if (peek() == ']') {
+				position++;
+				return array;
+			}
+			while (true) {
+				array.add(value());
+				skipWhitespace();
+				if (peek() == ',') {
+					position++;
+				} else {
+					expect(']');
+					return array;
+				}
+			}
+		}
+
+		private String string() {
+			StringBuilder out = new StringBuilder();
+			position++;
+			while (position < text.length()) {
+				char c = text.charAt(position++);
+				if (c == '"') {
+					return out.toString();
+				} else if (c == '\\') {
+					if (position >= text.length()) {
+						break;
+					}
+					char escaped = text.charAt(position++);
+					switch (escaped) {
+					case 'n':
+						out.append('\n');
+						break;
+					case 'r':
+						out.append('\r');
+						break;
+					case 't':
+						out.append('\t');
+						break;
+					case 'b':
+						out.append('\b');
+						break;
+					case 'f':
+						out.append('\f');
+						break;
+					case 'u':
+						if (position + 4 > text.length()) {
+							throw error("truncated unicode escape");
+						}
+						try {
+							out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+						} catch (NumberFormatException e) {
+							throw error("invalid unicode escape");
+						}
+						position += 4;
+						break;
+					default:
+						out.append(escaped);
+					}
+				} else {
+					out.append(c);
+				}
+			}
+			throw error("unterminated string");
+		}
+
+		private Number number() {
+			int start = position;
+			if (peek() == '-') {
+				position++;
+			}
+			boolean decimal = false;
+			while (position < text.length()) {
+				char c = text.charAt(position);
+				if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+					decimal = true;
+				} else if (c < '0' || c > '9') {
+					break;
+				}
+				position++;
+			}
+			String number = text.substring(start, position);
+			try {
+				return decimal ? (Number) Double.parseDouble(number) : (Number) Long.parseLong(number);
+			} catch (NumberFormatException e) {
+				throw error("invalid number " + number);
+			}
+		}
+
+		private Object literal(String word, Object value) {
+			if (!text.startsWith(word, position)) {
+				throw error("unexpected token");
+			}
+			position += word.length();
+			return value;
+		}
+
+		private char peek() {
+			return position < text.length() ? text.charAt(position) : '\0';
+		}
+
+		private void expect(char c) {
+			if (peek() != c) {
+				throw error("expected '" + c + "'");
+			}
+			position++;
+		}
+
+		void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid JSON at " + position + ": " + message);
+		}
+	}
+}
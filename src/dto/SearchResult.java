@@ -0,0 +1,58 @@
+package dto;
+
+public class SearchResult {
+	private int fileId;
+	private String fileName;
+	private int pageNumber;
+	private double score;
+	private String snippet;
+
+	public SearchResult(int fileId, String fileName, int pageNumber, double score, String snippet) {
+		this.fileId = fileId;
+		this.fileName = fileName;
+		this.pageNumber = pageNumber;
+		this.score = score;
+		this.snippet = snippet;
+	}
+
+	public int getFileId() {
+		return fileId;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public String getSnippet() {
+		return snippet;
+	}
+
+	public void setFileId(int fileId) {
+		this.fileId = fileId;
+	}
+
+	public void setFileName(String fileName) {
+		this.fileName = fileName;
+	}
+
+	public void setPageNumber(int pageNumber) {
+		this.pageNumber = pageNumber;
+	}
+
+	public void setScore(double score) {
+		this.score = score;
+	}
+
+	public void setSnippet(String snippet) {
+		this.snippet = snippet;
+	}
+
+}
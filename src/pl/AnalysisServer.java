@@ -0,0 +1,379 @@
+package pl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import bll.IEditorBO;
+import dto.Json;
+import dto.SearchResult;
+import util.Metrics;
+
+/**
+ * Serves {@link IEditorBO} analysis, search and file writes as JSON over HTTP,
+ * so clients can leave the heavy work to one machine. Requests are accepted on
+ * the server's dispatcher thread and run on a fixed pool of workers; when the
+ * pool's queue is full the request is answered with 503 straight away.
+ *
+ * <pre>
+ * GET  /status                                     worker pool and analyzer state
+ * GET  /metrics                                    every metric, one per line
+ * POST /analysis/{lemmas|pos|roots|stems|segments|pmi|pkl}   {"text": ...}
+ * POST /tfidf                                      {"corpus": [...], "document": ...}
+ * GET  /search?q=...&amp;offset=0&amp;limit=20            ranked pages
+ * GET  /search/files?q=...                         names of files containing q
+ * POST /files                                      {"name": ..., "content": ...}
+ * PUT  /files/{id}/pages/{page}                    {"name": ..., "content": ...}
+ * </pre>
+ *
+ * Errors are {@code {"error": message}} with status 400, 404, 413, 500 or 503.
+ * Request bodies are limited to {@link #MAX_BODY_BYTES}. There is no
+ * authentication, so bind the server to loopback unless the network is
+ * trusted.
+ */
+public class AnalysisServer {
+	private static final Logger logger = LogManager.getLogger(AnalysisServer.class);
+
+	private static final Metrics.Counter REQUESTS = Metrics.counter("http.requests");
+	private static final Metrics.Counter REJECTED = Metrics.counter("http.rejected");
+	private static final Metrics.Counter ERRORS = Metrics.counter("http.errors");
+	private static final Metrics.Timer QUEUE_WAIT = Metrics.timer("http.queueWait");
+	private static final Metrics.Histogram QUEUE_DEPTH = Metrics.histogram("http.queueDepth");
+
+	public static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+	private final IEditorBO businessObj;
+	private final HttpServer server;
+	private final ThreadPoolExecutor workers;
+	private final int queueCapacity;
+
+	public AnalysisServer(IEditorBO businessObj, InetSocketAddress address, int threads, int queueCapacity)
+			throws IOException {
+		this.businessObj = businessObj;
+		this.queueCapacity = queueCapacity;
+		AtomicInteger count = new AtomicInteger();
+		this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "http-worker-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.server = HttpServer.create(address, 0);
+		server.createContext("/", this::dispatch);
+	}
+
+	public void start() {
+		server.start();
+		logger.info("Analysis service listening on {}", server.getAddress());
+		if (!server.getAddress().getAddress().isLoopbackAddress()) {
+			logger.warn("Analysis service accepts unauthenticated requests from the network on {}",
+					server.getAddress());
+		}
+	}
+
+	/** Stops accepting requests and waits up to {@code delaySeconds} for running ones. */
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+		workers.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void dispatch(HttpExchange exchange) {
+		REQUESTS.inc();
+		long accepted = System.nanoTime();
+		try {
+			workers.execute(() -> {
+				QUEUE_WAIT.stop(accepted);
+				handle(exchange);
+			});
+			QUEUE_DEPTH.update(workers.getQueue().size());
+		} catch (RejectedExecutionException e) {
+			REJECTED.inc();
+			respond(exchange, 503, error("Server busy, try again later"));
+		}
+	}
+
+	private void handle(HttpExchange exchange) {
+		String method = exchange.getRequestMethod();
+		String path = exchange.getRequestURI().getPath();
+		long started = System.nanoTime();
+		try {
+			Map<String, Object> body = null;
+			if (method.equals("POST") || method.equals("PUT")) {
+				Object parsed = Json.parse(readBody(exchange));
+				if (!(parsed instanceof Map)) {
+					throw new IllegalArgumentException("Request body must be a JSON object");
+				}
+				body = cast(parsed);
+			}
+			Object result = route(method, path, query(exchange.getRequestURI().getRawQuery()), body);
+			if (result instanceof String) {
+				respond(exchange, 200, "text/plain; charset=utf-8", (String) result);
+			} else {
+				respond(exchange, 200, result);
+			}
+		} catch (BodyTooLargeException e) {
+			respond(exchange, 413, error(e.getMessage()));
+		} catch (NoSuchElementException e) {
+			respond(exchange, 404, error(e.getMessage()));
+		} catch (IllegalArgumentException | ClassCastException e) {
+			respond(exchange, 400, error(e.getMessage()));
+		} catch (Exception e) {
+			ERRORS.inc();
+			logger.error("{} {} failed: {}", method, path, e.toString());
+			respond(exchange, 500, error(e.toString()));
+		} catch (Error e) {
+			// answer anyway, or the client waits until it times out
+			ERRORS.inc();
+			logger.error("{} {} failed: {}", method, path, e.toString());
+			respond(exchange, 500, error(e.getClass().getSimpleName()));
+		} finally {
+			Metrics.timer("http." + endpoint(path)).stop(started);
+		}
+	}
+
+	private Object route(String method, String path, Map<String, String> query, Map<String, Object> body) {
+		String[] parts = path.replaceAll("^/+|/+$", "").split("/");
+		String route = method + " /" + (parts.length > 0 ? parts[0] : "");
+		switch (route) {
+		case "GET /status":
+			return status();
+		case "GET /metrics":
+			return Metrics.snapshot();
+		case "POST /analysis":
+			return analyse(parts.length == 2 ? parts[1] : "", text(body, "text"));
+		case "POST /tfidf":
+			List<String> corpus = new ArrayList<>();
+			for (Object document : list(body, "corpus")) {
+				corpus.add((String) document);
+			}
+			return single("score", businessObj.performTFIDF(corpus, text(body, "document")));
+		case "GET /search":
+			String keyword = required(query, "q");
+			if (parts.length == 2 && parts[1].equals("files")) {
+				return businessObj.searchKeyword(keyword);
+			} else if (parts.length == 1) {
+				return searchResults(businessObj.searchKeywordRanked(keyword, integer(query, "offset", 0),
+						integer(query, "limit", 20)));
+			}
+			break;
+		case "POST /files":
+			if (parts.length == 1) {
+				return single("created", businessObj.createFile(text(body, "name"), text(body, "content")));
+			}
+			break;
+		case "PUT /files":
+			if (parts.length == 4 && parts[2].equals("pages")) {
+				return single("updated", businessObj.updateFile(parseInt(parts[1]), text(body, "name"),
+						parseInt(parts[3]), text(body, "content")));
+			}
+			break;
+		default:
+			break;
+		}
+		throw new NoSuchElementException("No endpoint for " + method + " " + path);
+	}
+
+	private Object analyse(String analysis, String text) {
+		switch (analysis) {
+		case "lemmas":
+			return businessObj.lemmatizeWords(text);
+		case "pos":
+			return businessObj.extractPOS(text);
+		case "roots":
+			return businessObj.extractRoots(text);
+		case "stems":
+			return businessObj.stemWords(text);
+		case "segments":
+			return businessObj.segmentWords(text);
+		case "pmi":
+			return businessObj.performPMI(text);
+		case "pkl":
+			return businessObj.performPKL(text);
+		default:
+			throw new NoSuchElementException("No analysis named " + analysis);
+		}
+	}
+
+	private Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		CompletableFuture<?> analyzer = businessObj.warmUpAnalyzer();
+		status.put("analyzerReady", analyzer.isDone() && !analyzer.isCompletedExceptionally());
+		status.put("workers", workers.getMaximumPoolSize());
+		status.put("active", workers.getActiveCount());
+		status.put("queued", workers.getQueue().size());
+		status.put("queueCapacity", queueCapacity);
+		status.put("completed", workers.getCompletedTaskCount());
+		status.put("rejected", REJECTED.getCount());
+		return status;
+	}
+
+	private static List<Map<String, Object>> searchResults(List<SearchResult> results) {
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (SearchResult result : results) {
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("fileId", result.getFileId());
+			row.put("fileName", result.getFileName());
+			row.put("pageNumber", result.getPageNumber());
+			row.put("score", result.getScore());
+			row.put("snippet", result.getSnippet());
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private static String endpoint(String path) {
+		String[] parts = path.replaceAll("^/+|/+$", "").split("/");
+		if (parts[0].equals("analysis") && parts.length == 2) {
+			return "analysis." + parts[1];
+		} else if (parts[0].equals("search") && parts.length == 2) {
+			return "search.files";
+		}
+		return parts[0].isEmpty() ? "root" : parts[0];
+	}
+
+	private static Map<String, Object> single(String name, Object value) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put(name, value);
+		return result;
+	}
+
+	private static Map<String, Object> error(String message) {
+		return single("error", message);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> cast(Object object) {
+		return (Map<String, Object>) object;
+	}
+
+	private static String text(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+		if (!(value instanceof String)) {
+			throw new IllegalArgumentException("Missing string field " + name);
+		}
+		return (String) value;
+	}
+
+	private static List<?> list(Map<String, Object> body, String name) {
+		Object value = body.get(name);
+		if (!(value instanceof List)) {
+			throw new IllegalArgumentException("Missing array field " + name);
+		}
+		return (List<?>) value;
+	}
+
+	private static String required(Map<String, String> query, String name) {
+		String value = query.get(name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Missing query parameter " + name);
+		}
+		return value;
+	}
+
+	private static int integer(Map<String, String> query, String name, int defaultValue) {
+		String value = query.get(name);
+		return value == null ? defaultValue : parseInt(value);
+	}
+
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a number: " + value);
+		}
+	}
+
+	private static Map<String, String> query(String rawQuery) throws UnsupportedEncodingException {
+		Map<String, String> query = new LinkedHashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				query.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+						URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+			}
+		}
+		return query;
+	}
+
+	private static String readBody(HttpExchange exchange) throws IOException {
+		String length = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (length != null && parseLength(length) > MAX_BODY_BYTES) {
+			throw new BodyTooLargeException();
+		}
+		InputStream input = exchange.getRequestBody();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1) {
+			if (body.size() + read > MAX_BODY_BYTES) {
+				throw new BodyTooLargeException();
+			}
+			body.write(buffer, 0, read);
+		}
+		return new String(body.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static long parseLength(String length) {
+		try {
+			return Long.parseLong(length.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a number: " + length);
+		}
+	}
+
+	private static class BodyTooLargeException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		BodyTooLargeException() {
+			super("Request body is larger than " + MAX_BODY_BYTES + " bytes");
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int status, Object body) {
+		respond(exchange, status, "application/json; charset=utf-8", Json.write(body));
+	}
+
+	private static void respond(HttpExchange exchange, int status, String contentType, String body) {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		try {
+			exchange.getResponseHeaders().set("Content-Type", contentType);
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		} catch (IOException e) {
+			logger.error("Could not answer {}: {}", exchange.getRequestURI(), e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+}
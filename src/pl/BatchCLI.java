@@ -0,0 +1,347 @@
+package pl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import bll.IEditorBO;
+import dto.Documents;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import dto.Pages;
+
+/**
+ * Headless batch jobs over the same business layer as the editor window.
+ *
+ * <pre>
+ * java -cp bin:resource/* Driver import &lt;dir&gt; [--recursive] [--parallel=4] [--batch=50]
+ * java -cp bin:resource/* Driver reanalyze [--parallel=4] [--batch=50]
+ * java -cp bin:resource/* Driver export &lt;dir&gt; [--parallel=4] [--batch=50]
+ * java -cp bin:resource/* Driver reindex
+ * java -cp bin:resource/* Driver serve [--port=8090] [--bind=127.0.0.1] [--parallel=4] [--queue=100]
+ * </pre>
+ *
+ * import loads the .txt files of a directory in batches of {@code --batch}
+ * files; reanalyze saves every page again so its analyses are recomputed;
+ * export writes every file's text and an index.tsv of the files; reindex adds
+ * pages saved before ranked search existed to its index. Work is spread
+ * over {@code --parallel} threads. serve runs an {@link AnalysisServer} with
+ * {@code --parallel} workers until the process is stopped; it listens on
+ * loopback only unless {@code --bind} names another address, such as 0.0.0.0,
+ * since it has no authentication. The exit status is
+ * {@link #OK}, {@link #PARTIAL} if some files failed, {@link #USAGE} for bad
+ * arguments and {@link #ERROR} if the job could not run.
+ */
+public class BatchCLI {
+	private static final Logger logger = LogManager.getLogger(BatchCLI.class);
+
+	public static final int OK = 0;
+	public static final int PARTIAL = 1;
+	public static final int USAGE = 2;
+	public static final int ERROR = 3;
+
+	private final IEditorBO businessObj;
+	private final PrintStream out;
+
+	private int parallel = Runtime.getRuntime().availableProcessors();
+	private int batch = 50;
+	private boolean recursive;
+	private int port = 8090;
+	private String bind;
+	private int queue = 100;
+
+	private final AtomicInteger done = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicLong characters = new AtomicLong();
+
+	public BatchCLI(IEditorBO businessObj, PrintStream out) {
+		this.businessObj = businessObj;
+		this.out = out;
+	}
+
+	/** Runs the command in {@code args} and returns the exit status. */
+	public int run(String[] args) {
+		List<String> operands = new ArrayList<>();
+		try {
+			for (String arg : args) {
+				if (arg.startsWith("--parallel=")) {
+					parallel = Integer.parseInt(arg.substring("--parallel=".length()));
+				} else if (arg.startsWith("--batch=")) {
+					batch = Integer.parseInt(arg.substring("--batch=".length()));
+				} else if (arg.startsWith("--port=")) {
+					port = Integer.parseInt(arg.substring("--port=".length()));
+				} else if (arg.startsWith("--bind=")) {
+					bind = arg.substring("--bind=".length());
+				} else if (arg.startsWith("--queue=")) {
+					queue = Integer.parseInt(arg.substring("--queue=".length()));
+				} else if (arg.equals("--recursive")) {
+					recursive = true;
+				} else if (arg.startsWith("--")) {
+					return usage("unknown option " + arg);
+				} else {
+					operands.add(arg);
+				}
+			}
+		} catch (NumberFormatException e) {
+			return usage("not a number: " + e.getMessage());
+		}
+		if (parallel < 1 || batch < 1 || queue < 1) {
+			return usage("--parallel, --batch and --queue must be at least 1");
+		}
+		if (operands.isEmpty()) {
+			return usage("no command given");
+		}
+
+		String command = operands.get(0);
+		try {
+			if (command.equals("import") && operands.size() == 2) {
+				return importDirectory(new File(operands.get(1)));
+			} else if (command.equals("reanalyze") && operands.size() == 1) {
+				return reanalyze();
+			} else if (command.equals("export") && operands.size() == 2) {
+				return export(new File(operands.get(1)));
+			} else if (command.equals("reindex") && operands.size() == 1) {
+				return reindex();
+			} else if (command.equals("serve") && operands.size() == 1) {
+				return serve();
+			}
+			return usage("unknown command " + String.join(" ", operands));
+		} catch (Exception e) {
+			e.printStackTrace();
+			logger.error("Batch {} failed: {}", command, e.getMessage());
+			out.println(command + " failed: " + e.getMessage());
+			return ERROR;
+		}
+	}
+
+	private int importDirectory(File directory) throws Exception {
+		if (!directory.isDirectory()) {
+			return usage(directory + " is not a directory");
+		}
+		List<File> files = new ArrayList<>();
+		collectTextFiles(directory, files);
+		files.sort(null);
+		if (files.isEmpty()) {
+			out.println("no .txt files in " + directory);
+			return OK;
+		}
+		for (File file : files) {
+			characters.addAndGet(file.length());
+		}
+
+		List<List<File>> batches = partition(files);
+		return runBatches("import", files.size(), batches, part -> {
+			int imported = 0;
+			try {
+				imported = businessObj.importTextFiles(part);
+			} catch (RuntimeException e) {
+				// the batch is imported in one transaction, so none of it was saved
+				logger.error("Could not import {} files: {}", part.size(), e.toString());
+			}
+			failed.addAndGet(part.size() - imported);
+			done.addAndGet(part.size());
+		});
+	}
+
+	private void collectTextFiles(File directory, List<File> files) {
+		File[] children = directory.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory()) {
+				if (recursive) {
+					collectTextFiles(child, files);
+				}
+			} else if (businessObj.getFileExtension(child.getName()).equalsIgnoreCase("txt")) {
+				files.add(child);
+			}
+		}
+	}
+
+	private int reanalyze() throws Exception {
+		List<FileSummary> files = listAllFiles();
+		return runBatches("reanalyze", files.size(), partition(files), part -> {
+			for (FileSummary summary : part) {
+				boolean saved = false;
+				try {
+					Documents document = businessObj.getFile(summary.getFileId());
+					saved = document != null;
+					if (saved) {
+						for (Pages page : document.getPages()) {
+							characters.addAndGet(page.getPageContent().length());
+							saved &= businessObj.updateFile(document.getId(), document.getName(),
+									page.getPageNumber(), page.getPageContent());
+						}
+					}
+				} catch (RuntimeException e) {
+					logger.error("Could not reanalyze file {}: {}", summary.getFileId(), e.toString());
+				}
+				if (!saved) {
+					failed.incrementAndGet();
+				}
+				done.incrementAndGet();
+			}
+		});
+	}
+
+	private int export(File directory) throws Exception {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			return usage("cannot create " + directory);
+		}
+		List<FileSummary> files = listAllFiles();
+		try (Writer index = new OutputStreamWriter(
+				Files.newOutputStream(new File(directory, "index.tsv").toPath()), StandardCharsets.UTF_8)) {
+			index.write("fileId\tfileName\tdateCreated\tlastModified\ttfidfScore\n");
+			for (FileSummary file : files) {
+				index.write(file.getFileId() + "\t" + file.getFileName() + "\t" + file.getDateCreated() + "\t"
+						+ file.getLastModified() + "\t" + file.getTfidfScore() + "\n");
+			}
+		}
+		return runBatches("export", files.size(), partition(files), part -> {
+			for (FileSummary summary : part) {
+				try {
+					Documents document = businessObj.getFile(summary.getFileId());
+					if (document == null) {
+						failed.incrementAndGet();
+					} else {
+						StringBuilder text = new StringBuilder();
+						for (Pages page : document.getPages()) {
+							text.append(page.getPageContent());
+						}
+						characters.addAndGet(text.length());
+						String name = document.getId() + "-"
+								+ document.getName().replaceAll("[\\\\/:*?\"<>|]", "_");
+						Files.write(new File(directory, name).toPath(),
+								text.toString().getBytes(StandardCharsets.UTF_8));
+					}
+				} catch (IOException | RuntimeException e) {
+					logger.error("Could not export file {}: {}", summary.getFileId(), e.toString());
+					failed.incrementAndGet();
+				}
+				done.incrementAndGet();
+			}
+		});
+	}
+
+	private int reindex() {
+		int pages = businessObj.reindexSearch();
+		if (pages < 0) {
+			out.println("reindex failed, see the log");
+			return ERROR;
+		}
+		out.println("reindex: " + pages + " pages added to the search index");
+		return OK;
+	}
+
+	private int serve() throws IOException, InterruptedException {
+		InetAddress address = bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind);
+		AnalysisServer server = new AnalysisServer(businessObj, new InetSocketAddress(address, port), parallel,
+				queue);
+		CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop(5);
+			stopped.countDown();
+		}));
+		server.start();
+		out.println(String.format(Locale.ROOT, "serving on %s:%d with %d workers and a queue of %d",
+				address.getHostAddress(), server.getPort(), parallel, queue));
+		stopped.await();
+		return OK;
+	}
+
+	/** Every file, read a page at a time in name order. */
+	private List<FileSummary> listAllFiles() throws IOException {
+		List<FileSummary> files = new ArrayList<>();
+		FileSummary after = null;
+		while (true) {
+			List<FileSummary> page = businessObj.listFiles(FileSortOrder.NAME, false, after, batch);
+			if (page == null) {
+				throw new IOException("could not list the files after " + files.size());
+			}
+			files.addAll(page);
+			if (page.size() < batch) {
+				return files;
+			}
+			after = page.get(page.size() - 1);
+		}
+	}
+
+	private <T> List<List<T>> partition(List<T> items) {
+		List<List<T>> batches = new ArrayList<>();
+		for (int i = 0; i < items.size(); i += batch) {
+			batches.add(new ArrayList<>(items.subList(i, Math.min(items.size(), i + batch))));
+		}
+		return batches;
+	}
+
+	private interface BatchJob<T> {
+		void process(List<T> batch) throws Exception;
+	}
+
+	private <T> int runBatches(String command, int total, List<List<T>> batches, BatchJob<T> job)
+			throws InterruptedException {
+		out.println(String.format(Locale.ROOT, "%s: %d files in %d batches on %d threads", command, total,
+				batches.size(), parallel));
+		long started = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(parallel);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (List<T> part : batches) {
+				results.add(executor.submit(() -> {
+					job.process(part);
+					out.println(String.format(Locale.ROOT, "  %d/%d files, %d failed", done.get(), total,
+							failed.get()));
+					return null;
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					results.get(i).get();
+				} catch (ExecutionException e) {
+					// jobs count each file they finish; the ones this batch did not reach are counted below
+					logger.error("Batch {} of {} failed: {}", i + 1, command, e.getCause().toString());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		double seconds = (System.nanoTime() - started) / 1e9;
+		int failures = failed.get() + (total - done.get());
+		out.println(String.format(Locale.ROOT, "%s: %d of %d files done, %d failed, in %.1f s", command,
+				total - failures, total, failures, seconds));
+		out.println(String.format(Locale.ROOT, "  %.1f files/s, %.1f KB/s", total / seconds,
+				characters.get() / 1024.0 / seconds));
+		return failures == 0 ? OK : PARTIAL;
+	}
+
+	private int usage(String problem) {
+		out.println(problem);
+		out.println("usage: Driver import <dir> [--recursive] [--parallel=N] [--batch=N]");
+		out.println("       Driver reanalyze [--parallel=N] [--batch=N]");
+		out.println("       Driver export <dir> [--parallel=N] [--batch=N]");
+		out.println("       Driver reindex");
+		out.println("       Driver serve [--port=N] [--bind=ADDRESS] [--parallel=N] [--queue=N]");
+		return USAGE;
+	}
+}
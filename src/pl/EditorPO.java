@@ -16,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import javax.swing.BorderFactory;
@@ -39,14 +40,21 @@ import org.apache.logging.log4j.Logger;
 
 import bll.IEditorBO;
 import dto.Documents;
+import dto.FileChange;
 import dto.Pages;
+import dto.SearchResult;
+import util.ArabicTokenizer;
+import util.FlightEvents;
+import util.Metrics;
 
 public class EditorPO extends JFrame {
 
 	private static final long serialVersionUID = 1L;
 	private static final Logger logger = LogManager.getLogger(EditorPO.class);
+	private static final Metrics.Timer TFIDF_TASK_TIMER = Metrics.timer("ui.tfidfTask");
+	private static final Metrics.Timer IMPORT_TASK_TIMER = Metrics.timer("ui.importTask");
 	private IEditorBO businessObj;
-	private DefaultTableModel tableModel;
+	private FileTableModel tableModel;
 	private JPanel mainPanel, editPanel, transliterationPanel;
 	private JTable fileTable;
 	private JTextArea contentTextArea, transliteratedTextArea;
@@ -55,6 +63,7 @@ public class EditorPO extends JFrame {
 	private JLabel savingStatusLabel;
 	private JLabel wordCountLabel;
 	private JLabel importProgressLabel;
+	private JLabel analyzerStatusLabel;
 	private JLabel avgWordLengthLabel;
 	private JLabel totalLineCountLabel;
 	private Documents doc;
@@ -128,15 +137,7 @@ public class EditorPO extends JFrame {
 
 	private void setupMainMenuPanel() {
 
-		tableModel = new DefaultTableModel(new Object[] { "File ID", "File Name", "Last Modified", "Date Created" },
-				0) {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean isCellEditable(int row, int column) {
-				return false;
-			}
-		};
+		tableModel = new FileTableModel(businessObj);
 
 		fileTable = new JTable(tableModel);
 		fileTable.getTableHeader().setReorderingAllowed(false);
@@ -144,6 +145,17 @@ public class EditorPO extends JFrame {
 		fileTable.getColumnModel().getColumn(0).setMaxWidth(0);
 		fileTable.getTableHeader().setReorderingAllowed(false);
 		JScrollPane scroller = new JScrollPane(fileTable);
+		scroller.getVerticalScrollBar()
+				.addAdjustmentListener(e -> tableModel.loadMoreIfNearEnd(scroller.getVerticalScrollBar()));
+		fileTable.getTableHeader().addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent event) {
+				int column = fileTable.columnAtPoint(event.getPoint());
+				if (column != -1) {
+					tableModel.sortBy(fileTable.convertColumnIndexToModel(column));
+				}
+			}
+		});
 		JButton importFileButton = new JButton("Upload Files");
 		JButton createFileButton = new JButton("Create New File");
 		JButton deleteFileButton = new JButton("Delete File(s)");
@@ -155,7 +167,13 @@ public class EditorPO extends JFrame {
 		importProgressLabel = new JLabel();
 		importProgressLabel.setText("");
 		importProgressLabel.setHorizontalAlignment(SwingConstants.CENTER);
-		mainPanel.add(importProgressLabel, BorderLayout.SOUTH);
+		analyzerStatusLabel = new JLabel();
+		JPanel statusPanel = new JPanel(new BorderLayout());
+		statusPanel.setOpaque(false);
+		statusPanel.add(importProgressLabel, BorderLayout.CENTER);
+		statusPanel.add(analyzerStatusLabel, BorderLayout.EAST);
+		mainPanel.add(statusPanel, BorderLayout.SOUTH);
+		showAnalyzerStatus();
 		JPanel buttonPanel = new JPanel(new GridLayout(1, 4));
 		
 		importFileButton.setFont(buttonFont);
@@ -165,6 +183,7 @@ public class EditorPO extends JFrame {
         tfidfButton.setFont(buttonFont);
         searchbutton.setFont(buttonFont);
         importProgressLabel.setFont(buttonFont);
+        analyzerStatusLabel.setFont(buttonFont);
 		
 		importFileButton.setBackground(Color.WHITE);
         importFileButton.setForeground(Color.BLACK);
@@ -208,6 +227,7 @@ public class EditorPO extends JFrame {
 
 						@Override
 						public void run() {
+							long started = System.nanoTime();
 							selectedDocFileId = (int) tableModel.getValueAt(selectedRow, 0);
 							selectedDoc = null;
 							selectedDoc = businessObj.getFile(selectedDocFileId);
@@ -217,12 +237,10 @@ public class EditorPO extends JFrame {
 								selectedDocContent = pages.get(i).getPageContent();
 							}
 
+							// the table only holds the rows scrolled into view, so read the corpus directly
 							List<String> unselectedDocsContent = new ArrayList<String>();
-							for (int row = 0; row < fileTable.getRowCount(); row++) {
-								int unselectedDocFileId = (int) tableModel.getValueAt(row, 0);
-								if (unselectedDocFileId != selectedDocFileId) {
-									Documents unselectedDoc = null;
-									unselectedDoc = businessObj.getFile(unselectedDocFileId);
+							for (Documents unselectedDoc : businessObj.getAllFiles()) {
+								if (unselectedDoc.getId() != selectedDocFileId) {
 									pages = unselectedDoc.getPages();
 									String unselectedDocContent = null;
 									for (int i = 0; i < pages.size(); i++) {
@@ -232,6 +250,7 @@ public class EditorPO extends JFrame {
 								}
 							}
 							tfidfScore = businessObj.performTFIDF(unselectedDocsContent, selectedDocContent);
+							TFIDF_TASK_TIMER.stop(started);
 						}
 
 					});
@@ -249,10 +268,12 @@ public class EditorPO extends JFrame {
 
 				@Override
 				public void run() {
+					long started = System.nanoTime();
 					FileImporter fileImporter = new FileImporter(businessObj);
 					importProgressLabel.setText("Importing files, please wait...");
 					importProgressLabel.setVisible(true);
 					fileImporter.importFiles(e);
+					IMPORT_TASK_TIMER.stop(started);
 					refreshFileList();
 					importProgressLabel.setText("Import complete!");
 					try {
@@ -280,6 +301,13 @@ public class EditorPO extends JFrame {
 		searchbutton.addActionListener(e -> {
 			String keyword = searchfield.getText();
 			try {
+				List<SearchResult> rankedFiles = businessObj.searchKeywordRanked(keyword, 0,
+						RankedSearchFrame.PAGE_SIZE);
+				if (!rankedFiles.isEmpty()) {
+					new RankedSearchFrame(businessObj, keyword, rankedFiles);
+					return;
+				}
+				// Files saved before ranked search existed have no term frequencies yet
 				List<String> resultFiles = businessObj.searchKeyword(keyword);
 				if (resultFiles.isEmpty()) {
 					JOptionPane.showMessageDialog(this, "No files found while searching.");
@@ -295,7 +323,7 @@ public class EditorPO extends JFrame {
 
 		tfidfButton.addActionListener(e -> {
 			JOptionPane.showMessageDialog(null, "TF-IDF Score for '" + selectedDoc.getName() + "' is: " + tfidfScore);
-			logger.info("TF-IDF Score for '" + selectedDoc.getName() + "' is: " + tfidfScore);
+			logger.info("TF-IDF Score for '{}' is: {}", selectedDoc.getName(), tfidfScore);
 		});
 	}
 
@@ -504,7 +532,7 @@ public class EditorPO extends JFrame {
 				}
 			} catch (Exception e) {
 				JOptionPane.showMessageDialog(this, "Error processing analytic score: " + e.getMessage());
-				logger.error("Error processing analytic score: " + e.getMessage());
+				logger.error("Error processing analytic score: {}", e.getMessage());
 			}
 		} else {
 			JOptionPane.showMessageDialog(this, "Content is empty. Please enter text to process.");
@@ -543,7 +571,7 @@ public class EditorPO extends JFrame {
 				}
 			} catch (Exception e) {
 				JOptionPane.showMessageDialog(this, "Error processing word analytics: " + e.getMessage());
-				logger.error("Error processing word analytics: " + e.getMessage());
+				logger.error("Error processing word analytics: {}", e.getMessage());
 			}
 		} else {
 			JOptionPane.showMessageDialog(this, "Content is empty. Please enter text to process.");
@@ -620,15 +648,13 @@ public class EditorPO extends JFrame {
 	        return 0;
 	    }
 
-	    String[] words = content.split("\\s+");
+	    ArabicTokenizer tokenizer = ArabicTokenizer.whitespace().reset(content);
 	    int totalLength = 0;
 	    int wordCount = 0;
 
-	    for (String word : words) {
-	        if (!word.isEmpty()) {
-	            totalLength += word.length();
-	            wordCount++;
-	        }
+	    while (tokenizer.next()) {
+	        totalLength += tokenizer.length();
+	        wordCount++;
 	    }
 
 	    return wordCount == 0 ? 0 : (double) totalLength / wordCount;
@@ -638,7 +664,7 @@ public class EditorPO extends JFrame {
 	    if (text == null || text.trim().isEmpty()) {
 	        return 0;
 	    }
-	    return text.trim().split("\\s+").length;
+	    return ArabicTokenizer.countTokens(text, false);
 	}
 	
 	private int calculateLineCount(String content) {
@@ -879,7 +905,10 @@ public class EditorPO extends JFrame {
 				content = "";
 			}
 
+			FlightEvents.Event event = FlightEvents.AUTOSAVE.begin();
 			boolean updated = businessObj.updateFile(fileId, fileName, currentPage, content);
+			event.set("fileId", fileId).set("pageNumber", currentPage).set("characters", content.length())
+					.set("saved", updated).commit();
 			if (updated) {
 				savingStatusLabel.setVisible(true);
 				Thread.sleep(5000);
@@ -891,6 +920,16 @@ public class EditorPO extends JFrame {
 		}
 	}
 
+	/** Shows whether the Arabic analyzer is still loading; analysis waits for it until it is ready. */
+	private void showAnalyzerStatus() {
+		CompletableFuture<?> analyzer = businessObj.warmUpAnalyzer();
+		if (!analyzer.isDone()) {
+			analyzerStatusLabel.setText("Loading Arabic analyzer...");
+		}
+		analyzer.whenComplete((loaded, error) -> SwingUtilities.invokeLater(() -> analyzerStatusLabel
+				.setText(error == null ? "Arabic analyzer ready" : "Arabic analyzer failed to load")));
+	}
+
 	private void nextPage() {
 		if (currentPage < totalPageCount) {
 			currentPage++;
@@ -932,6 +971,8 @@ public class EditorPO extends JFrame {
 		if (content != null && !content.trim().isEmpty()) {
 			String transliteratedContent = businessObj.transliterate(pageId, content);
 			transliteratedTextArea.setText(transliteratedContent);
+			// Warm the remaining pages of this document so paging through them is instant
+			businessObj.transliteratePages(pages);
 
 			CardLayout cardLayout = (CardLayout) getContentPane().getLayout();
 			cardLayout.show(getContentPane(), "TransliterationView");
@@ -947,12 +988,19 @@ public class EditorPO extends JFrame {
 	}
 
 	private void refreshFileList() {
-		List<Documents> docs = businessObj.getAllFiles();
-		tableModel.setRowCount(0);
+		tableModel.reload();
+	}
 
-		for (Documents doc : docs) {
-			Object[] rowData = { doc.getId(), doc.getName(), doc.getLastModified(), doc.getDateCreated() };
-			tableModel.addRow(rowData);
+	/**
+	 * Reloads the file list when files were created or deleted by this or another
+	 * client. Page updates are left out, as every auto-save would reset the list.
+	 */
+	public void filesChanged(List<FileChange> changes) {
+		for (FileChange change : changes) {
+			if (change.getType() != FileChange.Type.UPDATED) {
+				refreshFileList();
+				return;
+			}
 		}
 	}
 
@@ -2,6 +2,7 @@ package pl;
 
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.util.Arrays;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -14,6 +15,8 @@ import bll.IEditorBO;
 
 public class FileImporter {
 	private static final Logger logger = LogManager.getLogger(EditorPO.class);
+	// larger selections are bulk loaded in one transaction instead of file by file
+	private static final int BULK_IMPORT_THRESHOLD = 20;
     private IEditorBO businessObj;
 
     public FileImporter(IEditorBO businessObj) {
@@ -33,13 +36,18 @@ public class FileImporter {
 
         if (result == JFileChooser.APPROVE_OPTION) {
             File[] selectedFiles = fileChooser.getSelectedFiles();
-            if (selectedFiles.length > 0) {
+            if (selectedFiles.length >= BULK_IMPORT_THRESHOLD) {
+                int imported = businessObj.importTextFiles(Arrays.asList(selectedFiles));
+                String message = imported + " of " + selectedFiles.length + " files uploaded successfully!";
+                JOptionPane.showMessageDialog(null, message);
+                logger.info(message);
+            } else if (selectedFiles.length > 0) {
                 for (File selectedFile : selectedFiles) {
                     String fileName = selectedFile.getName();
                     boolean isImport = businessObj.importTextFiles(selectedFile, fileName);
                     JOptionPane.showMessageDialog(null,
                             isImport ? fileName + " uploaded successfully!" : fileName + " failed to upload!");
-                    logger.info(isImport ? fileName + " uploaded successfully!" : fileName + " failed to upload!");
+                    logger.info(isImport ? "{} uploaded successfully!" : "{} failed to upload!", fileName);
                 }
             }
         }
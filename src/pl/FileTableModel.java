@@ -0,0 +1,155 @@
+package pl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JScrollBar;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import bll.IEditorBO;
+import dto.FileSortOrder;
+import dto.FileSummary;
+import util.Metrics;
+
+/**
+ * File list that holds only the rows scrolled into view so far. Rows are
+ * fetched a page at a time from the business layer, continuing after the last
+ * loaded row, and sorting is done by the database.
+ */
+public class FileTableModel extends AbstractTableModel {
+    public static final int PAGE_SIZE = 200;
+
+    private static final long serialVersionUID = 1L;
+    private static final Metrics.Timer PAGE_TIMER = Metrics.timer("ui.fileListPage");
+    private static final String[] COLUMNS = { "File ID", "File Name", "Last Modified", "Date Created", "TF-IDF" };
+    private static final FileSortOrder[] SORT_ORDERS = { null, FileSortOrder.NAME, FileSortOrder.LAST_MODIFIED,
+            FileSortOrder.DATE_CREATED, FileSortOrder.TFIDF };
+    // one loader for every file list, so pages are fetched one at a time
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-list-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final IEditorBO businessObj;
+    private final List<FileSummary> rows = new ArrayList<>();
+    private FileSortOrder sort = FileSortOrder.DATE_CREATED;
+    private boolean descending;
+    private boolean hasMore = true;
+    private boolean loading;
+    private int generation;
+
+    public FileTableModel(IEditorBO businessObj) {
+        this.businessObj = businessObj;
+    }
+
+    /** Drops the loaded rows and fetches the first page again. Safe to call from any thread. */
+    public void reload() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::reload);
+            return;
+        }
+        generation++;
+        rows.clear();
+        hasMore = true;
+        loading = false;
+        fireTableDataChanged();
+        loadMore();
+    }
+
+    /**
+     * Fetches the next page in the background unless one is already on its way.
+     * A page that could not be read leaves the rest to fetch, so scrolling
+     * tries again.
+     */
+    public void loadMore() {
+        if (loading || !hasMore) {
+            return;
+        }
+        loading = true;
+        int requested = generation;
+        FileSortOrder requestedSort = sort;
+        boolean requestedDescending = descending;
+        FileSummary after = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        LOADER.execute(() -> {
+            long started = System.nanoTime();
+            List<FileSummary> page = null;
+            try {
+                page = businessObj.listFiles(requestedSort, requestedDescending, after, PAGE_SIZE);
+            } finally {
+                PAGE_TIMER.stop(started);
+                List<FileSummary> loaded = page;
+                SwingUtilities.invokeLater(() -> append(requested, loaded));
+            }
+        });
+    }
+
+    /** Loads the next page once the scroll bar is within a screen of the end. */
+    public void loadMoreIfNearEnd(JScrollBar bar) {
+        if (bar.getValue() + 2 * bar.getVisibleAmount() >= bar.getMaximum()) {
+            loadMore();
+        }
+    }
+
+    /** Sorts by the given column, flipping the direction when it is already the sort column. */
+    public void sortBy(int column) {
+        FileSortOrder order = SORT_ORDERS[column];
+        if (order == null) {
+            return;
+        }
+        descending = order == sort && !descending;
+        sort = order;
+        reload();
+    }
+
+    private void append(int requested, List<FileSummary> page) {
+        if (requested != generation) {
+            return;
+        }
+        loading = false;
+        if (page == null) {
+            return;
+        }
+        hasMore = page.size() == PAGE_SIZE;
+        if (!page.isEmpty()) {
+            int first = rows.size();
+            rows.addAll(page);
+            fireTableRowsInserted(first, rows.size() - 1);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        FileSummary file = rows.get(row);
+        switch (column) {
+        case 0:
+            return file.getFileId();
+        case 1:
+            return file.getFileName();
+        case 2:
+            return file.getLastModified();
+        case 3:
+            return file.getDateCreated();
+        default:
+            return String.format("%.3f", file.getTfidfScore());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package pl;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import bll.IEditorBO;
+import dto.SearchResult;
+
+public class RankedSearchFrame extends JFrame {
+    public static final int PAGE_SIZE = 20;
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LogManager.getLogger(RankedSearchFrame.class);
+    private final IEditorBO businessObj;
+    private final String keyword;
+    private final DefaultTableModel tableModel;
+    private final JButton previousButton = new JButton("Previous");
+    private final JButton nextButton = new JButton("Next");
+    private final JLabel rangeLabel = new JLabel();
+    private int offset = 0;
+
+    public RankedSearchFrame(IEditorBO businessObj, String keyword, List<SearchResult> firstPage) {
+        this.businessObj = businessObj;
+        this.keyword = keyword;
+
+        setTitle("Search Results for '" + keyword + "'");
+        setSize(900, 600);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setLayout(new BorderLayout());
+
+        tableModel = new DefaultTableModel(new Object[] { "File Name", "Page", "Score", "Snippet" }, 0) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable resultsTable = new JTable(tableModel);
+        resultsTable.getTableHeader().setReorderingAllowed(false);
+        resultsTable.getColumnModel().getColumn(3).setPreferredWidth(500);
+
+        JButton backButton = new JButton("Back to Menu");
+        backButton.addActionListener(e -> dispose());
+        previousButton.addActionListener(e -> loadPage(offset - PAGE_SIZE));
+        nextButton.addActionListener(e -> loadPage(offset + PAGE_SIZE));
+
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.add(previousButton);
+        buttonPanel.add(rangeLabel);
+        buttonPanel.add(nextButton);
+        buttonPanel.add(backButton);
+
+        add(new JScrollPane(resultsTable), BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        showPage(0, firstPage);
+        setVisible(true);
+    }
+
+    private void loadPage(int newOffset) {
+        previousButton.setEnabled(false);
+        nextButton.setEnabled(false);
+        new Thread(() -> {
+            try {
+                List<SearchResult> results = businessObj.searchKeywordRanked(keyword, newOffset, PAGE_SIZE);
+                SwingUtilities.invokeLater(() -> showPage(newOffset, results));
+            } catch (IllegalArgumentException exception) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, exception.getMessage()));
+                logger.error(exception.getMessage());
+            }
+        }).start();
+    }
+
+    private void showPage(int newOffset, List<SearchResult> results) {
+        offset = newOffset;
+        tableModel.setRowCount(0);
+        for (SearchResult result : results) {
+            tableModel.addRow(new Object[] { result.getFileName(), result.getPageNumber(),
+                    String.format("%.3f", result.getScore()), result.getSnippet() });
+        }
+        rangeLabel.setText(results.isEmpty() ? "No more results"
+                : "Results " + (offset + 1) + " - " + (offset + results.size()));
+        previousButton.setEnabled(offset > 0);
+        nextButton.setEnabled(results.size() == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,187 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single pass tokenizer over a {@code char[]} or {@link CharSequence}. Tokens
+ * are reported as spans ({@link #offset()}, {@link #length()}) into the source
+ * so callers only create a String when they actually need one.
+ *
+ * In Arabic mode a token is a run of Arabic letters, digits and marks, and
+ * every other character separates tokens. In whitespace mode a token is a run
+ * of non-whitespace characters, which matches {@code split("\\s+")}.
+ */
+public class ArabicTokenizer {
+
+	static final byte OTHER = 0;
+	static final byte SPACE = 1;
+	static final byte ARABIC = 2;
+
+	private static final byte[] CHAR_CLASS = new byte[Character.MAX_VALUE + 1];
+
+	static {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+				CHAR_CLASS[c] = SPACE;
+			} else if (isArabicBlock(c) && isWordPart(c)) {
+				CHAR_CLASS[c] = ARABIC;
+			}
+		}
+	}
+
+	private final boolean arabicOnly;
+	private char[] array;
+	private CharSequence sequence;
+	private int position;
+	private int end;
+	private int tokenOffset;
+	private int tokenLength;
+
+	public ArabicTokenizer(boolean arabicOnly) {
+		this.arabicOnly = arabicOnly;
+	}
+
+	public static ArabicTokenizer arabic() {
+		return new ArabicTokenizer(true);
+	}
+
+	public static ArabicTokenizer whitespace() {
+		return new ArabicTokenizer(false);
+	}
+
+	public ArabicTokenizer reset(CharSequence text) {
+		this.array = null;
+		this.sequence = text;
+		this.position = 0;
+		this.end = text == null ? 0 : text.length();
+		this.tokenOffset = 0;
+		this.tokenLength = 0;
+		return this;
+	}
+
+	public ArabicTokenizer reset(char[] text, int offset, int length) {
+		this.array = text;
+		this.sequence = null;
+		this.position = offset;
+		this.end = offset + length;
+		this.tokenOffset = offset;
+		this.tokenLength = 0;
+		return this;
+	}
+
+	public boolean next() {
+		int i = position;
+		while (i < end && !isTokenChar(charAt(i))) {
+			i++;
+		}
+		if (i >= end) {
+			position = end;
+			tokenOffset = end;
+			tokenLength = 0;
+			return false;
+		}
+		int start = i;
+		while (i < end && isTokenChar(charAt(i))) {
+			i++;
+		}
+		tokenOffset = start;
+		tokenLength = i - start;
+		position = i;
+		return true;
+	}
+
+	/** Offset of the current token in the source passed to {@code reset}. */
+	public int offset() {
+		return tokenOffset;
+	}
+
+	public int length() {
+		return tokenLength;
+	}
+
+	public String token() {
+		if (array != null) {
+			return new String(array, tokenOffset, tokenLength);
+		}
+		return sequence.subSequence(tokenOffset, tokenOffset + tokenLength).toString();
+	}
+
+	public boolean tokenEquals(CharSequence word, boolean ignoreCase) {
+		if (word.length() != tokenLength) {
+			return false;
+		}
+		for (int i = 0; i < tokenLength; i++) {
+			char a = charAt(tokenOffset + i);
+			char b = word.charAt(i);
+			if (a == b) {
+				continue;
+			}
+			if (!ignoreCase || (Character.toUpperCase(a) != Character.toUpperCase(b)
+					&& Character.toLowerCase(a) != Character.toLowerCase(b))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private char charAt(int index) {
+		return array != null ? array[index] : sequence.charAt(index);
+	}
+
+	private boolean isTokenChar(char c) {
+		byte charClass = CHAR_CLASS[c];
+		return arabicOnly ? charClass == ARABIC : charClass != SPACE;
+	}
+
+	public static List<String> tokenize(CharSequence text) {
+		return tokenize(text, true);
+	}
+
+	public static List<String> tokenize(CharSequence text, boolean arabicOnly) {
+		List<String> tokens = new ArrayList<>();
+		ArabicTokenizer tokenizer = new ArabicTokenizer(arabicOnly).reset(text);
+		while (tokenizer.next()) {
+			tokens.add(tokenizer.token());
+		}
+		return tokens;
+	}
+
+	public static int countTokens(CharSequence text, boolean arabicOnly) {
+		int count = 0;
+		ArabicTokenizer tokenizer = new ArabicTokenizer(arabicOnly).reset(text);
+		while (tokenizer.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	public static boolean isArabic(char c) {
+		return CHAR_CLASS[c] == ARABIC;
+	}
+
+	public static boolean isSpace(char c) {
+		return CHAR_CLASS[c] == SPACE;
+	}
+
+	private static boolean isArabicBlock(int c) {
+		return (c >= 0x0600 && c <= 0x06FF) || (c >= 0x0750 && c <= 0x077F) || (c >= 0x08A0 && c <= 0x08FF)
+				|| (c >= 0xFB50 && c <= 0xFDFF) || (c >= 0xFE70 && c <= 0xFEFF);
+	}
+
+	private static boolean isWordPart(int c) {
+		switch (Character.getType(c)) {
+		case Character.UPPERCASE_LETTER:
+		case Character.LOWERCASE_LETTER:
+		case Character.OTHER_LETTER:
+		case Character.MODIFIER_LETTER:
+		case Character.NON_SPACING_MARK:
+		case Character.COMBINING_SPACING_MARK:
+		case Character.ENCLOSING_MARK:
+		case Character.DECIMAL_DIGIT_NUMBER:
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package util;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Java Flight Recorder events for analysis and persistence work. The event
+ * types are created at runtime through {@code jdk.jfr.EventFactory}, so the
+ * project still compiles for Java 8 and runs on JVMs without JFR; there, and
+ * whenever no recording has the event enabled, {@link Type#begin()} returns an
+ * event that ignores every call.
+ *
+ * Record continuously with
+ * {@code -XX:StartFlightRecording=disk=true,maxage=1h,settings=default} and
+ * look under the Real Editor category in JDK Mission Control.
+ */
+public final class FlightEvents {
+	private static final Logger LOGGER = LogManager.getLogger(FlightEvents.class);
+
+	public static final Type PAGE_ANALYSIS = new Type("realeditor.PageAnalysis", "Page Analysis", "Analysis",
+			"long fileId", "int pageNumber", "int tokens", "int characters");
+	public static final Type ANALYZER_BATCH = new Type("realeditor.AnalyzerBatch", "Analyzer Batch", "Analysis",
+			"String analyzer", "int tokens");
+	public static final Type TFIDF = new Type("realeditor.TfidfComputation", "TF-IDF Computation", "Analysis",
+			"int documents", "int characters");
+	public static final Type BATCH_FLUSH = new Type("realeditor.BatchFlush", "Batch Flush", "Persistence",
+			"String table", "int rows", "long bytes");
+	public static final Type AUTOSAVE = new Type("realeditor.Autosave", "Autosave", "Persistence", "long fileId",
+			"int pageNumber", "int characters", "boolean saved");
+
+	private FlightEvents() {
+	}
+
+	private static Class<?> fieldType(String type) {
+		switch (type) {
+		case "int":
+			return int.class;
+		case "long":
+			return long.class;
+		case "double":
+			return double.class;
+		case "boolean":
+			return boolean.class;
+		case "String":
+			return String.class;
+		default:
+			throw new IllegalArgumentException("Unsupported event field type " + type);
+		}
+	}
+
+	/** An event type with named fields, declared as {@code "<type> <name>"}. */
+	public static final class Type {
+		private final String name;
+		private final Map<String, Integer> fields = new HashMap<>();
+		private final Class<?>[] types;
+		private final Object factory;
+		private final Object eventType;
+
+		Type(String name, String label, String category, String... declarations) {
+			this.name = name;
+			this.types = new Class<?>[declarations.length];
+			String[] names = new String[declarations.length];
+			for (int i = 0; i < declarations.length; i++) {
+				String[] parts = declarations[i].split(" ");
+				types[i] = fieldType(parts[0]);
+				names[i] = parts[1];
+				fields.put(names[i], i);
+			}
+			Object createdFactory = null;
+			Object createdType = null;
+			if (Jfr.AVAILABLE) {
+				try {
+					createdFactory = Jfr.create(name, label, category, types, names);
+					createdType = Jfr.GET_EVENT_TYPE.invoke(createdFactory);
+				} catch (Throwable e) {
+					LOGGER.error("Could not define flight recorder event {}: {}", name, e);
+				}
+			}
+			this.factory = createdFactory;
+			this.eventType = createdType;
+		}
+
+		/** Whether a running recording would keep this event. */
+		public boolean isEnabled() {
+			try {
+				return eventType != null && (boolean) Jfr.IS_ENABLED.invoke(eventType);
+			} catch (Throwable e) {
+				return false;
+			}
+		}
+
+		/** Starts timing an event; call {@link Event#commit()} when the work is done. */
+		public Event begin() {
+			if (!isEnabled()) {
+				return new Event(this, null);
+			}
+			try {
+				Object event = Jfr.NEW_EVENT.invoke(factory);
+				Jfr.BEGIN.invoke(event);
+				return new Event(this, event);
+			} catch (Throwable e) {
+				return new Event(this, null);
+			}
+		}
+
+		int index(String field) {
+			Integer index = fields.get(field);
+			if (index == null) {
+				throw new IllegalArgumentException(name + " has no field " + field);
+			}
+			return index;
+		}
+
+		/** Widens or narrows numbers to the declared field type, as JFR does not convert them. */
+		Object coerce(int index, Object value) {
+			if (value instanceof Number) {
+				Number number = (Number) value;
+				if (types[index] == long.class) {
+					return number.longValue();
+				} else if (types[index] == int.class) {
+					return number.intValue();
+				} else if (types[index] == double.class) {
+					return number.doubleValue();
+				}
+			}
+			return value;
+		}
+	}
+
+	public static final class Event {
+		private final Type type;
+		private final Object event;
+
+		Event(Type type, Object event) {
+			this.type = type;
+			this.event = event;
+		}
+
+		public Event set(String field, Object value) {
+			int index = type.index(field);
+			if (event != null) {
+				try {
+					Jfr.SET.invoke(event, index, type.coerce(index, value));
+				} catch (Throwable e) {
+					LOGGER.error("Could not set {} on {}: {}", field, type.name, e);
+				}
+			}
+			return this;
+		}
+
+		/** Stops timing without committing, for fields only known after the work. */
+		public Event end() {
+			if (event != null) {
+				try {
+					Jfr.END.invoke(event);
+				} catch (Throwable e) {
+					LOGGER.error("Could not end {}: {}", type.name, e);
+				}
+			}
+			return this;
+		}
+
+		public void commit() {
+			if (event != null) {
+				try {
+					Jfr.COMMIT.invoke(event);
+				} catch (Throwable e) {
+					LOGGER.error("Could not commit {}: {}", type.name, e);
+				}
+			}
+		}
+	}
+
+	/** Reflective access to jdk.jfr, resolved once. */
+	private static final class Jfr {
+		static final boolean AVAILABLE;
+		static MethodHandle CREATE;
+		static MethodHandle REGISTER;
+		static MethodHandle GET_EVENT_TYPE;
+		static MethodHandle IS_ENABLED;
+		static MethodHandle NEW_EVENT;
+		static MethodHandle BEGIN;
+		static MethodHandle SET;
+		static MethodHandle END;
+		static MethodHandle COMMIT;
+		static Constructor<?> ANNOTATION_ELEMENT;
+		static Constructor<?> VALUE_DESCRIPTOR;
+		static Class<?> NAME;
+		static Class<?> LABEL;
+		static Class<?> CATEGORY;
+		static Class<?> STACK_TRACE;
+
+		static {
+			boolean available;
+			try {
+				MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+				Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+				Class<?> event = Class.forName("jdk.jfr.Event");
+				Class<?> eventType = Class.forName("jdk.jfr.EventType");
+				CREATE = lookup.findStatic(factory, "create",
+						MethodType.methodType(factory, List.class, List.class));
+				REGISTER = lookup.findVirtual(factory, "register", MethodType.methodType(void.class));
+				GET_EVENT_TYPE = lookup.findVirtual(factory, "getEventType", MethodType.methodType(eventType));
+				IS_ENABLED = lookup.findVirtual(eventType, "isEnabled", MethodType.methodType(boolean.class));
+				NEW_EVENT = lookup.findVirtual(factory, "newEvent", MethodType.methodType(event));
+				BEGIN = lookup.findVirtual(event, "begin", MethodType.methodType(void.class));
+				SET = lookup.findVirtual(event, "set", MethodType.methodType(void.class, int.class, Object.class));
+				END = lookup.findVirtual(event, "end", MethodType.methodType(void.class));
+				COMMIT = lookup.findVirtual(event, "commit", MethodType.methodType(void.class));
+				Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+				ANNOTATION_ELEMENT = annotationElement.getConstructor(Class.class, Object.class);
+				VALUE_DESCRIPTOR = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class,
+						String.class);
+				NAME = Class.forName("jdk.jfr.Name");
+				LABEL = Class.forName("jdk.jfr.Label");
+				CATEGORY = Class.forName("jdk.jfr.Category");
+				STACK_TRACE = Class.forName("jdk.jfr.StackTrace");
+				available = true;
+			} catch (ReflectiveOperationException | LinkageError e) {
+				available = false;
+			}
+			AVAILABLE = available;
+		}
+
+		static Object create(String name, String label, String category, Class<?>[] types, String[] names)
+				throws Throwable {
+			List<Object> annotations = Arrays.asList(annotation(NAME, name), annotation(LABEL, label),
+					annotation(CATEGORY, new String[] { "Real Editor", category }),
+					annotation(STACK_TRACE, Boolean.FALSE));
+			List<Object> descriptors = new ArrayList<>();
+			for (int i = 0; i < types.length; i++) {
+				descriptors.add(VALUE_DESCRIPTOR.newInstance(types[i], names[i]));
+			}
+			Object factory = CREATE.invoke(annotations, descriptors);
+			REGISTER.invoke(factory);
+			return factory;
+		}
+
+		private static Object annotation(Class<?> type, Object value) throws ReflectiveOperationException {
+			return ANNOTATION_ELEMENT.newInstance(type.asSubclass(Annotation.class), value);
+		}
+	}
+}
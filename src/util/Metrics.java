@@ -0,0 +1,384 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Process-wide counters, histograms and timers. Each metric is registered as an
+ * MBean under {@code realeditor:type=<kind>,name=<name>} when first used, so it
+ * can be watched with jconsole or VisualVM. Stages reported through
+ * {@link StageTimer} are recorded as {@code dao.stage.<stage>} timers.
+ *
+ * Values are cumulative since start or the last {@code reset()}. Set
+ * {@code metrics.file} (and optionally {@code metrics.interval} in seconds) in
+ * config.properties to also append a snapshot of every metric to a file.
+ */
+public final class Metrics {
+	private static final Logger LOGGER = LogManager.getLogger(Metrics.class);
+	private static final String DOMAIN = "realeditor";
+
+	private static final Map<String, Object> METRICS = new ConcurrentHashMap<>();
+	private static final Map<String, Timer> STAGES = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService reporter;
+
+	static {
+		StageTimer.setSink((stage, nanos) -> STAGES
+				.computeIfAbsent(stage, name -> timer("dao.stage." + name)).record(nanos));
+	}
+
+	private Metrics() {
+	}
+
+	public static Counter counter(String name) {
+		return (Counter) METRICS.computeIfAbsent(name, key -> register("Counter", key, new Counter(), CounterMBean.class));
+	}
+
+	public static Histogram histogram(String name) {
+		return (Histogram) METRICS.computeIfAbsent(name,
+				key -> register("Histogram", key, new Histogram(), HistogramMBean.class));
+	}
+
+	public static Timer timer(String name) {
+		return (Timer) METRICS.computeIfAbsent(name, key -> register("Timer", key, new Timer(), TimerMBean.class));
+	}
+
+	private static <T> T register(String type, String name, T metric, Class<? super T> mbean) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			String quoted = name.matches("[\\w.\\-]+") ? name : ObjectName.quote(name);
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + quoted);
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(new StandardMBean(metric, cast(mbean)), objectName);
+			}
+		} catch (JMException e) {
+			LOGGER.error("Could not register metric {}: {}", name, e.getMessage());
+		}
+		return metric;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Class<T> cast(Class<? super T> type) {
+		return (Class<T>) type;
+	}
+
+	/** Starts the file reporter if {@code metrics.file} is set in config.properties. */
+	public static void startReporting() {
+		try (FileInputStream input = new FileInputStream("config.properties")) {
+			Properties prop = new Properties();
+			prop.load(input);
+			String path = prop.getProperty("metrics.file");
+			if (path != null && !path.trim().isEmpty()) {
+				startReporting(new File(path.trim()), Long.parseLong(prop.getProperty("metrics.interval", "60").trim()));
+			}
+		} catch (IOException | NumberFormatException e) {
+			LOGGER.error("Could not read metrics settings: {}", e.getMessage());
+		}
+	}
+
+	/** Appends a snapshot of every metric to the file every interval and once more at exit. */
+	public static synchronized void startReporting(File file, long intervalSeconds) {
+		if (reporter != null) {
+			return;
+		}
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reporter.scheduleAtFixedRate(() -> writeSnapshot(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> writeSnapshot(file)));
+	}
+
+	private static void writeSnapshot(File file) {
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+			out.write("# " + LocalDateTime.now() + System.lineSeparator());
+			out.write(snapshot());
+		} catch (IOException e) {
+			LOGGER.error("Could not write metrics to {}: {}", file, e.getMessage());
+		}
+	}
+
+	/** One line per metric, sorted by name. */
+	public static String snapshot() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, Object> entry : new TreeMap<>(METRICS).entrySet()) {
+			text.append(entry.getKey()).append(' ').append(entry.getValue()).append(System.lineSeparator());
+		}
+		return text.toString();
+	}
+
+	public interface CounterMBean {
+		long getCount();
+
+		void reset();
+	}
+
+	public interface HistogramMBean {
+		long getCount();
+
+		long getMin();
+
+		long getMax();
+
+		double getMean();
+
+		long get50thPercentile();
+
+		long get90thPercentile();
+
+		long get99thPercentile();
+
+		void reset();
+	}
+
+	public interface TimerMBean {
+		long getCount();
+
+		double getMeanMillis();
+
+		double get50thPercentileMillis();
+
+		double get90thPercentileMillis();
+
+		double get99thPercentileMillis();
+
+		double getMaxMillis();
+
+		double getTotalSeconds();
+
+		void reset();
+	}
+
+	public static class Counter implements CounterMBean {
+		private final LongAdder count = new LongAdder();
+
+		public void inc() {
+			count.increment();
+		}
+
+		public void add(long amount) {
+			count.add(amount);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public void reset() {
+			count.reset();
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount();
+		}
+	}
+
+	/**
+	 * Histogram of non-negative values in log-linear buckets: eight buckets per
+	 * power of two, so percentiles are within about 12% of the true value.
+	 */
+	public static class Histogram implements HistogramMBean {
+		private static final int SUB_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+		private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		public void update(long value) {
+			long clamped = Math.max(0, value);
+			buckets.incrementAndGet(bucket(clamped));
+			count.increment();
+			sum.add(clamped);
+			min.accumulate(clamped);
+			max.accumulate(clamped);
+		}
+
+		static int bucket(long value) {
+			if (value < SUB_BUCKETS) {
+				return (int) value;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+		}
+
+		static long upperBound(int bucket) {
+			if (bucket < SUB_BUCKETS) {
+				return bucket;
+			}
+			int shift = bucket / SUB_BUCKETS - 1;
+			long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+			return lower + (1L << shift) - 1;
+		}
+
+		/** The value below which the given fraction of updates fall, e.g. 0.99. */
+		public long percentile(double fraction) {
+			long total = count.sum();
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(fraction * total));
+			long seen = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				seen += buckets.get(i);
+				if (seen >= rank) {
+					return Math.min(upperBound(i), getMax());
+				}
+			}
+			return getMax();
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public long getMin() {
+			return count.sum() == 0 ? 0 : min.get();
+		}
+
+		@Override
+		public long getMax() {
+			return max.get();
+		}
+
+		@Override
+		public double getMean() {
+			long total = count.sum();
+			return total == 0 ? 0 : (double) sum.sum() / total;
+		}
+
+		long getSum() {
+			return sum.sum();
+		}
+
+		@Override
+		public long get50thPercentile() {
+			return percentile(0.5);
+		}
+
+		@Override
+		public long get90thPercentile() {
+			return percentile(0.9);
+		}
+
+		@Override
+		public long get99thPercentile() {
+			return percentile(0.99);
+		}
+
+		@Override
+		public void reset() {
+			for (int i = 0; i < buckets.length(); i++) {
+				buckets.set(i, 0);
+			}
+			count.reset();
+			sum.reset();
+			min.reset();
+			max.reset();
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "count=%d min=%d mean=%.1f p50=%d p90=%d p99=%d max=%d", getCount(),
+					getMin(), getMean(), get50thPercentile(), get90thPercentile(), get99thPercentile(), getMax());
+		}
+	}
+
+	/** Durations in nanoseconds, reported in milliseconds. */
+	public static class Timer implements TimerMBean {
+		private final Histogram nanos = new Histogram();
+
+		public void record(long elapsedNanos) {
+			nanos.update(elapsedNanos);
+		}
+
+		/** Records the time since a {@link System#nanoTime()} reading. */
+		public void stop(long startedNanos) {
+			nanos.update(System.nanoTime() - startedNanos);
+		}
+
+		@Override
+		public long getCount() {
+			return nanos.getCount();
+		}
+
+		@Override
+		public double getMeanMillis() {
+			return nanos.getMean() / 1e6;
+		}
+
+		@Override
+		public double get50thPercentileMillis() {
+			return nanos.get50thPercentile() / 1e6;
+		}
+
+		@Override
+		public double get90thPercentileMillis() {
+			return nanos.get90thPercentile() / 1e6;
+		}
+
+		@Override
+		public double get99thPercentileMillis() {
+			return nanos.get99thPercentile() / 1e6;
+		}
+
+		@Override
+		public double getMaxMillis() {
+			return nanos.getMax() / 1e6;
+		}
+
+		@Override
+		public double getTotalSeconds() {
+			return nanos.getSum() / 1e9;
+		}
+
+		@Override
+		public void reset() {
+			nanos.reset();
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms total=%.3fs",
+					getCount(), getMeanMillis(), get50thPercentileMillis(), get90thPercentileMillis(),
+					get99thPercentileMillis(), getMaxMillis(), getTotalSeconds());
+		}
+	}
+}
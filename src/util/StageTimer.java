@@ -0,0 +1,65 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports how long each stage of a write takes. Timing is off until a sink is
+ * installed or a trace is open on the thread; otherwise {@link #start()} and
+ * {@link #lap(String, long)} cost one volatile read and a thread-local lookup.
+ * Stages are timed on the calling thread.
+ */
+public final class StageTimer {
+
+	public interface Sink {
+		void record(String stage, long nanos);
+	}
+
+	private static volatile Sink sink;
+	private static final ThreadLocal<Map<String, Long>> TRACE = new ThreadLocal<>();
+
+	private StageTimer() {
+	}
+
+	/** Installs the sink receiving stage timings, or {@code null} to stop timing; returns the previous one. */
+	public static synchronized Sink setSink(Sink newSink) {
+		Sink previous = sink;
+		sink = newSink;
+		return previous;
+	}
+
+	/** Starts summing this thread's stages, which {@link #endTrace()} returns. */
+	public static void beginTrace() {
+		TRACE.set(new LinkedHashMap<>());
+	}
+
+	/** Nanoseconds per stage since {@link #beginTrace()}, in first-seen order. */
+	public static Map<String, Long> endTrace() {
+		Map<String, Long> trace = TRACE.get();
+		TRACE.remove();
+		return trace;
+	}
+
+	public static long start() {
+		return sink == null && TRACE.get() == null ? 0 : System.nanoTime();
+	}
+
+	/** Records the time since {@code started} against the stage and returns the new start. */
+	public static long lap(String stage, long started) {
+		Sink current = sink;
+		Map<String, Long> trace = TRACE.get();
+		if (current == null && trace == null) {
+			return 0;
+		}
+		long now = System.nanoTime();
+		if (started != 0) {
+			if (current != null) {
+				current.record(stage, now - started);
+			}
+			if (trace != null) {
+				trace.merge(stage, now - started, Long::sum);
+			}
+		}
+		return now;
+	}
+}